@@ -97,3 +97,10 @@ val copySampleBytecode = tasks.register<Copy>("sampleBytecode") {
 }
 tasks.test { dependsOn(copySampleBytecode) }
 tasks.jmh { dependsOn(copySampleBytecode) }
+
+// optional JMH settings, for example "-PjmhIncludes=ClassFileBenchmark -PjmhProfilers=gc"
+// runs the class-file benchmarks while also reporting allocation rates and GC activity
+jmh {
+  providers.gradleProperty("jmhIncludes").orNull?.let { includes.addAll(it.split(',')) }
+  providers.gradleProperty("jmhProfilers").orNull?.let { profilers.addAll(it.split(',')) }
+}
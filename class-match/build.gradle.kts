@@ -1,5 +1,5 @@
 plugins {
-  id("java-common")
+  id("java-multiversion")
 }
 
 dependencies {
@@ -7,6 +7,7 @@ dependencies {
 
   sampleBytecode("org.ow2.asm:asm-test:9.10.1")
   sampleBytecode("org.springframework:spring-web:7.0.7")
+  testImplementation(project(":testing"))
   jmh(project(":testing"))
   jmh(libs.asm)
 }
@@ -9,6 +9,7 @@ import static org.objectweb.asm.Opcodes.ASM9;
 import static org.openjdk.jmh.annotations.Mode.AverageTime;
 
 import datadog.instrument.testing.SampleClasses;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import org.objectweb.asm.AnnotationVisitor;
@@ -34,10 +35,20 @@ import org.openjdk.jmh.infra.Blackhole;
 public class ClassFileBenchmark {
 
   private List<byte[]> bytecodes;
+  private List<ByteBuffer> directBuffers;
+
+  private final ClassFileParser parser = new ClassFileParser();
+  private final OutlineCache outlineCache = new OutlineCache(8192);
 
   @Setup(Level.Trial)
   public void setup() {
     bytecodes = SampleClasses.loadBytecode("spring-web.jar");
+    directBuffers = new ArrayList<>();
+    for (byte[] bytecode : bytecodes) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(bytecode.length);
+      buffer.put(bytecode).flip();
+      directBuffers.add(buffer);
+    }
   }
 
   @Benchmark
@@ -69,6 +80,15 @@ public class ClassFileBenchmark {
     }
   }
 
+  @Benchmark
+  @Fork(value = 1)
+  @Threads(value = 1)
+  public void testClassTriage(Blackhole blackhole) {
+    for (byte[] bytecode : bytecodes) {
+      blackhole.consume(ClassFile.triage(bytecode));
+    }
+  }
+
   @Benchmark
   @Fork(value = 1)
   @Threads(value = 1)
@@ -81,6 +101,30 @@ public class ClassFileBenchmark {
     }
   }
 
+  @Benchmark
+  @Fork(value = 1)
+  @Threads(value = 1)
+  public void testClassHeaderWithParser(Blackhole blackhole) {
+    for (byte[] bytecode : bytecodes) {
+      ClassHeader header = parser.header(bytecode);
+      blackhole.consume(header.className);
+      blackhole.consume(header.superName);
+      blackhole.consume(header.interfaces);
+    }
+  }
+
+  @Benchmark
+  @Fork(value = 1)
+  @Threads(value = 1)
+  public void testClassHeaderDirectBuffer(Blackhole blackhole) {
+    for (ByteBuffer buffer : directBuffers) {
+      ClassHeader header = ClassFile.header(buffer);
+      blackhole.consume(header.className);
+      blackhole.consume(header.superName);
+      blackhole.consume(header.interfaces);
+    }
+  }
+
   @Benchmark
   @Fork(value = 1)
   @Threads(value = 1)
@@ -99,8 +143,64 @@ public class ClassFileBenchmark {
     }
   }
 
+  @Benchmark
+  @Fork(value = 1)
+  @Threads(value = 1)
+  public void testClassOutlineWithParser(Blackhole blackhole) {
+    ClassFile.annotationsOfInterest(asList("javax/ws/rs/Path", "jakarta/ws/rs/Path"));
+
+    for (byte[] bytecode : bytecodes) {
+      ClassOutline outline = parser.outline(bytecode);
+      blackhole.consume(outline.access);
+      blackhole.consume(outline.className);
+      blackhole.consume(outline.superName);
+      blackhole.consume(outline.interfaces);
+      blackhole.consume(outline.fields);
+      blackhole.consume(outline.methods);
+      blackhole.consume(outline.annotations);
+    }
+  }
+
+  @Benchmark
+  @Fork(value = 1)
+  @Threads(value = 1)
+  public void testClassLazyOutline(Blackhole blackhole) {
+    ClassFile.annotationsOfInterest(asList("javax/ws/rs/Path", "jakarta/ws/rs/Path"));
+
+    for (byte[] bytecode : bytecodes) {
+      ClassOutline outline = ClassFile.lazyOutline(bytecode);
+      blackhole.consume(outline.access);
+      blackhole.consume(outline.className);
+      blackhole.consume(outline.superName);
+      blackhole.consume(outline.interfaces);
+      blackhole.consume(outline.fields);
+      blackhole.consume(outline.methods);
+      blackhole.consume(outline.annotations);
+    }
+  }
+
+  @Benchmark
+  @Fork(value = 1)
+  @Threads(value = 1)
+  public void testCachedOutline(Blackhole blackhole) {
+    ClassFile.annotationsOfInterest(asList("javax/ws/rs/Path", "jakarta/ws/rs/Path"));
+
+    for (byte[] bytecode : bytecodes) {
+      ClassOutline outline = outlineCache.outline(bytecode);
+      blackhole.consume(outline.access);
+      blackhole.consume(outline.className);
+      blackhole.consume(outline.superName);
+      blackhole.consume(outline.interfaces);
+      blackhole.consume(outline.fields);
+      blackhole.consume(outline.methods);
+      blackhole.consume(outline.annotations);
+    }
+  }
+
   static final class OutlineVisitor extends ClassVisitor {
     private static final String[] NO_ANNOTATIONS = {};
+    private static final AnnotationValues[] NO_ANNOTATION_VALUES = {};
+    private static final String[][] NO_PARAMETER_ANNOTATIONS = {};
 
     public int access;
     public String className;
@@ -132,7 +232,9 @@ public class ClassFileBenchmark {
     @Override
     public FieldVisitor visitField(
         int access, String name, String descriptor, String signature, Object value) {
-      fields.add(new FieldOutline(access, name, descriptor));
+      fields.add(
+          new FieldOutline(
+              access, name, descriptor, NO_ANNOTATIONS, NO_ANNOTATION_VALUES, signature));
       return null;
     }
 
@@ -151,7 +253,14 @@ public class ClassFileBenchmark {
         @Override
         public void visitEnd() {
           methods.add(
-              new MethodOutline(access, name, descriptor, annotations.toArray(new String[0])));
+              new MethodOutline(
+                  access,
+                  name,
+                  descriptor,
+                  annotations.toArray(NO_ANNOTATIONS),
+                  NO_ANNOTATION_VALUES,
+                  NO_PARAMETER_ANNOTATIONS,
+                  signature));
         }
       };
     }
@@ -65,6 +65,9 @@ public interface AccessMatcher extends IntPredicate {
   /** Matches non-abstract classes/methods. */
   AccessMatcher CONCRETE = acc -> (acc & Modifier.ABSTRACT) == 0;
 
+  /** Matches synthetic classes/fields/methods, generated by the compiler. */
+  AccessMatcher SYNTHETIC = acc -> (acc & 0x1000) != 0;
+
   /**
    * Conjunction of this matcher AND another.
    *
@@ -0,0 +1,219 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import javax.annotation.Nullable;
+
+/**
+ * Element values of an annotation declared in a class-file.
+ *
+ * <p>Only elements that are explicitly given in the class-file are available; elements that take
+ * their default value from the annotation type are missing. Values are represented as follows:
+ *
+ * <ul>
+ *   <li>primitives are boxed, for example {@code Integer} or {@code Boolean}
+ *   <li>strings are {@code String}s
+ *   <li>enum constants are the {@code String} name of the constant
+ *   <li>classes are the {@code String} descriptor of the class, for example {@code
+ *       Ljava/lang/String;}
+ *   <li>nested annotations are {@link AnnotationValues}
+ *   <li>arrays are {@code Object[]}s of the above
+ * </ul>
+ *
+ * <p>Values from lazy outlines are only decoded when they are first requested.
+ */
+public final class AnnotationValues {
+
+  private static final Object[] NO_ELEMENTS = {};
+
+  /** Alternating element names and values; decoded on demand for lazy outlines. */
+  private volatile Object[] elements;
+
+  /** Class-file content of lazy outlines; {@code null} for eager outlines. */
+  private final ClassBytes lazyContent;
+
+  /** Offset of the annotation in the class-file content. */
+  private final int lazyAnnotationOffset;
+
+  AnnotationValues(Object[] elements) {
+    this.elements = elements;
+    this.lazyContent = null;
+    this.lazyAnnotationOffset = 0;
+  }
+
+  AnnotationValues(ClassBytes lazyContent, int annotationOffset) {
+    this.lazyContent = lazyContent;
+    this.lazyAnnotationOffset = annotationOffset;
+  }
+
+  /**
+   * Returns the value of the named element.
+   *
+   * @param elementName the element name
+   * @return element value; {@code null} if the element is not given in the class-file
+   */
+  @Nullable
+  public Object value(String elementName) {
+    Object[] elements = elements();
+    for (int i = 0, len = elements.length; i < len; i += 2) {
+      if (elementName.equals(elements[i])) {
+        return elements[i + 1];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the value of the named element, when it is a string or enum constant.
+   *
+   * @param elementName the element name
+   * @return string value; {@code null} if the element is not given or is not a string
+   */
+  @Nullable
+  public String stringValue(String elementName) {
+    Object value = value(elementName);
+    return value instanceof String ? (String) value : null;
+  }
+
+  /**
+   * Returns the values of the named element, when it is a string or array of strings.
+   *
+   * <p>Single values are returned as an array of one, to match how annotations accept a single
+   * value in place of an array.
+   *
+   * @param elementName the element name
+   * @return string values; {@code null} if the element is not given or does not contain strings
+   */
+  @Nullable
+  public String[] stringValues(String elementName) {
+    Object value = value(elementName);
+    if (value instanceof String) {
+      return new String[] {(String) value};
+    }
+    if (value instanceof Object[]) {
+      Object[] array = (Object[]) value;
+      String[] strings = new String[array.length];
+      for (int i = 0; i < array.length; i++) {
+        if (!(array[i] instanceof String)) {
+          return null;
+        }
+        strings[i] = (String) array[i];
+      }
+      return strings;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the value of the named element, when it is a boolean.
+   *
+   * @param elementName the element name
+   * @param defaultValue the value to use if the element is not given
+   * @return boolean value; the default value if the element is not given or is not a boolean
+   */
+  public boolean booleanValue(String elementName, boolean defaultValue) {
+    Object value = value(elementName);
+    return value instanceof Boolean ? (Boolean) value : defaultValue;
+  }
+
+  /**
+   * Returns the value of the named element, when it is an int.
+   *
+   * @param elementName the element name
+   * @param defaultValue the value to use if the element is not given
+   * @return int value; the default value if the element is not given or is not an int
+   */
+  public int intValue(String elementName, int defaultValue) {
+    Object value = value(elementName);
+    return value instanceof Integer ? (Integer) value : defaultValue;
+  }
+
+  /** Returns the alternating element names and values. */
+  Object[] elements() {
+    Object[] elements = this.elements;
+    if (elements == null) {
+      this.elements = elements = decodeElements(lazyContent, lazyAnnotationOffset);
+    }
+    return elements;
+  }
+
+  /** Decodes the element names and values of the annotation at the given offset. */
+  static Object[] decodeElements(ClassBytes content, int cursor) {
+    cursor += 2; // skip annotation descriptor
+    int elementPairCount = content.u2(cursor);
+    cursor += 2;
+    if (elementPairCount == 0) {
+      return NO_ELEMENTS;
+    }
+    Object[] elements = new Object[elementPairCount * 2];
+    for (int i = 0; i < elements.length; i += 2) {
+      elements[i] = content.utfConstant(content.u2(cursor));
+      cursor += 2;
+      elements[i + 1] = decodeValue(content, cursor);
+      cursor = ClassFile.nextAnnotationElementOffset(content, cursor);
+    }
+    return elements;
+  }
+
+  /** Decodes the element value at the given offset. */
+  private static Object decodeValue(ClassBytes content, int cursor) {
+    int[] cp = content.cp;
+    int tag = content.u1(cursor++);
+    int index = content.u2(cursor);
+    switch (tag) {
+      case 'B': // const_value_index (byte)
+        return (byte) content.u4(cp[index]);
+      case 'C': // const_value_index (char)
+        return (char) content.u4(cp[index]);
+      case 'I': // const_value_index (integer)
+        return content.u4(cp[index]);
+      case 'S': // const_value_index (short)
+        return (short) content.u4(cp[index]);
+      case 'Z': // const_value_index (boolean)
+        return content.u4(cp[index]) != 0;
+      case 'F': // const_value_index (float)
+        return Float.intBitsToFloat(content.u4(cp[index]));
+      case 'J': // const_value_index (long)
+        return longConstant(content, cp[index]);
+      case 'D': // const_value_index (double)
+        return Double.longBitsToDouble(longConstant(content, cp[index]));
+      case 's': // const_value_index (String)
+      case 'c': // class_info_index
+        return content.utfConstant(index);
+      case 'e': // enum_const_value, use the constant name
+        return content.utfConstant(content.u2(cursor + 2));
+      case '@': // annotation_value
+        return new AnnotationValues(decodeElements(content, cursor));
+      case '[': // array_value
+        Object[] array = new Object[index];
+        cursor += 2;
+        for (int i = 0; i < array.length; i++) {
+          array[i] = decodeValue(content, cursor);
+          cursor = ClassFile.nextAnnotationElementOffset(content, cursor);
+        }
+        return array;
+      default:
+        throw new IllegalArgumentException();
+    }
+  }
+
+  private static long longConstant(ClassBytes content, int offset) {
+    return (long) content.u4(offset) << 32 | 0xFFFFFFFFL & content.u4(offset + 4);
+  }
+
+  /** Finds the values of the annotation with the given type, using the parallel arrays. */
+  @Nullable
+  static AnnotationValues find(
+      String[] annotations, AnnotationValues[] annotationValues, String annotationType) {
+    for (int i = 0, len = annotationValues.length; i < len; i++) {
+      if (annotationType.equals(annotations[i])) {
+        return annotationValues[i];
+      }
+    }
+    return null;
+  }
+}
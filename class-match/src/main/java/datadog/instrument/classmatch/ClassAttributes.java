@@ -0,0 +1,395 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import javax.annotation.Nullable;
+
+/**
+ * Optional class attributes; generic signature, record components, permitted subclasses,
+ * nestmates, inner-classes, enclosing method, and module descriptor.
+ *
+ * <p>The parser only records where each attribute is. Eager outlines decode the attributes before
+ * the parse completes, lazy outlines decode them when they are first requested.
+ */
+final class ClassAttributes {
+
+  static final String[] NO_CLASSES = {};
+  static final FieldOutline[] NO_RECORD_COMPONENTS = {};
+
+  /** Class-file content; dropped once everything is decoded. */
+  private ClassBytes content;
+
+  /** Should record components be decoded on demand? */
+  private final boolean lazy;
+
+  // offsets of each attribute's content; zero if the attribute is missing
+  int signatureOffset;
+  int recordOffset;
+  int permittedSubclassesOffset;
+  int nestHostOffset;
+  int nestMembersOffset;
+  int innerClassesOffset;
+  int enclosingMethodOffset;
+  int moduleOffset;
+
+  /** CP index of this class, to find its own entry in the inner-classes table. */
+  int thisClassIndex;
+
+  private volatile String signature;
+  private volatile FieldOutline[] recordComponents;
+  private volatile String[] permittedSubclasses;
+  private volatile String nestHost;
+  private volatile String[] nestMembers;
+  private volatile ModuleOutline module;
+
+  // details from this class's own inner-classes entry, and its enclosing method
+  private volatile boolean enclosingDecoded;
+  private boolean nested;
+  private boolean anonymous;
+  private String enclosingClass;
+  private MethodOutline enclosingMethod;
+
+  ClassAttributes(ClassBytes content, boolean lazy) {
+    this.content = content;
+    this.lazy = lazy;
+  }
+
+  /** Restores previously decoded attributes; see {@link OutlineCodec}. */
+  ClassAttributes(
+      @Nullable String signature,
+      FieldOutline[] recordComponents,
+      String[] permittedSubclasses,
+      @Nullable String nestHost,
+      String[] nestMembers,
+      boolean nested,
+      boolean anonymous,
+      @Nullable String enclosingClass,
+      @Nullable MethodOutline enclosingMethod,
+      @Nullable ModuleOutline module) {
+    this.lazy = false;
+    this.signature = signature;
+    this.recordComponents = recordComponents;
+    this.permittedSubclasses = permittedSubclasses;
+    this.nestHost = nestHost;
+    this.nestMembers = nestMembers;
+    this.enclosingDecoded = true;
+    this.nested = nested;
+    this.anonymous = anonymous;
+    this.enclosingClass = enclosingClass;
+    this.enclosingMethod = enclosingMethod;
+    this.module = module;
+  }
+
+  /**
+   * @return {@code true} if none of the attributes were found; otherwise {@code false}
+   */
+  boolean isEmpty() {
+    return (signatureOffset
+            | recordOffset
+            | permittedSubclassesOffset
+            | nestHostOffset
+            | nestMembersOffset
+            | innerClassesOffset
+            | enclosingMethodOffset
+            | moduleOffset)
+        == 0;
+  }
+
+  /** Decodes all attributes up-front, so the content is no longer needed. */
+  void decodeAll() {
+    signature();
+    recordComponents();
+    permittedSubclasses();
+    nestHost();
+    nestMembers();
+    decodeEnclosing();
+    module();
+    content = null; // don't retain content
+  }
+
+  @Nullable
+  String signature() {
+    if (signature == null && signatureOffset > 0) {
+      signature = content.utfConstant(content.u2(signatureOffset));
+    }
+    return signature;
+  }
+
+  FieldOutline[] recordComponents() {
+    if (recordComponents == null) {
+      recordComponents =
+          recordOffset > 0 ? recordComponents(content, recordOffset, lazy) : NO_RECORD_COMPONENTS;
+    }
+    return recordComponents;
+  }
+
+  String[] permittedSubclasses() {
+    if (permittedSubclasses == null) {
+      permittedSubclasses = classes(content, permittedSubclassesOffset);
+    }
+    return permittedSubclasses;
+  }
+
+  @Nullable
+  String nestHost() {
+    if (nestHost == null && nestHostOffset > 0) {
+      ClassBytes content = this.content;
+      nestHost = content.sharedUtf(content.cp[content.cp[content.u2(nestHostOffset)]]);
+    }
+    return nestHost;
+  }
+
+  String[] nestMembers() {
+    if (nestMembers == null) {
+      nestMembers = classes(content, nestMembersOffset);
+    }
+    return nestMembers;
+  }
+
+  @Nullable
+  ModuleOutline module() {
+    if (module == null && moduleOffset > 0) {
+      module = module(content, moduleOffset);
+    }
+    return module;
+  }
+
+  boolean isNested() {
+    decodeEnclosing();
+    return nested;
+  }
+
+  boolean isAnonymous() {
+    decodeEnclosing();
+    return anonymous;
+  }
+
+  @Nullable
+  String enclosingClass() {
+    decodeEnclosing();
+    return enclosingClass;
+  }
+
+  @Nullable
+  MethodOutline enclosingMethod() {
+    decodeEnclosing();
+    return enclosingMethod;
+  }
+
+  /** Decodes this class's own inner-classes entry, along with its enclosing method. */
+  private void decodeEnclosing() {
+    if (enclosingDecoded) {
+      return;
+    }
+    ClassBytes content = this.content;
+    int[] cp = content.cp;
+    if (innerClassesOffset > 0) {
+      int cursor = innerClassesOffset;
+      int classesCount = content.u2(cursor);
+      cursor += 2;
+      // outer classes also list their nested classes, so look for the entry naming this class
+      int thisNameIndex = cp[thisClassIndex];
+      for (int i = 0; i < classesCount; i++, cursor += 8) {
+        int innerClassIndex = content.u2(cursor);
+        if (innerClassIndex == thisClassIndex || cp[innerClassIndex] == thisNameIndex) {
+          nested = true;
+          int outerClassIndex = content.u2(cursor + 2);
+          if (outerClassIndex != 0) {
+            enclosingClass = content.sharedUtf(cp[cp[outerClassIndex]]);
+          }
+          anonymous = content.u2(cursor + 4) == 0; // anonymous classes have no simple name
+          break;
+        }
+      }
+    }
+    if (enclosingMethodOffset > 0) {
+      // local and anonymous classes; this is more specific than the inner-classes entry
+      nested = true;
+      enclosingClass = content.sharedUtf(cp[cp[content.u2(enclosingMethodOffset)]]);
+      int methodIndex = content.u2(enclosingMethodOffset + 2);
+      if (methodIndex != 0) {
+        int nameAndTypeOffset = cp[methodIndex];
+        int nameIndex = content.u2(nameAndTypeOffset);
+        int descriptorIndex = content.u2(nameAndTypeOffset + 2);
+        enclosingMethod =
+            lazy
+                ? new MethodOutline(0, content, nameIndex, descriptorIndex, 0, 0, 0)
+                : new MethodOutline(
+                    0,
+                    ClassFile.methodName(content, cp[nameIndex]),
+                    ClassFile.methodDescriptor(content, cp[descriptorIndex]),
+                    ClassFile.NO_ANNOTATIONS,
+                    ClassFile.NO_ANNOTATION_VALUES,
+                    ClassFile.NO_PARAMETER_ANNOTATIONS,
+                    null);
+      }
+    }
+    enclosingDecoded = true;
+  }
+
+  /** Decodes the table of class constants at the given attribute offset. */
+  private static String[] classes(ClassBytes content, int attributeOffset) {
+    if (attributeOffset == 0) {
+      return NO_CLASSES;
+    }
+    int[] cp = content.cp;
+    int cursor = attributeOffset;
+    int classesCount = content.u2(cursor);
+    cursor += 2;
+    String[] classes = new String[classesCount];
+    for (int i = 0; i < classesCount; i++) {
+      classes[i] = content.sharedUtf(cp[cp[content.u2(cursor)]]);
+      cursor += 2;
+    }
+    return classes;
+  }
+
+  /** Outlines the module descriptor at the given attribute offset. */
+  private static ModuleOutline module(ClassBytes content, int attributeOffset) {
+    int cursor = attributeOffset;
+    String moduleName = moduleName(content, content.u2(cursor));
+    int access = content.u2(cursor + 2);
+    String version = optionalUtf(content, content.u2(cursor + 4));
+    cursor += 6;
+
+    int requiresCount = content.u2(cursor);
+    cursor += 2;
+    ModuleOutline.Requires[] requires = ModuleOutline.NO_REQUIRES;
+    if (requiresCount > 0) {
+      requires = new ModuleOutline.Requires[requiresCount];
+      for (int i = 0; i < requiresCount; i++, cursor += 6) {
+        requires[i] =
+            new ModuleOutline.Requires(
+                content.u2(cursor + 2),
+                moduleName(content, content.u2(cursor)),
+                optionalUtf(content, content.u2(cursor + 4)));
+      }
+    }
+
+    // exports and opens share the same structure
+    ModuleOutline.Exports[][] exportsAndOpens = new ModuleOutline.Exports[2][];
+    for (int k = 0; k < 2; k++) {
+      int exportsCount = content.u2(cursor);
+      cursor += 2;
+      ModuleOutline.Exports[] exports = ModuleOutline.NO_EXPORTS;
+      if (exportsCount > 0) {
+        exports = new ModuleOutline.Exports[exportsCount];
+        for (int i = 0; i < exportsCount; i++) {
+          String packageName = moduleName(content, content.u2(cursor));
+          int exportsAccess = content.u2(cursor + 2);
+          int toCount = content.u2(cursor + 4);
+          cursor += 6;
+          String[] toModules = ModuleOutline.NO_NAMES;
+          if (toCount > 0) {
+            toModules = new String[toCount];
+            for (int j = 0; j < toCount; j++, cursor += 2) {
+              toModules[j] = moduleName(content, content.u2(cursor));
+            }
+          }
+          exports[i] = new ModuleOutline.Exports(exportsAccess, packageName, toModules);
+        }
+      }
+      exportsAndOpens[k] = exports;
+    }
+
+    int usesCount = content.u2(cursor);
+    String[] uses = usesCount > 0 ? classes(content, cursor) : ModuleOutline.NO_NAMES;
+    cursor += 2 + usesCount * 2;
+
+    int providesCount = content.u2(cursor);
+    cursor += 2;
+    ModuleOutline.Provides[] provides = ModuleOutline.NO_PROVIDES;
+    if (providesCount > 0) {
+      int[] cp = content.cp;
+      provides = new ModuleOutline.Provides[providesCount];
+      for (int i = 0; i < providesCount; i++) {
+        String service = content.sharedUtf(cp[cp[content.u2(cursor)]]);
+        String[] implementations = classes(content, cursor + 2);
+        cursor += 4 + implementations.length * 2;
+        provides[i] = new ModuleOutline.Provides(service, implementations);
+      }
+    }
+
+    return new ModuleOutline(
+        access,
+        moduleName,
+        version,
+        requires,
+        exportsAndOpens[0],
+        exportsAndOpens[1],
+        uses,
+        provides);
+  }
+
+  /** Decodes the name of the CONSTANT_Module or CONSTANT_Package at the given index. */
+  private static String moduleName(ClassBytes content, int index) {
+    // unlike class constants, these entries record the offset of their content
+    int[] cp = content.cp;
+    return content.sharedUtf(cp[content.u2(cp[index])]);
+  }
+
+  /** Decodes the optional UTF8 constant at the given index. */
+  @Nullable
+  private static String optionalUtf(ClassBytes content, int index) {
+    return index != 0 ? content.utfConstant(index) : null;
+  }
+
+  /** Outlines the record components at the given attribute offset, as fields without access. */
+  private static FieldOutline[] recordComponents(
+      ClassBytes content, int attributeOffset, boolean lazy) {
+    int[] cp = content.cp;
+    int cursor = attributeOffset;
+    int componentsCount = content.u2(cursor);
+    cursor += 2;
+    if (componentsCount == 0) {
+      return NO_RECORD_COMPONENTS;
+    }
+    FieldOutline[] components = new FieldOutline[componentsCount];
+    for (int i = 0; i < componentsCount; i++) {
+      int nameIndex = content.u2(cursor);
+      cursor += 2;
+      int descriptorIndex = content.u2(cursor);
+      cursor += 2;
+      int annotationsOffset = 0;
+      int signatureIndex = 0;
+      int attributesCount = content.u2(cursor);
+      cursor += 2;
+      for (int j = 0; j < attributesCount; j++) {
+        int attributeNameIndex = content.u2(cursor);
+        cursor += 2;
+        int attributeLength = content.u4(cursor);
+        cursor += 4;
+        // only interested in runtime visible annotations and the generic signature
+        if (annotationsOffset == 0
+            && content.utfEquals(cp[attributeNameIndex], ClassFile.RUNTIME_ANNOTATIONS)) {
+          annotationsOffset = cursor; // there's at most one of these attributes per-table
+        } else if (signatureIndex == 0
+            && content.utfEquals(cp[attributeNameIndex], ClassFile.SIGNATURE)) {
+          signatureIndex = content.u2(cursor); // likewise at most one per-table
+        }
+        cursor += attributeLength; // jump to end of attribute
+      }
+
+      if (lazy) {
+        components[i] =
+            new FieldOutline(
+                0, content, nameIndex, descriptorIndex, annotationsOffset, signatureIndex);
+      } else {
+        String[] annotations = ClassFile.annotations(content, annotationsOffset, cp);
+        components[i] =
+            new FieldOutline(
+                0,
+                content.sharedUtf(cp[nameIndex]),
+                content.sharedUtf(cp[descriptorIndex]),
+                annotations,
+                ClassFile.annotationValues(content, annotationsOffset, annotations, false),
+                ClassFile.signature(content, signatureIndex, cp));
+      }
+    }
+    return components;
+  }
+}
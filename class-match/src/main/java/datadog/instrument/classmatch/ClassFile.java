@@ -6,18 +6,54 @@
 
 package datadog.instrument.classmatch;
 
-import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static datadog.instrument.classmatch.ClassTriage.NOT_A_CLASS;
+import static datadog.instrument.classmatch.ParsePlan.CLASS_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.CLASS_ATTRIBUTES;
+import static datadog.instrument.classmatch.ParsePlan.CODE;
+import static datadog.instrument.classmatch.ParsePlan.CONSTANTS;
+import static datadog.instrument.classmatch.ParsePlan.CONSTANT_POOL_SECTIONS;
+import static datadog.instrument.classmatch.ParsePlan.FIELDS;
+import static datadog.instrument.classmatch.ParsePlan.FIELD_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.FULL_PLAN;
+import static datadog.instrument.classmatch.ParsePlan.INVOCATIONS;
+import static datadog.instrument.classmatch.ParsePlan.METHODS;
+import static datadog.instrument.classmatch.ParsePlan.METHOD_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.PARAMETER_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.REFERENCES;
+import static datadog.instrument.classmatch.ParsePlan.SIGNATURES;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 
+import datadog.instrument.classmatch.ClassBytes.ArrayBytes;
+import datadog.instrument.classmatch.ClassBytes.BufferBytes;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
 
 /**
  * Parses <a href="https://docs.oracle.com/javase/specs/jvms/se24/html/jvms-4.html">class-file</a>
  * content into {@link ClassHeader}s or {@link ClassOutline}s, depending on the detail required.
  *
+ * <p>Lazy outlines keep a reference to the class-file content and only decode member names,
+ * descriptors, annotations, and signatures when they are requested through the outline accessors.
+ * This is useful when most classes fail to match on a few members, but lazy outlines should not be
+ * cached as they retain the original content.
+ *
+ * <p>Lazy outlines may be shared between threads. Details are safely published once decoded,
+ * although threads racing to decode the same detail may each decode it.
+ *
+ * <p>Header and outline parsing re-uses internal tables from a shared pool of {@link
+ * ClassFileParser}s. Callers that parse many class-files can also keep their own parser.
+ *
  * <p>All class-names and field/method descriptors appear in <a
  * href="https://docs.oracle.com/javase/specs/jvms/se24/html/jvms-4.html#jvms-4.2.1">internal
  * form</a>.
@@ -25,25 +61,74 @@ import java.util.Map;
 public final class ClassFile {
 
   static final String JAVA_LANG_OBJECT = "java/lang/Object";
+  static final String JAVA_LANG_RECORD = "java/lang/Record";
   static final String STATIC_INITIALIZER = "<clinit>";
   static final String CONSTRUCTOR = "<init>";
   static final String SIMPLE_CALL = "()V";
 
   private static final String[] NO_INTERFACES = {};
   private static final FieldOutline[] NO_FIELDS = {};
-  private static final MethodOutline[] NO_METHODS = {};
-  private static final String[] NO_ANNOTATIONS = {};
+  static final MethodOutline[] NO_METHODS = {};
+  static final String[] NO_ANNOTATIONS = {};
+  static final String[][] NO_PARAMETER_ANNOTATIONS = {};
+  static final AnnotationValues[] NO_ANNOTATION_VALUES = {};
+  private static final String[] NO_REFERENCES = {};
+  private static final MethodOutline[][] NO_INVOCATIONS = {};
+  private static final String[] NO_CONSTANTS = {};
+
+  // how much detail to extract from the class-file
+  static final int HEADER = 0;
+  static final int OUTLINE = 1;
+  static final int LAZY_OUTLINE = 2;
+
+  // first four bytes of every class-file
+  private static final int MAGIC = 0xCAFEBABE;
 
   private static final int ACC_INTERFACE = 0x0200;
   private static final int ACC_MODULE = 0x8000;
 
   // attribute header for annotations that are visible at runtime
-  private static final byte[] RUNTIME_ANNOTATIONS = "RuntimeVisibleAnnotations".getBytes(US_ASCII);
+  static final byte[] RUNTIME_ANNOTATIONS = "RuntimeVisibleAnnotations".getBytes(US_ASCII);
+
+  // attribute header for parameter annotations that are visible at runtime
+  private static final byte[] RUNTIME_PARAMETER_ANNOTATIONS =
+      "RuntimeVisibleParameterAnnotations".getBytes(US_ASCII);
+
+  // attribute header for method bytecode
+  private static final byte[] CODE_ATTRIBUTE = "Code".getBytes(US_ASCII);
+
+  // attribute header for generic signatures
+  static final byte[] SIGNATURE = "Signature".getBytes(US_ASCII);
+
+  // attribute headers for records, sealed hierarchies, and nestmates
+  private static final byte[] RECORD = "Record".getBytes(US_ASCII);
+  private static final byte[] PERMITTED_SUBCLASSES = "PermittedSubclasses".getBytes(US_ASCII);
+  private static final byte[] NEST_HOST = "NestHost".getBytes(US_ASCII);
+  private static final byte[] NEST_MEMBERS = "NestMembers".getBytes(US_ASCII);
+
+  // attribute headers for nested classes
+  private static final byte[] INNER_CLASSES = "InnerClasses".getBytes(US_ASCII);
+  private static final byte[] ENCLOSING_METHOD = "EnclosingMethod".getBytes(US_ASCII);
+
+  // attribute header for module descriptors
+  private static final byte[] MODULE = "Module".getBytes(US_ASCII);
 
   // reduce size of outlines by only extracting interesting annotations
   private static final Object annotationsLock = new Object();
   private static final Map<String, UtfKey> annotationKeys = new HashMap<>();
   private static volatile Map<UtfKey, String> annotationsOfInterest;
+  private static volatile Set<String> annotationValuesOfInterest;
+
+  // referenced types are matched against class constants, without decoding them
+  private static final Object referencesLock = new Object();
+  private static volatile UtfNames referencesOfInterest;
+
+  // string constants are matched against needles, or the plan's filters, without decoding them
+  private static final Object constantsLock = new Object();
+  private static volatile UtfNames constantsOfInterest;
+
+  // optional table of canonical names and descriptors, shared across outlines
+  static volatile UtfInterner utfInterner;
 
   private ClassFile() {}
 
@@ -54,7 +139,7 @@ public final class ClassFile {
    * @return class header containing class-name, super-name, interfaces
    */
   public static ClassHeader header(byte[] bytecode) {
-    return parse(bytecode, 0, true);
+    return pooledParse(bytecode, 0, HEADER, FULL_PLAN);
   }
 
   /**
@@ -65,7 +150,56 @@ public final class ClassFile {
    * @return class header containing class-name, super-name, interfaces
    */
   public static ClassHeader header(byte[] bytecode, int offset) {
-    return parse(bytecode, offset, true);
+    return pooledParse(bytecode, offset, HEADER, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassHeader} from the given class-file content, if the filter accepts its
+   * class-name.
+   *
+   * <p>The filter is given the class-name in dotted form, as a view over the raw content, so it can
+   * be checked against a {@code ClassNameTrie} or {@code ClassNameFilter} without decoding; see
+   * {@link ParsePlan#withClassNameFilter}. Rejected classes are not decoded any further.
+   *
+   * @param bytecode the class-file content to parse
+   * @param classNameFilter accepts the names of classes to parse
+   * @return class header containing class-name, super-name, interfaces; {@code null} if rejected
+   */
+  @Nullable
+  public static ClassHeader header(byte[] bytecode, Predicate<CharSequence> classNameFilter) {
+    return pooledParse(bytecode, 0, HEADER, FULL_PLAN.withClassNameFilter(classNameFilter));
+  }
+
+  /**
+   * Extracts a {@link ClassHeader} from the class-file content in the given buffer.
+   *
+   * <p>Content is read from the buffer's current position, without copying. Heap, direct, and
+   * memory-mapped buffers are all supported. The buffer's position and byte-order are unchanged.
+   *
+   * @param buffer the buffer containing the class-file content to parse
+   * @return class header containing class-name, super-name, interfaces
+   */
+  public static ClassHeader header(ByteBuffer buffer) {
+    return pooledParse(buffer, HEADER, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassHeader} from the class-file content in the given stream.
+   *
+   * <p>Content is read incrementally, stopping soon after the interfaces; fields, methods, and
+   * attributes are not read. The stream is left open, positioned somewhere after the header.
+   *
+   * @param in the stream containing the class-file content to parse
+   * @return class header containing class-name, super-name, interfaces
+   * @throws IOException if the content could not be read
+   */
+  public static ClassHeader header(InputStream in) throws IOException {
+    ClassFileParser parser = ClassFileParser.acquire();
+    try {
+      return parser.header(in);
+    } finally {
+      ClassFileParser.release(parser);
+    }
   }
 
   /**
@@ -75,7 +209,7 @@ public final class ClassFile {
    * @return class outline containing header, fields, methods, annotations
    */
   public static ClassOutline outline(byte[] bytecode) {
-    return (ClassOutline) parse(bytecode, 0, false);
+    return (ClassOutline) pooledParse(bytecode, 0, OUTLINE, FULL_PLAN);
   }
 
   /**
@@ -86,7 +220,152 @@ public final class ClassFile {
    * @return class outline containing header, fields, methods, annotations
    */
   public static ClassOutline outline(byte[] bytecode, int offset) {
-    return (ClassOutline) parse(bytecode, offset, false);
+    return (ClassOutline) pooledParse(bytecode, offset, OUTLINE, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the class-file content in the given buffer.
+   *
+   * <p>Content is read from the buffer's current position, without copying. Heap, direct, and
+   * memory-mapped buffers are all supported. The buffer's position and byte-order are unchanged.
+   *
+   * @param buffer the buffer containing the class-file content to parse
+   * @return class outline containing header, fields, methods, annotations
+   */
+  public static ClassOutline outline(ByteBuffer buffer) {
+    return (ClassOutline) pooledParse(buffer, OUTLINE, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the given class-file content, following the given plan.
+   *
+   * <p>Only the sections needed by the plan are parsed; the rest are left empty in the outline.
+   * Classes whose names are rejected by the plan's class-name filter are not parsed any further.
+   *
+   * @param bytecode the class-file content to parse
+   * @param plan the sections of the class-file to parse
+   * @return class outline containing header, plus the planned fields, methods, annotations;
+   *     {@code null} if the class-name was rejected
+   */
+  @Nullable
+  public static ClassOutline outline(byte[] bytecode, ParsePlan plan) {
+    return (ClassOutline) pooledParse(bytecode, 0, OUTLINE, plan);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the class-file content in the given buffer, following the
+   * given plan.
+   *
+   * <p>Only the sections needed by the plan are parsed; the rest are left empty in the outline.
+   * Classes whose names are rejected by the plan's class-name filter are not parsed any further.
+   *
+   * @param buffer the buffer containing the class-file content to parse
+   * @param plan the sections of the class-file to parse
+   * @return class outline containing header, plus the planned fields, methods, annotations;
+   *     {@code null} if the class-name was rejected
+   */
+  @Nullable
+  public static ClassOutline outline(ByteBuffer buffer, ParsePlan plan) {
+    return (ClassOutline) pooledParse(buffer, OUTLINE, plan);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the class-file content in the given stream.
+   *
+   * <p>Content is read to the end of the stream, which is left open.
+   *
+   * @param in the stream containing the class-file content to parse
+   * @return class outline containing header, fields, methods, annotations
+   * @throws IOException if the content could not be read
+   */
+  public static ClassOutline outline(InputStream in) throws IOException {
+    ClassFileParser parser = ClassFileParser.acquire();
+    try {
+      return parser.outline(in);
+    } finally {
+      ClassFileParser.release(parser);
+    }
+  }
+
+  /**
+   * Extracts a lazy {@link ClassOutline} from the given class-file content.
+   *
+   * <p>Member names, descriptors, and annotations are decoded on demand. The outline retains the
+   * content, which must not be modified while the outline is in use.
+   *
+   * @param bytecode the class-file content to parse
+   * @return lazy class outline containing header, fields, methods, annotations
+   */
+  public static ClassOutline lazyOutline(byte[] bytecode) {
+    return (ClassOutline) parse(ArrayBytes.of(bytecode), 0, LAZY_OUTLINE, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a lazy {@link ClassOutline} from the given class-file content.
+   *
+   * <p>Member names, descriptors, and annotations are decoded on demand. The outline retains the
+   * content, which must not be modified while the outline is in use.
+   *
+   * @param bytecode the class-file content to parse
+   * @param offset the offset of the class-file content
+   * @return lazy class outline containing header, fields, methods, annotations
+   */
+  public static ClassOutline lazyOutline(byte[] bytecode, int offset) {
+    return (ClassOutline) parse(ArrayBytes.of(bytecode), offset, LAZY_OUTLINE, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a lazy {@link ClassOutline} from the class-file content in the given buffer.
+   *
+   * <p>Member names, descriptors, and annotations are decoded on demand. The outline retains the
+   * buffer content, which must not be modified or unmapped while the outline is in use.
+   *
+   * @param buffer the buffer containing the class-file content to parse
+   * @return lazy class outline containing header, fields, methods, annotations
+   */
+  public static ClassOutline lazyOutline(ByteBuffer buffer) {
+    return (ClassOutline) parse(buffer, LAZY_OUTLINE, FULL_PLAN);
+  }
+
+  /**
+   * Triages the given class-file content, without decoding any names or allocating.
+   *
+   * <p>Only the magic, version, and access flags are read, along with a single pass to skip over
+   * the constant pool. Use {@link ClassTriage} to decode the result, for example to reject module
+   * descriptors or synthetic classes before parsing their header.
+   *
+   * @param bytecode the class-file content to triage
+   * @return primitive descriptor; {@link ClassTriage#NOT_A_CLASS} if the content is malformed
+   */
+  public static long triage(byte[] bytecode) {
+    return triage(bytecode, 0);
+  }
+
+  /**
+   * Triages the given class-file content, without decoding any names or allocating.
+   *
+   * @param bytecode the class-file content to triage
+   * @param offset the offset of the class-file content
+   * @return primitive descriptor; {@link ClassTriage#NOT_A_CLASS} if the content is malformed
+   * @see #triage(byte[])
+   */
+  public static long triage(byte[] bytecode, int offset) {
+    int end = bytecode.length;
+    if (offset < 0 || end - offset < 10 || ArrayBytes.u4(bytecode, offset) != MAGIC) {
+      return NOT_A_CLASS;
+    }
+    int minorVersion = ArrayBytes.u2(bytecode, offset + 4);
+    int majorVersion = ArrayBytes.u2(bytecode, offset + 6);
+    int cpLen = ArrayBytes.u2(bytecode, offset + 8);
+    if (majorVersion == 0 || cpLen == 0) {
+      return NOT_A_CLASS;
+    }
+    int cursor = ClassBytes.skipConstantPool(bytecode, offset + 10, cpLen);
+    // access flags must be followed by at least this-class and super-class
+    if (cursor < 0 || end - cursor < 6) {
+      return NOT_A_CLASS;
+    }
+    return ClassTriage.pack(ArrayBytes.u2(bytecode, cursor), majorVersion, minorVersion, cpLen);
   }
 
   /**
@@ -135,6 +414,95 @@ public final class ClassFile {
     }
   }
 
+  /**
+   * Flags the given annotation as interesting, along with its element values.
+   *
+   * <p>Example: {@code ClassFile.annotationValuesOfInterest("javax/ws/rs/Path");}
+   *
+   * @param internalName the annotation type in internal form
+   * @see ClassOutline#annotationValues(String)
+   * @see MethodOutline#annotationValues(String)
+   * @see FieldOutline#annotationValues(String)
+   */
+  public static void annotationValuesOfInterest(String internalName) {
+    annotationOfInterest(internalName);
+    synchronized (annotationsLock) {
+      if (annotationValuesOfInterest != null && annotationValuesOfInterest.contains(internalName)) {
+        return; // already flagged as interesting
+      }
+      Set<String> ofInterest = new HashSet<>();
+      if (annotationValuesOfInterest != null) {
+        ofInterest.addAll(annotationValuesOfInterest); // copy on write
+      }
+      ofInterest.add(internalName);
+      annotationValuesOfInterest = ofInterest;
+    }
+  }
+
+  /**
+   * Flags the given type as interesting; to be included in outlines when referenced by the class.
+   *
+   * <p>Example: {@code ClassFile.referenceOfInterest("java/sql/Statement");}
+   *
+   * @param internalName the referenced type in internal form
+   * @see ClassOutline#references()
+   */
+  public static void referenceOfInterest(String internalName) {
+    referencesOfInterest(Collections.singleton(internalName));
+  }
+
+  /**
+   * Flags the given types as interesting; to be included in outlines when referenced by the class.
+   *
+   * <p>Example: {@code ClassFile.referencesOfInterest(asList("java/sql/Statement",
+   * "javax/crypto/Cipher"));}
+   *
+   * @param internalNames the referenced types in internal form
+   * @see ClassOutline#references()
+   */
+  public static void referencesOfInterest(Collection<String> internalNames) {
+    synchronized (referencesLock) {
+      UtfNames ofInterest = referencesOfInterest;
+      if (ofInterest == null) {
+        referencesOfInterest = new UtfNames(internalNames);
+      } else if (!ofInterest.containsAll(internalNames)) {
+        referencesOfInterest = ofInterest.with(internalNames); // copy on write
+      }
+    }
+  }
+
+  /**
+   * Flags the given string constants as interesting; to be included in outlines when the class
+   * contains them.
+   *
+   * <p>Example: {@code ClassFile.constantsOfInterest(asList("AES/ECB/PKCS5Padding", "DES"));}
+   *
+   * @param constants the string constants
+   * @see ClassOutline#constants()
+   */
+  public static void constantsOfInterest(Collection<String> constants) {
+    synchronized (constantsLock) {
+      UtfNames ofInterest = constantsOfInterest;
+      if (ofInterest == null) {
+        constantsOfInterest = new UtfNames(constants);
+      } else if (!ofInterest.containsAll(constants)) {
+        constantsOfInterest = ofInterest.with(constants); // copy on write
+      }
+    }
+  }
+
+  /**
+   * Re-uses canonical strings for common names and descriptors, up to the given capacity.
+   *
+   * <p>This avoids decoding the same super-names, interfaces, and descriptors over and over, and
+   * reduces the retained size of cached outlines. Class-names are not interned as they are unique.
+   *
+   * @param capacity the number of strings to intern; zero or less disables interning
+   */
+  public static void internStrings(int capacity) {
+    utfInterner = capacity > 0 ? new UtfInterner(capacity) : null;
+  }
+
   /** Create "modified-UTF8" key to make it easier to match annotations. */
   private static UtfKey annotationKey(String internalName) {
     // annotations are recorded in descriptor form in class-files
@@ -142,30 +510,113 @@ public final class ClassFile {
     return new UtfKey(descriptor);
   }
 
-  /** Parse class-file content, skipping over uninteresting sections, */
-  private static ClassHeader parse(byte[] bytecode, int offset, boolean onlyHeader) {
+  /** Parse class-file content using a parser borrowed from the shared pool. */
+  private static ClassHeader pooledParse(byte[] bytecode, int offset, int detail, ParsePlan plan) {
+    ClassFileParser parser = ClassFileParser.acquire();
+    try {
+      return parser.parse(bytecode, offset, detail, plan);
+    } finally {
+      ClassFileParser.release(parser);
+    }
+  }
+
+  /** Parse class-file content using a parser borrowed from the shared pool. */
+  private static ClassHeader pooledParse(ByteBuffer buffer, int detail, ParsePlan plan) {
+    ClassFileParser parser = ClassFileParser.acquire();
+    try {
+      return parser.parse(buffer, detail, plan);
+    } finally {
+      ClassFileParser.release(parser);
+    }
+  }
+
+  /** Parse class-file content from the buffer's current position. */
+  private static ClassHeader parse(ByteBuffer buffer, int detail, ParsePlan plan) {
+    if (buffer.hasArray()) {
+      // use backing array directly when it's available, as that's fastest
+      int offset = buffer.arrayOffset() + buffer.position();
+      return parse(ArrayBytes.of(buffer.array()), offset, detail, plan);
+    } else {
+      return parse(new BufferBytes(buffer), buffer.position(), detail, plan);
+    }
+  }
+
+  /** Parse class-file content, skipping over uninteresting sections; null if name is rejected. */
+  static ClassHeader parse(ClassBytes content, int offset, int detail, ParsePlan plan) {
     // skip preamble
     int cursor = offset + 8;
 
-    int cpLen = u2(bytecode, cursor);
+    int cpLen = content.u2(cursor);
     cursor += 2;
 
     // loop over constant pool, capturing only UTF8 offsets and class indices
-    int[] cp = new int[cpLen];
+    int[] cp = content.cp;
+    if (cp == null || cp.length < cpLen) {
+      content.cp = cp = new int[cpLen];
+    }
+
+    // only record class constants when the plan needs to match them against referenced types
+    UtfNames referenceNames =
+        detail != HEADER && (plan.sections & REFERENCES) != 0 ? referencesOfInterest : null;
+    int[] classes = null;
+    int classCount = 0;
+    int[] methodRefs = null;
+    int methodRefCount = 0;
+    if (referenceNames != null) {
+      classes = content.classes;
+      if (classes == null || classes.length < cpLen) {
+        content.classes = classes = new int[cpLen];
+      }
+      // likewise only record method references when the plan needs invoked methods
+      if ((plan.sections & INVOCATIONS) != 0) {
+        methodRefs = content.methodRefs;
+        if (methodRefs == null || methodRefs.length < cpLen) {
+          content.methodRefs = methodRefs = new int[cpLen];
+        }
+      }
+    }
+
+    // likewise only record string constants when the plan needs to match them
+    UtfNames constantNames = null;
+    List<Predicate<CharSequence>> constantFilters = null;
+    if (detail != HEADER && (plan.sections & CONSTANTS) != 0) {
+      constantNames = constantsOfInterest;
+      if (!plan.constantFilters.isEmpty()) {
+        constantFilters = plan.constantFilters;
+      }
+    }
+    int[] strings = null;
+    int stringCount = 0;
+    if (constantNames != null || constantFilters != null) {
+      strings = content.strings;
+      if (strings == null || strings.length < cpLen) {
+        content.strings = strings = new int[cpLen];
+      }
+    }
+
     for (int i = 1; i < cpLen; i++) {
-      int tag = bytecode[cursor++];
+      int tag = content.u1(cursor++);
       // all entries are at least two bytes long; add that at end of each loop
       if (tag == 1) { // CONSTANT_Utf8
         // record start of the UTF8 bytes
         cp[i] = cursor;
         // skip over the actual UTF8 bytes
-        cursor += u2(bytecode, cursor);
+        cursor += content.u2(cursor);
       } else if (tag == 7) { // CONSTANT_Class
         // record CP index of class name
-        cp[i] = u2(bytecode, cursor);
+        cp[i] = content.u2(cursor);
+        if (classes != null) {
+          classes[classCount++] = i;
+        }
       } else {
+        // record start of the entry, so we can look up its content later
+        cp[i] = cursor;
         switch (tag) {
           case 8: // CONSTANT_String
+            if (strings != null) {
+              strings[stringCount++] = i;
+            }
+            break;
           case 16: // CONSTANT_MethodType
           case 19: // CONSTANT_Module
           case 20: // CONSTANT_Package
@@ -174,11 +625,16 @@ public final class ClassFile {
           case 15: // CONSTANT_MethodHandle
             cursor++;
             break;
+          case 10: // CONSTANT_Methodref
+          case 11: // CONSTANT_InterfaceMethodref
+            if (methodRefs != null) {
+              methodRefs[methodRefCount++] = i;
+            }
+            cursor += 2;
+            break;
           case 3: // CONSTANT_Integer
           case 4: // CONSTANT_Float
           case 9: // CONSTANT_Fieldref
-          case 10: // CONSTANT_Methodref
-          case 11: // CONSTANT_InterfaceMethodref
           case 12: // CONSTANT_NameAndType
           case 17: // CONSTANT_Dynamic
           case 18: // CONSTANT_InvokeDynamic
@@ -197,20 +653,29 @@ public final class ClassFile {
       cursor += 2; // all entries are at least two bytes long
     }
 
-    int access = u2(bytecode, cursor);
+    int access = content.u2(cursor);
     cursor += 2;
 
     // to turn a class-constant into a string we first need to look up the UTF8 constant
     // then find the offset to the encoded UTF8 bytes, before decoding them to a string
 
-    String className = utf(bytecode, cp[cp[u2(bytecode, cursor)]]);
+    int thisClassIndex = content.u2(cursor);
+    int classNameOffset = cp[cp[thisClassIndex]];
     cursor += 2;
 
+    // reject unwanted classes by name before we decode anything
+    Predicate<CharSequence> classNameFilter = plan.classNameFilter;
+    if (classNameFilter != null && !content.acceptsClassName(classNameOffset, classNameFilter)) {
+      return null;
+    }
+
+    String className = content.utf(classNameOffset);
+
     String superName;
     if ((access & ACC_INTERFACE) != 0) {
       superName = JAVA_LANG_OBJECT;
     } else if (access != ACC_MODULE) {
-      superName = utf(bytecode, cp[cp[u2(bytecode, cursor)]]);
+      superName = content.sharedUtf(cp[cp[content.u2(cursor)]]);
       if (JAVA_LANG_OBJECT.equals(superName)) {
         superName = JAVA_LANG_OBJECT;
       }
@@ -221,216 +686,578 @@ public final class ClassFile {
 
     // optional list of implemented/extended interfaces
     String[] interfaces;
-    int interfacesCount = u2(bytecode, cursor);
+    int interfacesCount = content.u2(cursor);
     cursor += 2;
     if (interfacesCount > 0) {
       interfaces = new String[interfacesCount];
       for (int i = 0; i < interfacesCount; i++) {
-        interfaces[i] = utf(bytecode, cp[cp[u2(bytecode, cursor)]]);
+        interfaces[i] = content.sharedUtf(cp[cp[content.u2(cursor)]]);
         cursor += 2;
       }
     } else {
       interfaces = NO_INTERFACES;
     }
 
-    if (onlyHeader) {
+    if (detail == HEADER) {
       // stop parsing; we don't need fields/methods/annotations
       return new ClassHeader(access, className, superName, interfaces);
     }
 
+    String[] references = NO_REFERENCES;
+    MethodOutline[][] invocations = NO_INVOCATIONS;
+    if (referenceNames != null) {
+      references = references(content, classes, classCount, referenceNames);
+      if (methodRefs != null && references.length > 0) {
+        boolean lazy = detail == LAZY_OUTLINE;
+        invocations =
+            invocations(content, methodRefs, methodRefCount, classes, references.length, lazy);
+      }
+    }
+
+    String[] constants = NO_CONSTANTS;
+    if (strings != null) {
+      constants = constants(content, strings, stringCount, constantNames, constantFilters);
+    }
+
+    int sections = plan.sections;
+    if ((sections & ~CONSTANT_POOL_SECTIONS) == 0) {
+      // stop parsing; planned matchers only need the header and constant-pool references
+      return new ClassOutline(
+          access,
+          className,
+          superName,
+          interfaces,
+          NO_FIELDS,
+          NO_METHODS,
+          NO_ANNOTATIONS,
+          NO_ANNOTATION_VALUES,
+          null,
+          references,
+          invocations,
+          constants);
+    }
+
+    // lazy outlines share the content and constant-pool offsets, to decode details on demand
+    ClassBytes lazyContent = detail == LAZY_OUTLINE ? content : null;
+
+    // lazy outlines record where planned annotations are, in case they become of interest later
+    boolean findFieldAnnotations =
+        (sections & FIELD_ANNOTATIONS) != 0
+            && (lazyContent != null || annotationsOfInterest != null);
+    boolean findSignatures = (sections & SIGNATURES) != 0;
+
     // optional list of fields
     FieldOutline[] fields;
-    int fieldsCount = u2(bytecode, cursor);
+    int fieldsCount = content.u2(cursor);
     cursor += 2;
-    if (fieldsCount > 0) {
+    if ((sections & FIELDS) == 0) {
+      cursor = skipMembers(content, cursor, fieldsCount);
+      fields = NO_FIELDS;
+    } else if (fieldsCount > 0) {
       fields = new FieldOutline[fieldsCount];
       for (int i = 0; i < fieldsCount; i++) {
-        int fieldAccess = u2(bytecode, cursor);
+        int fieldAccess = content.u2(cursor);
         cursor += 2;
-        String fieldName = utf(bytecode, cp[u2(bytecode, cursor)]);
+        int nameIndex = content.u2(cursor);
         cursor += 2;
-        String descriptor = utf(bytecode, cp[u2(bytecode, cursor)]);
+        int descriptorIndex = content.u2(cursor);
         cursor += 2;
-        int attributesCount = u2(bytecode, cursor);
+        int annotationsOffset = 0;
+        int signatureIndex = 0;
+        int attributesCount = content.u2(cursor);
         cursor += 2;
         for (int j = 0; j < attributesCount; j++) {
+          int attributeNameIndex = content.u2(cursor);
           cursor += 2;
-          int attributeLength = u4(bytecode, cursor);
+          int attributeLength = content.u4(cursor);
           cursor += 4;
+          // only interested in runtime visible annotations, plus the planned generic signature
+          if (findFieldAnnotations
+              && annotationsOffset == 0
+              && content.utfEquals(cp[attributeNameIndex], RUNTIME_ANNOTATIONS)) {
+            annotationsOffset = cursor; // there's at most one of these attributes per-table
+          } else if (findSignatures
+              && signatureIndex == 0
+              && content.utfEquals(cp[attributeNameIndex], SIGNATURE)) {
+            signatureIndex = content.u2(cursor); // likewise at most one per-table
+          }
           cursor += attributeLength; // jump to end of attribute
         }
 
-        fields[i] = new FieldOutline(fieldAccess, fieldName, descriptor);
+        if (lazyContent != null) {
+          fields[i] =
+              new FieldOutline(
+                  fieldAccess,
+                  lazyContent,
+                  nameIndex,
+                  descriptorIndex,
+                  annotationsOffset,
+                  signatureIndex);
+        } else {
+          String[] annotations = annotations(content, annotationsOffset, cp);
+          fields[i] =
+              new FieldOutline(
+                  fieldAccess,
+                  content.sharedUtf(cp[nameIndex]),
+                  content.sharedUtf(cp[descriptorIndex]),
+                  annotations,
+                  annotationValues(content, annotationsOffset, annotations, false),
+                  signature(content, signatureIndex, cp));
+        }
       }
     } else {
       fields = NO_FIELDS;
     }
 
+    if ((sections & (METHODS | CLASS_ANNOTATIONS | CLASS_ATTRIBUTES)) == 0) {
+      // stop parsing; planned matchers don't need methods or class annotations/attributes
+      return new ClassOutline(
+          access,
+          className,
+          superName,
+          interfaces,
+          fields,
+          NO_METHODS,
+          NO_ANNOTATIONS,
+          NO_ANNOTATION_VALUES,
+          null,
+          references,
+          invocations,
+          constants);
+    }
+
+    boolean findMethodAnnotations =
+        (sections & METHOD_ANNOTATIONS) != 0
+            && (lazyContent != null || annotationsOfInterest != null);
+    boolean findParameterAnnotations =
+        (sections & PARAMETER_ANNOTATIONS) != 0
+            && (lazyContent != null || annotationsOfInterest != null);
+    boolean findCode = (sections & CODE) != 0;
+
     // optional list of methods
     MethodOutline[] methods;
-    int methodsCount = u2(bytecode, cursor);
+    int methodsCount = content.u2(cursor);
     cursor += 2;
-    if (methodsCount > 0) {
+    if ((sections & METHODS) == 0) {
+      cursor = skipMembers(content, cursor, methodsCount);
+      methods = NO_METHODS;
+    } else if (methodsCount > 0) {
       methods = new MethodOutline[methodsCount];
       for (int i = 0; i < methodsCount; i++) {
-        int methodAccess = u2(bytecode, cursor);
+        int methodAccess = content.u2(cursor);
         cursor += 2;
-        String methodName = utf(bytecode, cp[u2(bytecode, cursor)]);
-        if (CONSTRUCTOR.equals(methodName)) {
-          methodName = CONSTRUCTOR;
-        }
+        int nameIndex = content.u2(cursor);
         cursor += 2;
-        String descriptor = utf(bytecode, cp[u2(bytecode, cursor)]);
-        if (SIMPLE_CALL.equals(descriptor)) {
-          descriptor = SIMPLE_CALL;
-        }
+        int descriptorIndex = content.u2(cursor);
         cursor += 2;
-        String[] annotations = NO_ANNOTATIONS;
-        Map<UtfKey, String> ofInterest = annotationsOfInterest;
-        int attributesCount = u2(bytecode, cursor);
+        int annotationsOffset = 0;
+        int parameterAnnotationsOffset = 0;
+        int signatureIndex = 0;
+        int codeOffset = 0;
+        int attributesCount = content.u2(cursor);
         cursor += 2;
         for (int j = 0; j < attributesCount; j++) {
-          int nameIndex = u2(bytecode, cursor);
+          int attributeNameIndex = content.u2(cursor);
           cursor += 2;
-          int attributeLength = u4(bytecode, cursor);
+          int attributeLength = content.u4(cursor);
           cursor += 4;
-          // only interested in the attribute that lists runtime visible annotations
-          if (ofInterest != null && utfEquals(bytecode, cp[nameIndex], RUNTIME_ANNOTATIONS)) {
-            annotations = parseAnnotations(ofInterest, bytecode, cursor, cp);
-            ofInterest = null; // there's at most one of these attributes per-table
+          // only interested in runtime visible annotations, plus the planned signature and code
+          if (findMethodAnnotations
+              && annotationsOffset == 0
+              && content.utfEquals(cp[attributeNameIndex], RUNTIME_ANNOTATIONS)) {
+            annotationsOffset = cursor; // there's at most one of these attributes per-table
+          } else if (findParameterAnnotations
+              && parameterAnnotationsOffset == 0
+              && content.utfEquals(cp[attributeNameIndex], RUNTIME_PARAMETER_ANNOTATIONS)) {
+            parameterAnnotationsOffset = cursor; // likewise at most one per-table
+          } else if (findSignatures
+              && signatureIndex == 0
+              && content.utfEquals(cp[attributeNameIndex], SIGNATURE)) {
+            signatureIndex = content.u2(cursor); // likewise at most one per-table
+          } else if (findCode
+              && codeOffset == 0
+              && content.utfEquals(cp[attributeNameIndex], CODE_ATTRIBUTE)) {
+            codeOffset = cursor; // likewise at most one per-table
           }
           cursor += attributeLength; // jump to end of attribute
         }
 
-        methods[i] = new MethodOutline(methodAccess, methodName, descriptor, annotations);
+        int codeLength = 0;
+        int codeLimits = 0;
+        int handlerCount = 0;
+        if (codeOffset > 0) {
+          // max stack and max locals are adjacent u2s, so we can read them together
+          codeLimits = content.u4(codeOffset);
+          codeLength = content.u4(codeOffset + 4);
+          // exception table follows the bytecode
+          handlerCount = content.u2(codeOffset + 8 + codeLength);
+        }
+
+        if (lazyContent != null) {
+          methods[i] =
+              new MethodOutline(
+                  methodAccess,
+                  lazyContent,
+                  nameIndex,
+                  descriptorIndex,
+                  annotationsOffset,
+                  parameterAnnotationsOffset,
+                  signatureIndex,
+                  codeLength,
+                  codeLimits,
+                  handlerCount);
+        } else {
+          String[] annotations = annotations(content, annotationsOffset, cp);
+          methods[i] =
+              new MethodOutline(
+                  methodAccess,
+                  methodName(content, cp[nameIndex]),
+                  methodDescriptor(content, cp[descriptorIndex]),
+                  annotations,
+                  annotationValues(content, annotationsOffset, annotations, false),
+                  parameterAnnotations(content, parameterAnnotationsOffset, cp),
+                  signature(content, signatureIndex, cp),
+                  codeLength,
+                  codeLimits,
+                  handlerCount);
+        }
       }
     } else {
       methods = NO_METHODS;
     }
 
     String[] annotations = NO_ANNOTATIONS;
-    Map<UtfKey, String> ofInterest = annotationsOfInterest;
-    int attributesCount = u2(bytecode, cursor);
+    AnnotationValues[] annotationValues = NO_ANNOTATION_VALUES;
+    Map<UtfKey, String> ofInterest =
+        (sections & CLASS_ANNOTATIONS) != 0 ? annotationsOfInterest : null;
+    ClassAttributes attributes = null;
+    if ((sections & CLASS_ATTRIBUTES) != 0) {
+      attributes = new ClassAttributes(content, lazyContent != null);
+      attributes.thisClassIndex = thisClassIndex;
+    }
+    int attributesCount = ofInterest != null || attributes != null ? content.u2(cursor) : 0;
     cursor += 2;
     for (int j = 0; j < attributesCount; j++) {
-      int nameIndex = u2(bytecode, cursor);
+      int nameIndex = content.u2(cursor);
       cursor += 2;
-      int attributeLength = u4(bytecode, cursor);
+      int attributeLength = content.u4(cursor);
       cursor += 4;
-      // only interested in the attribute that lists runtime visible annotations
-      if (ofInterest != null && utfEquals(bytecode, cp[nameIndex], RUNTIME_ANNOTATIONS)) {
-        annotations = parseAnnotations(ofInterest, bytecode, cursor, cp);
+      int nameOffset = cp[nameIndex];
+      // only interested in runtime visible annotations, plus the planned class attributes
+      if (ofInterest != null && content.utfEquals(nameOffset, RUNTIME_ANNOTATIONS)) {
+        annotations = parseAnnotations(ofInterest, content, cursor, cp);
+        annotationValues = annotationValues(content, cursor, annotations, lazyContent != null);
         ofInterest = null; // there's at most one of these attributes per-table
+      } else if (attributes != null) {
+        if (content.utfEquals(nameOffset, SIGNATURE)) {
+          attributes.signatureOffset = cursor;
+        } else if (content.utfEquals(nameOffset, NEST_HOST)) {
+          attributes.nestHostOffset = cursor;
+        } else if (content.utfEquals(nameOffset, NEST_MEMBERS)) {
+          attributes.nestMembersOffset = cursor;
+        } else if (content.utfEquals(nameOffset, PERMITTED_SUBCLASSES)) {
+          attributes.permittedSubclassesOffset = cursor;
+        } else if (content.utfEquals(nameOffset, RECORD)) {
+          attributes.recordOffset = cursor;
+        } else if (content.utfEquals(nameOffset, INNER_CLASSES)) {
+          attributes.innerClassesOffset = cursor;
+        } else if (content.utfEquals(nameOffset, ENCLOSING_METHOD)) {
+          attributes.enclosingMethodOffset = cursor;
+        } else if (access == ACC_MODULE && content.utfEquals(nameOffset, MODULE)) {
+          attributes.moduleOffset = cursor;
+        }
       }
       cursor += attributeLength; // jump to end of attribute
     }
 
-    return new ClassOutline(access, className, superName, interfaces, fields, methods, annotations);
-  }
+    if (attributes != null) {
+      if (attributes.isEmpty()) {
+        attributes = null; // most classes have none of these attributes
+      } else if (lazyContent == null) {
+        attributes.decodeAll(); // eager outlines must not retain the content
+      }
+    }
 
-  /** Reads unsigned 2-bytes (big-endian) at current cursor position. */
-  private static int u2(byte[] bytecode, int cursor) {
-    return (0xFF & bytecode[cursor]) << 8 | (0xFF & bytecode[cursor + 1]);
+    return new ClassOutline(
+        access,
+        className,
+        superName,
+        interfaces,
+        fields,
+        methods,
+        annotations,
+        annotationValues,
+        attributes,
+        references,
+        invocations,
+        constants);
   }
 
-  /** Reads unsigned 4-bytes (big-endian) at current cursor position. */
-  private static int u4(byte[] bytecode, int cursor) {
-    return (0xFF & bytecode[cursor]) << 24
-        | (0xFF & bytecode[cursor + 1]) << 16
-        | (0xFF & bytecode[cursor + 2]) << 8
-        | (0xFF & bytecode[cursor + 3]);
+  /**
+   * Finds the referenced types of interest, by matching them against the class constants.
+   *
+   * <p>Matching class constants are packed back into the front of the table, along with the slot
+   * of their type in the result, ready to resolve any method references. A zero marks the end.
+   */
+  private static String[] references(
+      ClassBytes content, int[] classes, int classCount, UtfNames ofInterest) {
+    int[] cp = content.cp;
+    String[] references = NO_REFERENCES;
+    int matchCount = 0;
+    for (int i = 0; i < classCount; i++) {
+      int classIndex = classes[i];
+      String reference = ofInterest.find(content, cp[cp[classIndex]]);
+      if (reference != null) {
+        int slot = 0;
+        // names of interest are canonical, so we can use identity to spot duplicate constants
+        while (slot < references.length && references[slot] != reference) {
+          slot++;
+        }
+        if (slot == references.length) {
+          // grow as needed; most classes only reference a few types of interest
+          references = Arrays.copyOf(references, slot + 1);
+          references[slot] = reference;
+        }
+        classes[matchCount++] = slot << 16 | classIndex;
+      }
+    }
+    classes[matchCount] = 0; // CP index zero is never used, so this can't be confused with a match
+    return references;
   }
 
-  /** Decodes the "modified-UTF8" at the given offset to string form. */
-  private static String utf(byte[] bytecode, int utfOffset) {
-    int utfLen = u2(bytecode, utfOffset);
-    int utfStart = utfOffset + 2;
-    int utfEnd = utfStart + utfLen;
-
-    char[] chars = null;
-
-    // most class-names will be ASCII, confirm with a quick scan
-    for (int u = utfStart; u < utfEnd; u++) {
-      if ((bytecode[u] & 0x80) != 0) {
-        // found non-ASCII byte, prepare char array for decoding
-        chars = new char[utfLen];
-        break;
+  /** Outlines methods invoked on the referenced types of interest, grouped by referenced type. */
+  private static MethodOutline[][] invocations(
+      ClassBytes content,
+      int[] methodRefs,
+      int methodRefCount,
+      int[] matchingClasses,
+      int referencesCount,
+      boolean lazy) {
+    MethodOutline[][] invocations = new MethodOutline[referencesCount][];
+    Arrays.fill(invocations, NO_METHODS);
+    int[] cp = content.cp;
+    for (int i = 0; i < methodRefCount; i++) {
+      int methodRefOffset = cp[methodRefs[i]];
+      int classIndex = content.u2(methodRefOffset);
+      for (int j = 0, match; (match = matchingClasses[j]) != 0; j++) {
+        if ((match & 0xFFFF) == classIndex) {
+          int nameAndTypeOffset = cp[content.u2(methodRefOffset + 2)];
+          int nameIndex = content.u2(nameAndTypeOffset);
+          int descriptorIndex = content.u2(nameAndTypeOffset + 2);
+          MethodOutline method;
+          if (lazy) {
+            method = new MethodOutline(0, content, nameIndex, descriptorIndex, 0, 0, 0);
+          } else {
+            method =
+                new MethodOutline(
+                    0,
+                    methodName(content, cp[nameIndex]),
+                    methodDescriptor(content, cp[descriptorIndex]),
+                    NO_ANNOTATIONS,
+                    NO_ANNOTATION_VALUES,
+                    NO_PARAMETER_ANNOTATIONS,
+                    null);
+          }
+          // grow as needed; most classes only invoke a few methods on each type of interest
+          int slot = match >>> 16;
+          MethodOutline[] methods = invocations[slot];
+          int oldLen = methods.length;
+          methods = Arrays.copyOf(methods, oldLen + 1);
+          methods[oldLen] = method;
+          invocations[slot] = methods;
+          break;
+        }
       }
     }
+    return invocations;
+  }
 
-    if (chars == null) {
-      // fast-path for ASCII-only: use ISO_8859_1 because on Java 9+ the JVM
-      // can adopt the byte array directly as the compact string encoding,
-      // avoiding a byte-by-byte transcoding step that US_ASCII requires
-      return new String(bytecode, utfStart, utfLen, ISO_8859_1);
+  /** Finds the string constants of interest, by matching them against needles and filters. */
+  private static String[] constants(
+      ClassBytes content,
+      int[] strings,
+      int stringCount,
+      @Nullable UtfNames ofInterest,
+      @Nullable List<Predicate<CharSequence>> filters) {
+    int[] cp = content.cp;
+    String[] constants = NO_CONSTANTS;
+    for (int i = 0; i < stringCount; i++) {
+      int utfOffset = cp[content.u2(cp[strings[i]])];
+      String constant = ofInterest != null ? ofInterest.find(content, utfOffset) : null;
+      if (constant == null && filters != null) {
+        for (int f = 0, len = filters.size(); f < len; f++) {
+          if (content.acceptsConstant(utfOffset, filters.get(f))) {
+            constant = content.utf(utfOffset); // only decode accepted constants
+            break;
+          }
+        }
+      }
+      if (constant != null) {
+        // grow as needed; most classes only contain a few constants of interest
+        int oldLen = constants.length;
+        constants = Arrays.copyOf(constants, oldLen + 1);
+        constants[oldLen] = constant;
+      }
     }
+    return constants;
+  }
 
-    int charLen = 0;
-    for (int u = utfStart; u < utfEnd; u++) {
-      int b = bytecode[u];
-      int c;
-      // "modified-UTF8" does not have built-in charset, must decode it ourselves
-      // see https://docs.oracle.com/javase/8/docs/api/java/io/DataInput.html
-      if ((b & 0x80) == 0) {
-        c = (b & 0x7F);
-      } else if ((b & 0xE0) == 0xC0) {
-        c = ((b & 0x1F) << 6) + (bytecode[++u] & 0x3F);
-      } else {
-        c = ((b & 0xF) << 12) + ((bytecode[++u] & 0x3F) << 6) + (bytecode[++u] & 0x3F);
+  /** Skips over the given number of field or method entries, returns the offset after them. */
+  private static int skipMembers(ClassBytes content, int cursor, int membersCount) {
+    for (int i = 0; i < membersCount; i++) {
+      cursor += 6; // skip access flags, name, descriptor
+      int attributesCount = content.u2(cursor);
+      cursor += 2;
+      for (int j = 0; j < attributesCount; j++) {
+        cursor += 2;
+        int attributeLength = content.u4(cursor);
+        cursor += 4;
+        cursor += attributeLength; // jump to end of attribute
       }
-      chars[charLen++] = (char) c;
     }
+    return cursor;
+  }
 
-    return new String(chars, 0, charLen);
+  /** Decodes the method name at the given offset, re-using the common constructor name. */
+  static String methodName(ClassBytes content, int utfOffset) {
+    String methodName = content.sharedUtf(utfOffset);
+    return CONSTRUCTOR.equals(methodName) ? CONSTRUCTOR : methodName;
   }
 
-  /** Returns {@code true} if the "modified-UTF8" at the offset has the expected content. */
-  @SuppressWarnings("SameParameterValue")
-  private static boolean utfEquals(byte[] bytecode, int utfOffset, byte[] expected) {
-    int expectedLen = expected.length;
-    if (u2(bytecode, utfOffset) == expectedLen) {
-      return sameBytes(expected, 0, expectedLen, bytecode, utfOffset + 2);
+  /** Decodes the method descriptor at the given offset, re-using the simplest descriptor. */
+  static String methodDescriptor(ClassBytes content, int utfOffset) {
+    String descriptor = content.sharedUtf(utfOffset);
+    return SIMPLE_CALL.equals(descriptor) ? SIMPLE_CALL : descriptor;
+  }
+
+  /** Decodes the generic signature at the given CP index, if there is one. */
+  @Nullable
+  static String signature(ClassBytes content, int signatureIndex, int[] cp) {
+    return signatureIndex != 0 ? content.sharedUtf(cp[signatureIndex]) : null;
+  }
+
+  /** Parses interesting annotations from the attribute at the given offset, if there is one. */
+  static String[] annotations(ClassBytes content, int attributeOffset, int[] cp) {
+    Map<UtfKey, String> ofInterest = annotationsOfInterest;
+    if (ofInterest != null && attributeOffset > 0) {
+      return parseAnnotations(ofInterest, content, attributeOffset, cp);
     }
-    return false;
+    return NO_ANNOTATIONS;
   }
 
   /** Parses interesting annotations from the given attribute location. */
   private static String[] parseAnnotations(
-      Map<UtfKey, String> ofInterest, byte[] bytecode, int cursor, int[] cp) {
-    int annotationsCount = u2(bytecode, cursor);
+      Map<UtfKey, String> ofInterest, ClassBytes content, int cursor, int[] cp) {
+    int annotationsCount = content.u2(cursor);
     cursor += 2;
     String[] annotations = NO_ANNOTATIONS;
     for (int i = 0; i < annotationsCount; i++) {
       // first 2 bytes point to the annotation descriptor
-      int utfOffset = cp[u2(bytecode, cursor)];
-      int utfLen = u2(bytecode, utfOffset);
-      String annotation = ofInterest.get(new UtfKey(bytecode, utfOffset + 2, utfLen));
+      String annotation = ofInterest.get(content.utfKey(cp[content.u2(cursor)]));
       if (annotation != null) {
         // grow as needed; it'll be rare to have many annotations at the same location
         int oldLen = annotations.length;
         annotations = Arrays.copyOf(annotations, oldLen + 1);
         annotations[oldLen] = annotation;
       }
-      cursor = nextAnnotationOffset(bytecode, cursor); // jump to the next annotation
+      cursor = nextAnnotationOffset(content, cursor); // jump to the next annotation
     }
     return annotations;
   }
 
+  /**
+   * Extracts element values of interesting annotations from the attribute at the given offset.
+   *
+   * <p>The result is parallel to the given annotations, which were parsed from the same attribute.
+   * Values are decoded up-front for eager outlines; lazy outlines decode them on demand.
+   */
+  static AnnotationValues[] annotationValues(
+      ClassBytes content, int attributeOffset, String[] annotations, boolean lazy) {
+    Set<String> valuesOfInterest = annotationValuesOfInterest;
+    if (valuesOfInterest == null || !anyOfInterest(annotations, valuesOfInterest)) {
+      return NO_ANNOTATION_VALUES; // avoid walking the attribute again
+    }
+    Map<UtfKey, String> ofInterest = annotationsOfInterest;
+    AnnotationValues[] annotationValues = new AnnotationValues[annotations.length];
+    int cursor = attributeOffset;
+    int annotationsCount = content.u2(cursor);
+    cursor += 2;
+    for (int i = 0, j = 0; i < annotationsCount && j < annotations.length; i++) {
+      // first 2 bytes point to the annotation descriptor
+      String annotation = ofInterest.get(content.utfKey(content.cp[content.u2(cursor)]));
+      // more annotations may have become interesting since the lazy outline was parsed
+      if (annotation != null && annotation.equals(annotations[j])) {
+        if (valuesOfInterest.contains(annotation)) {
+          annotationValues[j] =
+              lazy
+                  ? new AnnotationValues(content, cursor)
+                  : new AnnotationValues(AnnotationValues.decodeElements(content, cursor));
+        }
+        j++;
+      }
+      cursor = nextAnnotationOffset(content, cursor); // jump to the next annotation
+    }
+    return annotationValues;
+  }
+
+  private static boolean anyOfInterest(String[] annotations, Set<String> valuesOfInterest) {
+    for (String annotation : annotations) {
+      if (valuesOfInterest.contains(annotation)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Parses interesting parameter annotations from the given attribute location. */
+  static String[][] parameterAnnotations(ClassBytes content, int attributeOffset, int[] cp) {
+    Map<UtfKey, String> ofInterest = annotationsOfInterest;
+    if (ofInterest == null || attributeOffset == 0) {
+      return NO_PARAMETER_ANNOTATIONS;
+    }
+    int cursor = attributeOffset;
+    int parametersCount = 0xFF & content.u1(cursor++);
+    // only allocate the per-parameter table when we find an interesting annotation
+    String[][] parameterAnnotations = NO_PARAMETER_ANNOTATIONS;
+    for (int p = 0; p < parametersCount; p++) {
+      int annotationsCount = content.u2(cursor);
+      cursor += 2;
+      for (int i = 0; i < annotationsCount; i++) {
+        // first 2 bytes point to the annotation descriptor
+        String annotation = ofInterest.get(content.utfKey(cp[content.u2(cursor)]));
+        if (annotation != null) {
+          if (parameterAnnotations == NO_PARAMETER_ANNOTATIONS) {
+            parameterAnnotations = new String[parametersCount][];
+            Arrays.fill(parameterAnnotations, NO_ANNOTATIONS);
+          }
+          // grow as needed; it'll be rare to have many annotations on the same parameter
+          String[] annotations = parameterAnnotations[p];
+          int oldLen = annotations.length;
+          annotations = Arrays.copyOf(annotations, oldLen + 1);
+          annotations[oldLen] = annotation;
+          parameterAnnotations[p] = annotations;
+        }
+        cursor = nextAnnotationOffset(content, cursor); // jump to the next annotation
+      }
+    }
+    return parameterAnnotations;
+  }
+
   /** Returns the offset of the next annotation in the attribute. */
-  private static int nextAnnotationOffset(byte[] bytecode, int cursor) {
+  private static int nextAnnotationOffset(ClassBytes content, int cursor) {
     cursor += 2; // skip annotation descriptor
-    int elementPairCount = u2(bytecode, cursor);
+    int elementPairCount = content.u2(cursor);
     cursor += 2;
     for (int i = 0; i < elementPairCount; i++) {
       cursor += 2; // skip element name index
-      cursor = nextAnnotationElementOffset(bytecode, cursor);
+      cursor = nextAnnotationElementOffset(content, cursor);
     }
     return cursor;
   }
 
   /** Returns the offset of the next element in the annotation. */
-  private static int nextAnnotationElementOffset(byte[] bytecode, int cursor) {
-    switch (bytecode[cursor++]) {
+  static int nextAnnotationElementOffset(ClassBytes content, int cursor) {
+    switch (content.u1(cursor++)) {
       case 'B': // const_value_index (byte)
       case 'C': // const_value_index (char)
       case 'D': // const_value_index (double)
@@ -445,12 +1272,12 @@ public final class ClassFile {
       case 'e': // enum_const_value
         return cursor + 4;
       case '@': // annotation_value
-        return nextAnnotationOffset(bytecode, cursor);
+        return nextAnnotationOffset(content, cursor);
       case '[': // array_value
-        int elementCount = u2(bytecode, cursor);
+        int elementCount = content.u2(cursor);
         cursor += 2;
         for (int i = 0; i < elementCount; i++) {
-          cursor = nextAnnotationElementOffset(bytecode, cursor);
+          cursor = nextAnnotationElementOffset(content, cursor);
         }
         return cursor;
       default:
@@ -0,0 +1,345 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import static datadog.instrument.classmatch.ClassFile.HEADER;
+import static datadog.instrument.classmatch.ClassFile.OUTLINE;
+import static datadog.instrument.classmatch.ParsePlan.FULL_PLAN;
+
+import datadog.instrument.classmatch.ClassBytes.ArrayBytes;
+import datadog.instrument.classmatch.ClassBytes.BufferBytes;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Re-usable parser of class-file content into {@link ClassHeader}s or {@link ClassOutline}s.
+ *
+ * <p>Each parser keeps a growable table of constant-pool offsets that is re-used across calls, so
+ * steady-state parsing only allocates the results. Tables and buffers grown past a modest cap for
+ * an unusually large class are dropped after the call, so pooled parsers don't pin that memory.
+ *
+ * <p>Parsers are not thread-safe; callers can keep one per worker, or pass one along with the work.
+ * The static methods in {@link ClassFile} borrow parsers from a small shared pool, which avoids
+ * thread-locals and so also suits virtual threads.
+ *
+ * <p>Parsers never retain references to the caller's content after each call returns. Use {@link
+ * ClassFile#lazyOutline} when you want outlines that decode details on demand.
+ */
+public final class ClassFileParser {
+
+  // small pool of parsers, indexed by thread-id, used by the static methods in ClassFile
+  private static final int POOL_MASK = 63;
+  private static final AtomicReferenceArray<ClassFileParser> POOL =
+      new AtomicReferenceArray<>(POOL_MASK + 1);
+
+  // limit how far we read ahead when streaming, so we don't read much more than the header
+  private static final int READ_AHEAD = 256;
+
+  // stream buffers and constant-pool tables larger than these caps are not kept between calls
+  private static final int DEFAULT_STREAM_SIZE = 4096;
+  private static final int MAX_RETAINED_STREAM_SIZE = 64 * 1024;
+  private static final int MAX_RETAINED_CP_SIZE = 16 * 1024;
+
+  private final ArrayBytes arrayBytes = ArrayBytes.of(null);
+  private BufferBytes bufferBytes;
+
+  // re-usable buffer for streamed content
+  private byte[] streamBytes = new byte[DEFAULT_STREAM_SIZE];
+  private int streamLimit;
+
+  /** Creates a new parser with empty internal tables. */
+  public ClassFileParser() {}
+
+  /**
+   * Extracts a {@link ClassHeader} from the given class-file content.
+   *
+   * @param bytecode the class-file content to parse
+   * @return class header containing class-name, super-name, interfaces
+   */
+  public ClassHeader header(byte[] bytecode) {
+    return parse(bytecode, 0, HEADER, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassHeader} from the given class-file content.
+   *
+   * @param bytecode the class-file content to parse
+   * @param offset the offset of the class-file content
+   * @return class header containing class-name, super-name, interfaces
+   */
+  public ClassHeader header(byte[] bytecode, int offset) {
+    return parse(bytecode, offset, HEADER, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassHeader} from the given class-file content, if the filter accepts its
+   * class-name.
+   *
+   * <p>The filter is given the class-name in dotted form, as a view over the raw content; see
+   * {@link ParsePlan#withClassNameFilter}. Rejected classes are not decoded any further.
+   *
+   * @param bytecode the class-file content to parse
+   * @param classNameFilter accepts the names of classes to parse
+   * @return class header containing class-name, super-name, interfaces; {@code null} if rejected
+   */
+  @Nullable
+  public ClassHeader header(byte[] bytecode, Predicate<CharSequence> classNameFilter) {
+    return parse(bytecode, 0, HEADER, FULL_PLAN.withClassNameFilter(classNameFilter));
+  }
+
+  /**
+   * Extracts a {@link ClassHeader} from the class-file content in the given buffer.
+   *
+   * <p>Content is read from the buffer's current position, without copying. The buffer's position
+   * and byte-order are unchanged.
+   *
+   * @param buffer the buffer containing the class-file content to parse
+   * @return class header containing class-name, super-name, interfaces
+   */
+  public ClassHeader header(ByteBuffer buffer) {
+    return parse(buffer, HEADER, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassHeader} from the class-file content in the given stream.
+   *
+   * <p>Content is read incrementally, stopping soon after the interfaces; fields, methods, and
+   * attributes are not read. The stream is left open, positioned somewhere after the header.
+   *
+   * @param in the stream containing the class-file content to parse
+   * @return class header containing class-name, super-name, interfaces
+   * @throws IOException if the content could not be read
+   */
+  public ClassHeader header(InputStream in) throws IOException {
+    streamLimit = 0;
+    try {
+      // skip preamble
+      int cursor = 8;
+      fill(in, cursor + 2);
+      int cpLen = streamU2(cursor);
+      cursor += 2;
+
+      // find the end of the constant pool, reading as we go
+      for (int i = 1; i < cpLen; i++) {
+        fill(in, cursor + 3); // tag, plus first two bytes of the entry
+        int tag = streamBytes[cursor];
+        int length = ClassBytes.constantLength(tag);
+        if (length == 0) {
+          throw new IllegalArgumentException();
+        }
+        if (tag == 1) { // CONSTANT_Utf8
+          length += streamU2(cursor + 1);
+        } else if (tag == 5 || tag == 6) {
+          i++; // longs and doubles take up two pool entries
+        }
+        cursor += length;
+      }
+
+      // access flags, this class, super class, interfaces count
+      fill(in, cursor + 8);
+      int interfacesCount = streamU2(cursor + 6);
+      fill(in, cursor + 8 + interfacesCount * 2);
+
+      return parse(streamBytes, 0, HEADER, FULL_PLAN);
+    } finally {
+      trimStreamBytes();
+    }
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the given class-file content.
+   *
+   * @param bytecode the class-file content to parse
+   * @return class outline containing header, fields, methods, annotations
+   */
+  public ClassOutline outline(byte[] bytecode) {
+    return (ClassOutline) parse(bytecode, 0, OUTLINE, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the given class-file content.
+   *
+   * @param bytecode the class-file content to parse
+   * @param offset the offset of the class-file content
+   * @return class outline containing header, fields, methods, annotations
+   */
+  public ClassOutline outline(byte[] bytecode, int offset) {
+    return (ClassOutline) parse(bytecode, offset, OUTLINE, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the class-file content in the given buffer.
+   *
+   * <p>Content is read from the buffer's current position, without copying. The buffer's position
+   * and byte-order are unchanged.
+   *
+   * @param buffer the buffer containing the class-file content to parse
+   * @return class outline containing header, fields, methods, annotations
+   */
+  public ClassOutline outline(ByteBuffer buffer) {
+    return (ClassOutline) parse(buffer, OUTLINE, FULL_PLAN);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the given class-file content, following the given plan.
+   *
+   * <p>Only the sections needed by the plan are parsed; the rest are left empty in the outline.
+   * Classes whose names are rejected by the plan's class-name filter are not parsed any further.
+   *
+   * @param bytecode the class-file content to parse
+   * @param plan the sections of the class-file to parse
+   * @return class outline containing header, plus the planned fields, methods, annotations;
+   *     {@code null} if the class-name was rejected
+   */
+  @Nullable
+  public ClassOutline outline(byte[] bytecode, ParsePlan plan) {
+    return (ClassOutline) parse(bytecode, 0, OUTLINE, plan);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the class-file content in the given buffer, following the
+   * given plan.
+   *
+   * <p>Only the sections needed by the plan are parsed; the rest are left empty in the outline.
+   * Classes whose names are rejected by the plan's class-name filter are not parsed any further.
+   *
+   * @param buffer the buffer containing the class-file content to parse
+   * @param plan the sections of the class-file to parse
+   * @return class outline containing header, plus the planned fields, methods, annotations;
+   *     {@code null} if the class-name was rejected
+   */
+  @Nullable
+  public ClassOutline outline(ByteBuffer buffer, ParsePlan plan) {
+    return (ClassOutline) parse(buffer, OUTLINE, plan);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from the class-file content in the given stream.
+   *
+   * <p>Content is read to the end of the stream, into a buffer that is re-used across calls. The
+   * stream is left open.
+   *
+   * @param in the stream containing the class-file content to parse
+   * @return class outline containing header, fields, methods, annotations
+   * @throws IOException if the content could not be read
+   */
+  public ClassOutline outline(InputStream in) throws IOException {
+    streamLimit = 0;
+    try {
+      while (true) {
+        if (streamLimit == streamBytes.length) {
+          streamBytes = Arrays.copyOf(streamBytes, streamLimit * 2);
+        }
+        int bytesRead = in.read(streamBytes, streamLimit, streamBytes.length - streamLimit);
+        if (bytesRead < 0) {
+          break;
+        }
+        streamLimit += bytesRead;
+      }
+      // bound reads by the content, so truncated class-files fail instead of reading stale bytes
+      ByteBuffer content = ByteBuffer.wrap(streamBytes, 0, streamLimit);
+      return (ClassOutline) parseBuffer(content, OUTLINE, FULL_PLAN);
+    } finally {
+      trimStreamBytes();
+    }
+  }
+
+  /** Parse class-file content from the given offset, re-using our internal tables. */
+  ClassHeader parse(byte[] bytecode, int offset, int detail, ParsePlan plan) {
+    arrayBytes.bytecode = bytecode;
+    try {
+      return ClassFile.parse(arrayBytes, offset, detail, plan);
+    } finally {
+      arrayBytes.bytecode = null; // don't retain content
+      arrayBytes.trimTables(MAX_RETAINED_CP_SIZE);
+    }
+  }
+
+  /** Parse class-file content from the buffer's current position, re-using our internal tables. */
+  ClassHeader parse(ByteBuffer buffer, int detail, ParsePlan plan) {
+    if (buffer.hasArray()) {
+      // use backing array directly when it's available, as that's fastest
+      int offset = buffer.arrayOffset() + buffer.position();
+      return parse(buffer.array(), offset, detail, plan);
+    }
+    return parseBuffer(buffer, detail, plan);
+  }
+
+  /** Parse class-file content using buffer reads, which are bounded by the buffer's limit. */
+  private ClassHeader parseBuffer(ByteBuffer buffer, int detail, ParsePlan plan) {
+    if (bufferBytes == null) {
+      bufferBytes = new BufferBytes(buffer);
+    } else {
+      bufferBytes.buffer = BufferBytes.bigEndian(buffer);
+    }
+    try {
+      return ClassFile.parse(bufferBytes, buffer.position(), detail, plan);
+    } finally {
+      bufferBytes.buffer = null; // don't retain content
+      bufferBytes.trimTables(MAX_RETAINED_CP_SIZE);
+    }
+  }
+
+  /** Reads from the stream until we have at least the required number of bytes. */
+  private void fill(InputStream in, int required) throws IOException {
+    if (required > streamBytes.length) {
+      int newLength = Math.max(required + READ_AHEAD, streamBytes.length * 2);
+      streamBytes = Arrays.copyOf(streamBytes, newLength);
+    }
+    int readLimit = Math.min(required + READ_AHEAD, streamBytes.length);
+    while (streamLimit < required) {
+      int bytesRead = in.read(streamBytes, streamLimit, readLimit - streamLimit);
+      if (bytesRead < 0) {
+        throw new EOFException();
+      }
+      streamLimit += bytesRead;
+    }
+  }
+
+  /** Drops a stream buffer that grew past the cap, so it isn't pinned by an idle parser. */
+  private void trimStreamBytes() {
+    if (streamBytes.length > MAX_RETAINED_STREAM_SIZE) {
+      streamBytes = new byte[DEFAULT_STREAM_SIZE];
+    }
+  }
+
+  private int streamU2(int offset) {
+    return ArrayBytes.u2(streamBytes, offset);
+  }
+
+  /** For testing purposes. */
+  int streamCapacity() {
+    return streamBytes.length;
+  }
+
+  /** For testing purposes. */
+  int cpCapacity() {
+    return arrayBytes.cp != null ? arrayBytes.cp.length : 0;
+  }
+
+  /** Borrows a parser from the shared pool, or creates a new one if none is available. */
+  static ClassFileParser acquire() {
+    ClassFileParser parser = POOL.getAndSet(poolSlot(), null);
+    return parser != null ? parser : new ClassFileParser();
+  }
+
+  /** Returns the parser to the shared pool; it is dropped if its slot is already occupied. */
+  static void release(ClassFileParser parser) {
+    POOL.compareAndSet(poolSlot(), null, parser);
+  }
+
+  @SuppressWarnings("deprecation") // Thread.threadId() is not available on Java 8
+  private static int poolSlot() {
+    return (int) Thread.currentThread().getId() & POOL_MASK;
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Scans jars and directories in parallel, extracting {@link ClassHeader}s or {@link ClassOutline}s
+ * from every {@code .class} file.
+ *
+ * <p>Work is split into batches that run on the scanner's executor, such as a fork-join pool or a
+ * virtual-thread executor. Each batch re-uses a single {@link ClassFileParser} and its buffers.
+ * Results are delivered to the consumer on the calling thread as soon as they are available, so the
+ * consumer does not need to be thread-safe. The order of results is not deterministic.
+ *
+ * <p>Only a few batches per thread are in flight at any time; the calling thread delivers results
+ * before submitting more, so memory use does not grow with the size of each jar.
+ *
+ * <p>Malformed class-files are skipped and counted; other parsing failures end the scan. Jar
+ * entries under {@code META-INF/} are ignored, which excludes multi-release overlays.
+ */
+public final class ClassFileScanner {
+
+  // number of class-files handled by each task
+  private static final int BATCH_SIZE = 64;
+
+  // number of batches allowed in flight for each thread of the executor
+  private static final int PENDING_BATCHES_PER_THREAD = 2;
+
+  // marks the end of a batch in the result queue
+  private static final Object BATCH_DONE = new Object();
+
+  // marks a malformed class-file in the result queue
+  private static final Object SKIPPED = new Object();
+
+  private final Executor executor;
+  private final int maxPendingBatches;
+
+  /** Creates a scanner that runs on the common fork-join pool. */
+  public ClassFileScanner() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a scanner that runs on the given executor.
+   *
+   * <p>Example: {@code new ClassFileScanner(Executors.newVirtualThreadPerTaskExecutor())}
+   *
+   * @param executor the executor used to parse batches of class-files
+   */
+  public ClassFileScanner(Executor executor) {
+    this.executor = executor;
+    int parallelism =
+        executor instanceof ForkJoinPool
+            ? ((ForkJoinPool) executor).getParallelism()
+            : Runtime.getRuntime().availableProcessors();
+    this.maxPendingBatches = PENDING_BATCHES_PER_THREAD * Math.max(parallelism, 1);
+  }
+
+  /**
+   * Extracts a {@link ClassHeader} from every class-file in the given jars and directories.
+   *
+   * <p>Only the start of each class-file is read, up to the end of its interfaces.
+   *
+   * @param classpath the jars and directories to scan
+   * @param consumer receives each header, on the calling thread
+   * @return number of malformed class-files that were skipped
+   * @throws IOException if a jar or directory could not be read
+   */
+  public int scanHeaders(Collection<Path> classpath, Consumer<? super ClassHeader> consumer)
+      throws IOException {
+    return new Scan<>(ClassFileParser::header, consumer).run(classpath);
+  }
+
+  /**
+   * Extracts a {@link ClassOutline} from every class-file in the given jars and directories.
+   *
+   * @param classpath the jars and directories to scan
+   * @param consumer receives each outline, on the calling thread
+   * @return number of malformed class-files that were skipped
+   * @throws IOException if a jar or directory could not be read
+   */
+  public int scanOutlines(Collection<Path> classpath, Consumer<? super ClassOutline> consumer)
+      throws IOException {
+    return new Scan<>(ClassFileParser::outline, consumer).run(classpath);
+  }
+
+  /** Parses class-file content from a stream. */
+  @FunctionalInterface
+  private interface StreamParser<T> {
+    T parse(ClassFileParser parser, InputStream in) throws IOException;
+  }
+
+  /** Opens a stream to the class-file content. */
+  @FunctionalInterface
+  private interface ClassSource {
+    InputStream open() throws IOException;
+  }
+
+  /** State of a single scan. */
+  private final class Scan<T> {
+    private final StreamParser<T> streamParser;
+    private final Consumer<? super T> consumer;
+
+    // each batch adds at most one entry per class-file, plus its end marker, so this never fills
+    private final BlockingQueue<Object> results =
+        new ArrayBlockingQueue<>(maxPendingBatches * (BATCH_SIZE + 1));
+    private final List<ZipFile> jars = new ArrayList<>();
+
+    private List<ClassSource> batch = new ArrayList<>(BATCH_SIZE);
+    private int pendingBatches;
+    private int skipped;
+
+    private volatile boolean cancelled;
+
+    Scan(StreamParser<T> streamParser, Consumer<? super T> consumer) {
+      this.streamParser = streamParser;
+      this.consumer = consumer;
+    }
+
+    int run(Collection<Path> classpath) throws IOException {
+      boolean completed = false;
+      try {
+        for (Path path : classpath) {
+          if (Files.isDirectory(path)) {
+            addDirectory(path);
+          } else {
+            addJar(path);
+          }
+        }
+        submitBatch();
+        deliverResults(0); // wait for all batches to complete
+        completed = true;
+        return skipped;
+      } finally {
+        if (!completed) {
+          cancelled = true;
+          awaitBatches();
+        }
+        IOException closeFailure = closeJars();
+        if (completed && closeFailure != null) {
+          throw closeFailure;
+        }
+      }
+    }
+
+    private void addDirectory(Path dir) throws IOException {
+      try (Stream<Path> files = Files.walk(dir)) {
+        Iterator<Path> classFiles =
+            files.filter(f -> f.toString().endsWith(".class") && Files.isRegularFile(f)).iterator();
+        while (classFiles.hasNext()) {
+          Path f = classFiles.next();
+          addClass(() -> Files.newInputStream(f));
+        }
+      }
+    }
+
+    private void addJar(Path path) throws IOException {
+      ZipFile jar = new ZipFile(path.toFile());
+      jars.add(jar);
+      Enumeration<? extends ZipEntry> entries = jar.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        String name = entry.getName();
+        if (name.endsWith(".class") && !entry.isDirectory() && !name.startsWith("META-INF/")) {
+          addClass(() -> jar.getInputStream(entry));
+        }
+      }
+    }
+
+    private void addClass(ClassSource source) throws IOException {
+      batch.add(source);
+      if (batch.size() == BATCH_SIZE) {
+        submitBatch();
+      }
+    }
+
+    private void submitBatch() throws IOException {
+      if (batch.isEmpty()) {
+        return;
+      }
+      // deliver results so far, waiting if too many batches are already in flight
+      deliverResults(maxPendingBatches - 1);
+      List<ClassSource> sources = batch;
+      batch = new ArrayList<>(BATCH_SIZE);
+      executor.execute(() -> parseBatch(sources));
+      pendingBatches++;
+    }
+
+    /** Runs on the executor, re-using the same parser for the entire batch. */
+    private void parseBatch(List<ClassSource> sources) {
+      ClassFileParser parser = ClassFileParser.acquire();
+      try {
+        for (ClassSource source : sources) {
+          if (cancelled) {
+            break;
+          }
+          try (InputStream in = source.open()) {
+            results.add(streamParser.parse(parser, in));
+          } catch (EOFException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            results.add(SKIPPED); // truncated or malformed class-file
+          } catch (IOException | RuntimeException e) {
+            results.add(e);
+          }
+        }
+      } finally {
+        ClassFileParser.release(parser);
+        results.add(BATCH_DONE);
+      }
+    }
+
+    /** Delivers results to the consumer, waiting until at most the given batches are pending. */
+    @SuppressWarnings("unchecked")
+    private void deliverResults(int maxPending) throws IOException {
+      while (pendingBatches > 0) {
+        Object result;
+        if (pendingBatches > maxPending) {
+          try {
+            result = results.take();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+          }
+        } else if ((result = results.poll()) == null) {
+          return;
+        }
+        if (result == BATCH_DONE) {
+          pendingBatches--;
+        } else if (result == SKIPPED) {
+          skipped++;
+        } else if (result instanceof IOException) {
+          throw (IOException) result;
+        } else if (result instanceof RuntimeException) {
+          throw (RuntimeException) result;
+        } else {
+          consumer.accept((T) result);
+        }
+      }
+    }
+
+    /** Waits for outstanding batches to notice the scan has been cancelled. */
+    private void awaitBatches() {
+      boolean interrupted = false;
+      while (pendingBatches > 0) {
+        try {
+          if (results.take() == BATCH_DONE) {
+            pendingBatches--;
+          }
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /** Closes jars opened by the scan; returns the first failure, if any. */
+    private IOException closeJars() {
+      IOException failure = null;
+      for (ZipFile jar : jars) {
+        try {
+          jar.close();
+        } catch (IOException e) {
+          if (failure == null) {
+            failure = e;
+          }
+        }
+      }
+      return failure;
+    }
+  }
+}
@@ -6,6 +6,10 @@
 
 package datadog.instrument.classmatch;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import javax.annotation.Nullable;
 
 /** Minimal class header that describes its access modifiers and immediate class hierarchy. */
@@ -34,4 +38,40 @@ public class ClassHeader {
     this.superName = superName;
     this.interfaces = interfaces;
   }
+
+  /**
+   * Writes this header to an external resource.
+   *
+   * <p>Outlines are written in full, so they can be read back with {@link ClassOutline#readFrom}.
+   *
+   * @param out where to write the serialized header
+   * @throws IOException if the content cannot be written
+   */
+  public void writeTo(DataOutput out) throws IOException {
+    OutlineCodec.write(this, out);
+  }
+
+  /**
+   * Reads a header from an external resource.
+   *
+   * @param in the serialized header content
+   * @return deserialized header; this is a {@link ClassOutline} if an outline was written
+   * @throws IOException if the content cannot be read
+   */
+  public static ClassHeader readFrom(DataInput in) throws IOException {
+    return OutlineCodec.read(in, false);
+  }
+
+  /**
+   * Reads a header from a byte-buffer, such as a memory-mapped file.
+   *
+   * <p>Reading starts at the buffer's position, which is left just after the header content.
+   *
+   * @param buffer the serialized header content
+   * @return deserialized header; this is a {@link ClassOutline} if an outline was written
+   * @throws IOException if the content cannot be read
+   */
+  public static ClassHeader readFrom(ByteBuffer buffer) throws IOException {
+    return OutlineCodec.read(new OutlineCodec.BufferInput(buffer), false);
+  }
 }
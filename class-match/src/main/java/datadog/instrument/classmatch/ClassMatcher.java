@@ -6,18 +6,74 @@
 
 package datadog.instrument.classmatch;
 
+import static datadog.instrument.classmatch.ClassFile.JAVA_LANG_RECORD;
+import static datadog.instrument.classmatch.InternalMatchers.annotationValuesOfInterest;
 import static datadog.instrument.classmatch.InternalMatchers.anyMatch;
 import static datadog.instrument.classmatch.InternalMatchers.declaresAnnotation;
 import static datadog.instrument.classmatch.InternalMatchers.declaresAnnotationOneOf;
+import static datadog.instrument.classmatch.InternalMatchers.fieldSections;
+import static datadog.instrument.classmatch.InternalMatchers.internalName;
+import static datadog.instrument.classmatch.InternalMatchers.methodSections;
+import static datadog.instrument.classmatch.InternalMatchers.needs;
+import static datadog.instrument.classmatch.ParsePlan.CLASS_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.CLASS_ATTRIBUTES;
+import static datadog.instrument.classmatch.ParsePlan.CONSTANTS;
+import static datadog.instrument.classmatch.ParsePlan.FIELDS;
+import static datadog.instrument.classmatch.ParsePlan.INVOCATIONS;
+import static datadog.instrument.classmatch.ParsePlan.METHODS;
+import static datadog.instrument.classmatch.ParsePlan.REFERENCES;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Predicate;
 
 /** Fluent-API for building {@link ClassOutline} predicates. */
 @FunctionalInterface
 public interface ClassMatcher extends Predicate<ClassOutline> {
 
+  /**
+   * Matches classes with access modifiers matching the given criteria.
+   *
+   * <p>Only needs the {@link ClassHeader}.
+   *
+   * @param accessMatcher the access matcher
+   * @return matcher of classes with matching access
+   */
+  static ClassMatcher access(AccessMatcher accessMatcher) {
+    return needs(0, c -> accessMatcher.test(c.access));
+  }
+
+  /**
+   * Matches classes that directly extend the given class.
+   *
+   * <p>Only needs the {@link ClassHeader}.
+   *
+   * @param superName the super-class name
+   * @return matcher of classes directly extending the class
+   */
+  static ClassMatcher extendsClass(String superName) {
+    String internalName = internalName(superName);
+    return needs(0, c -> internalName.equals(c.superName));
+  }
+
+  /**
+   * Matches classes that directly implement the given interface.
+   *
+   * <p>Only needs the {@link ClassHeader}.
+   *
+   * @param interfaceName the interface name
+   * @return matcher of classes directly implementing the interface
+   */
+  static ClassMatcher implementsInterface(String interfaceName) {
+    String internalName = internalName(interfaceName);
+    // performance tip: capture this method-ref outside the lambda
+    Predicate<String> interfaceNamed = internalName::equals;
+    return needs(0, c -> anyMatch(c.interfaces, interfaceNamed));
+  }
+
   /**
    * Matches classes that declare a field matching the given criteria.
    *
@@ -25,7 +81,7 @@ public interface ClassMatcher extends Predicate<ClassOutline> {
    * @return matcher of classes with a matching field
    */
   static ClassMatcher declares(FieldMatcher fieldMatcher) {
-    return c -> anyMatch(c.fields, fieldMatcher);
+    return needs(FIELDS | fieldSections(fieldMatcher), c -> anyMatch(c.fields, fieldMatcher));
   }
 
   /**
@@ -37,7 +93,7 @@ public interface ClassMatcher extends Predicate<ClassOutline> {
    */
   static ClassMatcher declares(AccessMatcher accessMatcher, FieldMatcher fieldMatcher) {
     FieldMatcher combinedMatcher = fieldMatcher.access(accessMatcher);
-    return c -> anyMatch(c.fields, combinedMatcher);
+    return needs(FIELDS | fieldSections(combinedMatcher), c -> anyMatch(c.fields, combinedMatcher));
   }
 
   /**
@@ -47,7 +103,7 @@ public interface ClassMatcher extends Predicate<ClassOutline> {
    * @return matcher of classes with a matching method
    */
   static ClassMatcher declares(MethodMatcher methodMatcher) {
-    return c -> anyMatch(c.methods, methodMatcher);
+    return needs(METHODS | methodSections(methodMatcher), c -> anyMatch(c.methods, methodMatcher));
   }
 
   /**
@@ -59,7 +115,222 @@ public interface ClassMatcher extends Predicate<ClassOutline> {
    */
   static ClassMatcher declares(AccessMatcher accessMatcher, MethodMatcher methodMatcher) {
     MethodMatcher combinedMatcher = methodMatcher.access(accessMatcher);
-    return c -> anyMatch(c.methods, combinedMatcher);
+    return needs(
+        METHODS | methodSections(combinedMatcher), c -> anyMatch(c.methods, combinedMatcher));
+  }
+
+  /**
+   * Matches classes with a generic signature matching the given criteria.
+   *
+   * <p>Example: {@code signature(SignatureMatcher.superType("com.acme.Handler",
+   * "com.acme.HttpRequest"))}
+   *
+   * @param signatureMatcher the class signature matcher
+   * @return matcher of classes with a matching signature
+   */
+  static ClassMatcher signature(SignatureMatcher signatureMatcher) {
+    return needs(
+        CLASS_ATTRIBUTES,
+        c -> {
+          String signature = c.signature();
+          return signature != null && signatureMatcher.test(signature);
+        });
+  }
+
+  /**
+   * Matches record classes.
+   *
+   * <p>Only needs the {@link ClassHeader}.
+   *
+   * @return matcher of record classes
+   */
+  static ClassMatcher record() {
+    return needs(0, c -> JAVA_LANG_RECORD.equals(c.superName));
+  }
+
+  /**
+   * Matches records that declare a component matching the given criteria.
+   *
+   * <p>Record components are outlined as fields without access modifiers.
+   *
+   * @param componentMatcher the record component matcher
+   * @return matcher of records with a matching component
+   */
+  static ClassMatcher recordComponent(FieldMatcher componentMatcher) {
+    return needs(CLASS_ATTRIBUTES, c -> anyMatch(c.recordComponents(), componentMatcher));
+  }
+
+  /**
+   * Matches sealed classes and interfaces.
+   *
+   * @return matcher of sealed classes
+   */
+  static ClassMatcher sealed() {
+    return needs(CLASS_ATTRIBUTES, c -> c.permittedSubclasses().length > 0);
+  }
+
+  /**
+   * Matches sealed classes and interfaces that permit the given subclass.
+   *
+   * @param subclassName the permitted subclass name
+   * @return matcher of sealed classes permitting the subclass
+   */
+  static ClassMatcher permits(String subclassName) {
+    String internalName = internalName(subclassName);
+    // performance tip: capture this method-ref outside the lambda
+    Predicate<String> subclassNamed = internalName::equals;
+    return needs(CLASS_ATTRIBUTES, c -> anyMatch(c.permittedSubclasses(), subclassNamed));
+  }
+
+  /**
+   * Matches synthetic classes, generated by the compiler.
+   *
+   * <p>Only needs the {@link ClassHeader}.
+   *
+   * @return matcher of synthetic classes
+   */
+  static ClassMatcher synthetic() {
+    return needs(0, c -> AccessMatcher.SYNTHETIC.test(c.access));
+  }
+
+  /**
+   * Matches classes nested inside another class, including local and anonymous classes.
+   *
+   * <p>Example: {@code not(nested())} to skip nested classes before running expensive matchers.
+   *
+   * @return matcher of nested classes
+   */
+  static ClassMatcher nested() {
+    return needs(CLASS_ATTRIBUTES, ClassOutline::isNested);
+  }
+
+  /**
+   * Matches anonymous classes.
+   *
+   * @return matcher of anonymous classes
+   */
+  static ClassMatcher anonymous() {
+    return needs(CLASS_ATTRIBUTES, ClassOutline::isAnonymous);
+  }
+
+  /**
+   * Matches classes immediately enclosed by the given class.
+   *
+   * @param className the enclosing class name
+   * @return matcher of classes enclosed by the class
+   */
+  static ClassMatcher enclosedBy(String className) {
+    String internalName = internalName(className);
+    return needs(CLASS_ATTRIBUTES, c -> internalName.equals(c.enclosingClass()));
+  }
+
+  /**
+   * Matches classes that reference one of the given types from their constant pool.
+   *
+   * <p>This is a cheap, selective pre-filter for call-site instrumentation. Class constants are
+   * compared byte-by-byte against the types, without decoding the rest of the constant pool.
+   *
+   * @param types the referenced types
+   * @return matcher of classes referencing one of the types
+   * @see ClassOutline#references()
+   */
+  static ClassMatcher references(String... types) {
+    return references(asList(types));
+  }
+
+  /**
+   * Matches classes that reference one of the given types from their constant pool.
+   *
+   * <p>This is a cheap, selective pre-filter for call-site instrumentation. Class constants are
+   * compared byte-by-byte against the types, without decoding the rest of the constant pool.
+   *
+   * @param types the referenced types
+   * @return matcher of classes referencing one of the types
+   * @see ClassOutline#references()
+   */
+  static ClassMatcher references(Collection<String> types) {
+    InternalNames internalNames = new InternalNames(types);
+    // note these types are of interest when parsing
+    ClassFile.referencesOfInterest(internalNames);
+    // any reference of interest could be from an earlier matcher, so check it's one of ours
+    Predicate<String> referenceNamedOneOf = internalNames::containsType;
+    return needs(REFERENCES, c -> anyMatch(c.references(), referenceNamedOneOf));
+  }
+
+  /**
+   * Matches classes that invoke a method on the given type matching the given criteria.
+   *
+   * <p>Example: {@code invokes("javax.crypto.Cipher", method("getInstance"))}
+   *
+   * <p>Invoked methods are resolved from method references in the constant pool, without scanning
+   * method bodies. They are outlined without access modifiers or annotations. The owner must be
+   * the type named at the call site, which may be a subtype of the type declaring the method.
+   *
+   * @param owner the owner of the invoked method
+   * @param methodMatcher the invoked method matcher
+   * @return matcher of classes invoking a matching method
+   * @see ClassOutline#invokedMethods(String)
+   */
+  static ClassMatcher invokes(String owner, MethodMatcher methodMatcher) {
+    String internalName = internalName(owner);
+    // note this type is of interest when parsing
+    ClassFile.referenceOfInterest(internalName);
+    return needs(
+        REFERENCES | INVOCATIONS, c -> anyMatch(c.invokedMethods(internalName), methodMatcher));
+  }
+
+  /**
+   * Matches classes that contain one of the given string constants.
+   *
+   * <p>String constants are compared byte-by-byte against the needles, without decoding them.
+   *
+   * @param constants the string constants
+   * @return matcher of classes containing one of the constants
+   * @see ClassOutline#constants()
+   */
+  static ClassMatcher containsConstant(String... constants) {
+    return containsConstant(asList(constants));
+  }
+
+  /**
+   * Matches classes that contain one of the given string constants.
+   *
+   * <p>String constants are compared byte-by-byte against the needles, without decoding them.
+   *
+   * @param constants the string constants
+   * @return matcher of classes containing one of the constants
+   * @see ClassOutline#constants()
+   */
+  static ClassMatcher containsConstant(Collection<String> constants) {
+    Set<String> needles = new HashSet<>(constants);
+    // note these constants are of interest when parsing
+    ClassFile.constantsOfInterest(needles);
+    // performance tip: capture this method-ref outside the lambda
+    Predicate<String> constantOneOf = needles::contains;
+    return needs(CONSTANTS, c -> anyMatch(c.constants(), constantOneOf));
+  }
+
+  /**
+   * Matches classes that contain a string constant accepted by the given filter.
+   *
+   * <p>Example: {@code containsConstant(s -> jdbcUrlPrefixes.apply(s) >= 0)} where {@code
+   * jdbcUrlPrefixes} is a {@code ClassNameTrie} of globbed prefixes, such as {@code jdbc:mysql:*}
+   *
+   * <p>The filter is first given each string constant as a view over the raw content, so prefix
+   * tables can check it without decoding. The view must not be retained.
+   *
+   * <p>Accepted constants are only included in outlines parsed with a {@link ParsePlan} that covers
+   * this matcher, so each filter is scoped to the plans that use it.
+   *
+   * @param constantFilter accepts string constants of interest
+   * @return matcher of classes containing an accepted constant
+   * @see ClassOutline#constants()
+   */
+  static ClassMatcher containsConstant(Predicate<CharSequence> constantFilter) {
+    // performance tip: capture this method-ref outside the lambda
+    Predicate<String> constantAccepted = constantFilter::test;
+    return needs(
+        CONSTANTS, singletonList(constantFilter), c -> anyMatch(c.constants(), constantAccepted));
   }
 
   /**
@@ -70,7 +341,7 @@ public interface ClassMatcher extends Predicate<ClassOutline> {
    */
   static ClassMatcher annotatedWith(String annotationType) {
     Predicate<String[]> annotationMatcher = declaresAnnotation(annotationType);
-    return c -> annotationMatcher.test(c.annotations);
+    return needs(CLASS_ANNOTATIONS, c -> annotationMatcher.test(c.annotations));
   }
 
   /**
@@ -91,7 +362,25 @@ public interface ClassMatcher extends Predicate<ClassOutline> {
    */
   static ClassMatcher annotatedWith(Collection<String> annotationTypes) {
     Predicate<String[]> annotationMatcher = declaresAnnotationOneOf(annotationTypes);
-    return c -> annotationMatcher.test(c.annotations);
+    return needs(CLASS_ANNOTATIONS, c -> annotationMatcher.test(c.annotations));
+  }
+
+  /**
+   * Matches classes annotated with the given type, where the element values match the criteria.
+   *
+   * @param annotationType the annotation type
+   * @param valuesMatcher the element values matcher
+   * @return matcher of classes annotated with the type and matching values
+   */
+  static ClassMatcher annotatedWith(
+      String annotationType, Predicate<AnnotationValues> valuesMatcher) {
+    String internalName = annotationValuesOfInterest(annotationType);
+    return needs(
+        CLASS_ANNOTATIONS,
+        c -> {
+          AnnotationValues values = c.annotationValues(internalName);
+          return values != null && valuesMatcher.test(values);
+        });
   }
 
   /**
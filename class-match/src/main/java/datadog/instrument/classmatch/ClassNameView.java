@@ -0,0 +1,118 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+/**
+ * Provides {@link String}-like access to the dotted form of an ASCII class-name in class-file
+ * content, without decoding it. The hash is precomputed so the view can be used to lookup names in
+ * filters keyed by the {@link String} form. String constants can also be viewed, as-is.
+ *
+ * <p>Each {@link ClassBytes} re-uses a single view, so the view is only valid during the filter
+ * call and should never be retained.
+ */
+final class ClassNameView implements CharSequence {
+
+  private ClassBytes content;
+  private int start;
+  private int len;
+  private int hash;
+  private boolean dotted;
+
+  /**
+   * Points this view at the "modified-UTF8" class-name at the given offset.
+   *
+   * @param content the class-file content
+   * @param utfOffset the offset of the class-name
+   * @return {@code true} if the class-name is all ASCII; otherwise {@code false}
+   */
+  boolean reset(ClassBytes content, int utfOffset) {
+    return reset(content, utfOffset, true);
+  }
+
+  /**
+   * Points this view at the "modified-UTF8" content at the given offset.
+   *
+   * @param content the class-file content
+   * @param utfOffset the offset of the content
+   * @param dotted whether to view slashes as dots
+   * @return {@code true} if the content is all ASCII; otherwise {@code false}
+   */
+  boolean reset(ClassBytes content, int utfOffset, boolean dotted) {
+    int utfLen = content.u2(utfOffset);
+    int utfStart = utfOffset + 2;
+    int h = 0;
+    for (int u = utfStart, utfEnd = utfStart + utfLen; u < utfEnd; u++) {
+      int b = content.u1(u);
+      if (b < 0) {
+        return false; // non-ASCII byte, caller must decode the content
+      }
+      h = 31 * h + (dotted && b == '/' ? '.' : b);
+    }
+    this.content = content;
+    this.start = utfStart;
+    this.len = utfLen;
+    this.hash = h;
+    this.dotted = dotted;
+    return true;
+  }
+
+  /** Stops this view from retaining the class-file content. */
+  void clear() {
+    this.content = null;
+  }
+
+  @Override
+  public int length() {
+    return len;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= len) {
+      throw new StringIndexOutOfBoundsException(index);
+    }
+    int b = content.u1(start + index);
+    return (char) (dotted && b == '/' ? '.' : b);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return toString().subSequence(start, end);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof CharSequence) {
+      CharSequence cs = (CharSequence) o;
+      if (len != cs.length()) {
+        return false;
+      }
+      for (int i = 0; i < len; i++) {
+        if (charAt(i) != cs.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    char[] chars = new char[len];
+    for (int i = 0; i < len; i++) {
+      chars[i] = charAt(i);
+    }
+    return new String(chars);
+  }
+}
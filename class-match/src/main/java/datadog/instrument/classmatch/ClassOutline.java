@@ -6,9 +6,22 @@
 
 package datadog.instrument.classmatch;
 
+import static datadog.instrument.classmatch.ClassAttributes.NO_CLASSES;
+import static datadog.instrument.classmatch.ClassAttributes.NO_RECORD_COMPONENTS;
+import static datadog.instrument.classmatch.ClassFile.NO_METHODS;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import javax.annotation.Nullable;
 
-/** Outlines a class; access modifiers, immediate class hierarchy, field, methods, annotations. */
+/**
+ * Outlines a class; access modifiers, immediate class hierarchy, field, methods, annotations.
+ *
+ * <p>The generic signature, record components, permitted subclasses, nestmates, nesting details,
+ * and module descriptor are only available when the outline was parsed with a plan that needs
+ * them; lazy outlines decode them when they are first requested.
+ */
 public final class ClassOutline extends ClassHeader {
 
   /** Outlines of fields declared by this class. */
@@ -20,6 +33,21 @@ public final class ClassOutline extends ClassHeader {
   /** Internal names of annotations declared on this class. */
   public final String[] annotations;
 
+  /** Element values of interesting annotations, parallel to {@link #annotations}. */
+  private final AnnotationValues[] annotationValues;
+
+  /** Optional class attributes; {@code null} if the class-file has none, or they weren't parsed. */
+  @Nullable private final ClassAttributes attributes;
+
+  /** Internal names of interesting types referenced from the constant pool. */
+  private final String[] references;
+
+  /** Methods invoked on each referenced type, parallel to {@link #references}. */
+  private final MethodOutline[][] invocations;
+
+  /** Interesting string constants found in the constant pool. */
+  private final String[] constants;
+
   ClassOutline(
       int access,
       String className,
@@ -27,10 +55,203 @@ public final class ClassOutline extends ClassHeader {
       String[] interfaces,
       FieldOutline[] fields,
       MethodOutline[] methods,
-      String[] annotations) {
+      String[] annotations,
+      AnnotationValues[] annotationValues,
+      @Nullable ClassAttributes attributes,
+      String[] references,
+      MethodOutline[][] invocations,
+      String[] constants) {
     super(access, className, superName, interfaces);
     this.fields = fields;
     this.methods = methods;
     this.annotations = annotations;
+    this.annotationValues = annotationValues;
+    this.attributes = attributes;
+    this.references = references;
+    this.invocations = invocations;
+    this.constants = constants;
+  }
+
+  /**
+   * Returns the element values of the given annotation on this class.
+   *
+   * @param annotationType the annotation type in internal form
+   * @return element values; {@code null} if the annotation is not declared on this class, or its
+   *     values were not flagged as interesting
+   * @see ClassFile#annotationValuesOfInterest(String)
+   */
+  @Nullable
+  public AnnotationValues annotationValues(String annotationType) {
+    return AnnotationValues.find(annotations, annotationValues, annotationType);
+  }
+
+  /**
+   * Returns the internal names of interesting types referenced by this class.
+   *
+   * <p>References are found by comparing class constants in the constant pool against the types
+   * flagged as interesting, before the outline was parsed. This includes types used anywhere in the
+   * class, such as method call owners, field owners, casts, and the class hierarchy, but not types
+   * that only appear in descriptors or signatures.
+   *
+   * @return referenced types of interest; empty if there are none, or they weren't parsed
+   * @see ClassFile#referencesOfInterest(java.util.Collection)
+   */
+  public String[] references() {
+    return references;
+  }
+
+  /**
+   * Returns the methods this class invokes on the given type, outlined without access modifiers.
+   *
+   * <p>Invoked methods are resolved from the method references in the constant pool whose owner is
+   * an interesting type; see {@link #references()}. The owner is the type named at the call site,
+   * which may be a subtype of the type that declares the method.
+   *
+   * @param owner the owner of the invoked methods, in internal form
+   * @return invoked methods; empty if there are none, or they weren't parsed
+   */
+  public MethodOutline[] invokedMethods(String owner) {
+    for (int i = 0, len = invocations.length; i < len; i++) {
+      if (owner.equals(references[i])) {
+        return invocations[i];
+      }
+    }
+    return NO_METHODS;
+  }
+
+  /**
+   * Returns the interesting string constants contained in this class.
+   *
+   * <p>Constants are found by comparing string constants in the constant pool against the needles
+   * flagged as interesting before the outline was parsed, and the filters of its parse plan.
+   *
+   * @return string constants of interest; empty if there are none, or they weren't parsed
+   * @see ClassFile#constantsOfInterest(java.util.Collection)
+   * @see ParsePlan#withConstantFilter(java.util.function.Predicate)
+   */
+  public String[] constants() {
+    return constants;
+  }
+
+  /**
+   * Returns the generic signature of this class, such as {@code
+   * Ljava/lang/Object;Lcom/acme/Handler<Lcom/acme/HttpRequest;>;}
+   *
+   * @return generic signature; {@code null} if neither this class nor its super-types are generic
+   * @see SignatureMatcher
+   */
+  @Nullable
+  public String signature() {
+    return attributes != null ? attributes.signature() : null;
+  }
+
+  /**
+   * Returns the components of this record, outlined as fields without access modifiers.
+   *
+   * @return record components; empty if this class is not a record
+   */
+  public FieldOutline[] recordComponents() {
+    return attributes != null ? attributes.recordComponents() : NO_RECORD_COMPONENTS;
+  }
+
+  /**
+   * Returns the internal names of the subclasses permitted to extend this sealed class.
+   *
+   * @return permitted subclasses; empty if this class is not sealed
+   */
+  public String[] permittedSubclasses() {
+    return attributes != null ? attributes.permittedSubclasses() : NO_CLASSES;
+  }
+
+  /**
+   * Returns the internal name of the class that hosts the nest this class belongs to.
+   *
+   * @return nest host; {@code null} if this class is not a nest member
+   */
+  @Nullable
+  public String nestHost() {
+    return attributes != null ? attributes.nestHost() : null;
+  }
+
+  /**
+   * Returns the internal names of the classes in the nest hosted by this class.
+   *
+   * @return nest members; empty if this class is not a nest host
+   */
+  public String[] nestMembers() {
+    return attributes != null ? attributes.nestMembers() : NO_CLASSES;
+  }
+
+  /**
+   * Returns the outline of this module descriptor.
+   *
+   * @return module outline; {@code null} if this class-file is not a {@code module-info}
+   */
+  @Nullable
+  public ModuleOutline module() {
+    return attributes != null ? attributes.module() : null;
+  }
+
+  /**
+   * @return {@code true} if this class is nested inside another class, including local and
+   *     anonymous classes; otherwise {@code false}
+   */
+  public boolean isNested() {
+    return attributes != null && attributes.isNested();
+  }
+
+  /**
+   * @return {@code true} if this class is anonymous; otherwise {@code false}
+   */
+  public boolean isAnonymous() {
+    return attributes != null && attributes.isAnonymous();
+  }
+
+  /**
+   * Returns the internal name of the class that immediately encloses this class.
+   *
+   * @return enclosing class; {@code null} if this class is not nested
+   */
+  @Nullable
+  public String enclosingClass() {
+    return attributes != null ? attributes.enclosingClass() : null;
+  }
+
+  /**
+   * Returns the method that immediately encloses this local or anonymous class, outlined without
+   * access modifiers.
+   *
+   * @return enclosing method; {@code null} if this class is not declared inside a method
+   */
+  @Nullable
+  public MethodOutline enclosingMethod() {
+    return attributes != null ? attributes.enclosingMethod() : null;
+  }
+
+  /**
+   * Reads an outline from an external resource.
+   *
+   * <p>Outlines read back are fully decoded; they don't keep a reference to the original bytecode.
+   *
+   * @param in the serialized outline content
+   * @return deserialized class outline
+   * @throws IOException if the content cannot be read, or only contains a header
+   * @see ClassHeader#writeTo(java.io.DataOutput)
+   */
+  public static ClassOutline readFrom(DataInput in) throws IOException {
+    return (ClassOutline) OutlineCodec.read(in, true);
+  }
+
+  /**
+   * Reads an outline from a byte-buffer, such as a memory-mapped file.
+   *
+   * <p>Reading starts at the buffer's position, which is left just after the outline content.
+   *
+   * @param buffer the serialized outline content
+   * @return deserialized class outline
+   * @throws IOException if the content cannot be read, or only contains a header
+   */
+  public static ClassOutline readFrom(ByteBuffer buffer) throws IOException {
+    return (ClassOutline) OutlineCodec.read(new OutlineCodec.BufferInput(buffer), true);
   }
 }
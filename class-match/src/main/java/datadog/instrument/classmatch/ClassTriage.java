@@ -0,0 +1,116 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+/**
+ * Decodes the primitive descriptor returned by {@link ClassFile#triage(byte[])}.
+ *
+ * <p>The descriptor packs the access flags, major version, minor version, and constant pool count
+ * of a class-file into a single {@code long}, so triaging a class allocates nothing. Pipelines can
+ * use it to reject module descriptors, synthetic classes, annotations, or unsupported class-file
+ * versions before any names are decoded.
+ */
+public final class ClassTriage {
+
+  /** Descriptor returned for content that is not a well-formed class-file. */
+  public static final long NOT_A_CLASS = 0L;
+
+  private static final int ACC_INTERFACE = 0x0200;
+  private static final int ACC_SYNTHETIC = 0x1000;
+  private static final int ACC_ANNOTATION = 0x2000;
+  private static final int ACC_ENUM = 0x4000;
+  private static final int ACC_MODULE = 0x8000;
+
+  private ClassTriage() {}
+
+  /** Packs the given class-file details into a descriptor. */
+  static long pack(int access, int majorVersion, int minorVersion, int cpLen) {
+    return (long) cpLen << 48 | (long) minorVersion << 32 | (long) majorVersion << 16 | access;
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return {@code true} if the descriptor is for a well-formed class-file; otherwise {@code false}
+   */
+  public static boolean isClassFile(long triage) {
+    // real class-files always have a non-zero major version, so are never packed as zero
+    return triage != NOT_A_CLASS;
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return access flags of the class; zero if it's not a class-file
+   */
+  public static int access(long triage) {
+    return (int) triage & 0xFFFF;
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return major version of the class-file, such as {@code 52} for Java 8; zero if it's not a
+   *     class-file
+   */
+  public static int majorVersion(long triage) {
+    return (int) (triage >>> 16) & 0xFFFF;
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return minor version of the class-file, {@code 65535} when it uses preview features
+   */
+  public static int minorVersion(long triage) {
+    return (int) (triage >>> 32) & 0xFFFF;
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return number of entries in the constant pool, plus one; zero if it's not a class-file
+   */
+  public static int constantPoolCount(long triage) {
+    return (int) (triage >>> 48);
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return {@code true} if the class-file describes an interface; otherwise {@code false}
+   */
+  public static boolean isInterface(long triage) {
+    return (triage & ACC_INTERFACE) != 0;
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return {@code true} if the class was generated by the compiler; otherwise {@code false}
+   */
+  public static boolean isSynthetic(long triage) {
+    return (triage & ACC_SYNTHETIC) != 0;
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return {@code true} if the class-file describes an annotation; otherwise {@code false}
+   */
+  public static boolean isAnnotation(long triage) {
+    return (triage & ACC_ANNOTATION) != 0;
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return {@code true} if the class-file describes an enum; otherwise {@code false}
+   */
+  public static boolean isEnum(long triage) {
+    return (triage & ACC_ENUM) != 0;
+  }
+
+  /**
+   * @param triage the triage descriptor
+   * @return {@code true} if the class-file describes a module; otherwise {@code false}
+   */
+  public static boolean isModule(long triage) {
+    return (triage & ACC_MODULE) != 0;
+  }
+}
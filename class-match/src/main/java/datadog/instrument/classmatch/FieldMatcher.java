@@ -6,14 +6,32 @@
 
 package datadog.instrument.classmatch;
 
+import static datadog.instrument.classmatch.InternalMatchers.declaresAnnotation;
+import static datadog.instrument.classmatch.InternalMatchers.declaresAnnotationOneOf;
 import static datadog.instrument.classmatch.InternalMatchers.descriptor;
+import static datadog.instrument.classmatch.InternalMatchers.fieldAnnotationValues;
+import static datadog.instrument.classmatch.InternalMatchers.fieldAnnotations;
+import static datadog.instrument.classmatch.InternalMatchers.fieldNeeds;
+import static datadog.instrument.classmatch.InternalMatchers.fieldSections;
+import static datadog.instrument.classmatch.InternalMatchers.fieldSignature;
+import static java.util.Arrays.asList;
 
+import java.util.Collection;
 import java.util.function.Predicate;
 
 /** Fluent-API for building {@link FieldOutline} predicates. */
 @FunctionalInterface
 public interface FieldMatcher extends Predicate<FieldOutline> {
 
+  /**
+   * Matches all fields.
+   *
+   * @return matcher of all fields
+   */
+  static FieldMatcher field() {
+    return fieldNeeds(0, f -> true);
+  }
+
   /**
    * Matches fields with the given name.
    *
@@ -21,7 +39,7 @@ public interface FieldMatcher extends Predicate<FieldOutline> {
    * @return matcher of fields with the same name
    */
   static FieldMatcher field(String name) {
-    return f -> name.equals(f.fieldName);
+    return fieldNeeds(0, f -> name.equals(f.fieldName()));
   }
 
   /**
@@ -31,7 +49,7 @@ public interface FieldMatcher extends Predicate<FieldOutline> {
    * @return matcher of fields with a matching name
    */
   static FieldMatcher field(Predicate<String> nameMatcher) {
-    return f -> nameMatcher.test(f.fieldName);
+    return fieldNeeds(0, f -> nameMatcher.test(f.fieldName()));
   }
 
   /**
@@ -41,7 +59,7 @@ public interface FieldMatcher extends Predicate<FieldOutline> {
    * @return matcher of fields with matching access
    */
   default FieldMatcher access(AccessMatcher accessMatcher) {
-    return f -> test(f) && accessMatcher.test(f.access);
+    return fieldNeeds(fieldSections(this), f -> test(f) && accessMatcher.test(f.access));
   }
 
   /**
@@ -52,7 +70,7 @@ public interface FieldMatcher extends Predicate<FieldOutline> {
    */
   default FieldMatcher type(String type) {
     String descriptor = descriptor(type);
-    return f -> test(f) && descriptor.equals(f.descriptor);
+    return fieldNeeds(fieldSections(this), f -> test(f) && descriptor.equals(f.descriptor()));
   }
 
   /**
@@ -63,7 +81,7 @@ public interface FieldMatcher extends Predicate<FieldOutline> {
    */
   default FieldMatcher type(Class<?> type) {
     String descriptor = descriptor(type);
-    return f -> test(f) && descriptor.equals(f.descriptor);
+    return fieldNeeds(fieldSections(this), f -> test(f) && descriptor.equals(f.descriptor()));
   }
 
   /**
@@ -73,13 +91,67 @@ public interface FieldMatcher extends Predicate<FieldOutline> {
    * @return matcher of fields with a matching type
    */
   default FieldMatcher and(TypeMatcher typeMatcher) {
-    return f -> {
-      if (!test(f)) {
-        return false;
-      }
-      TypeString fieldType = f.typeString();
-      return fieldType != null && typeMatcher.test(fieldType);
-    };
+    return fieldNeeds(
+        fieldSections(this),
+        f -> {
+          if (!test(f)) {
+            return false;
+          }
+          TypeString fieldType = f.typeString();
+          return fieldType != null && typeMatcher.test(fieldType);
+        });
+  }
+
+  /**
+   * Matches fields with a generic signature matching the given criteria.
+   *
+   * @param signatureMatcher the field signature matcher
+   * @return matcher of fields with a matching signature
+   */
+  default FieldMatcher signature(SignatureMatcher signatureMatcher) {
+    return and(fieldSignature(signatureMatcher));
+  }
+
+  /**
+   * Matches fields annotated with the given type.
+   *
+   * @param annotationType the annotation type
+   * @return matcher of fields annotated with the type
+   */
+  default FieldMatcher annotatedWith(String annotationType) {
+    return and(fieldAnnotations(declaresAnnotation(annotationType)));
+  }
+
+  /**
+   * Matches fields annotated with one of the given types.
+   *
+   * @param annotationTypes the annotation types
+   * @return matcher of fields annotated with one of the types
+   */
+  default FieldMatcher annotatedWith(String... annotationTypes) {
+    return annotatedWith(asList(annotationTypes));
+  }
+
+  /**
+   * Matches fields annotated with one of the given types.
+   *
+   * @param annotationTypes the annotation types
+   * @return matcher of fields annotated with one of the types
+   */
+  default FieldMatcher annotatedWith(Collection<String> annotationTypes) {
+    return and(fieldAnnotations(declaresAnnotationOneOf(annotationTypes)));
+  }
+
+  /**
+   * Matches fields annotated with the given type, where the element values match the criteria.
+   *
+   * @param annotationType the annotation type
+   * @param valuesMatcher the element values matcher
+   * @return matcher of fields annotated with the type and matching values
+   */
+  default FieldMatcher annotatedWith(
+      String annotationType, Predicate<AnnotationValues> valuesMatcher) {
+    return and(fieldAnnotationValues(annotationType, valuesMatcher));
   }
 
   /**
@@ -90,7 +162,7 @@ public interface FieldMatcher extends Predicate<FieldOutline> {
    */
   default FieldMatcher and(FieldMatcher other) {
     // simple approach as we don't expect many field-matcher unions
-    return f -> test(f) && other.test(f);
+    return fieldNeeds(fieldSections(this) | fieldSections(other), f -> test(f) && other.test(f));
   }
 
   /**
@@ -101,6 +173,6 @@ public interface FieldMatcher extends Predicate<FieldOutline> {
    */
   default FieldMatcher or(FieldMatcher other) {
     // simple approach as we don't expect many field-matcher unions
-    return f -> test(f) || other.test(f);
+    return fieldNeeds(fieldSections(this) | fieldSections(other), f -> test(f) || other.test(f));
   }
 }
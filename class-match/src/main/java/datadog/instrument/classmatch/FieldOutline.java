@@ -8,7 +8,13 @@ package datadog.instrument.classmatch;
 
 import javax.annotation.Nullable;
 
-/** Outlines a field; access modifiers, field name, descriptor. */
+/**
+ * Outlines a field; access modifiers, field name, descriptor, annotations.
+ *
+ * <p>Lazy outlines only decode the field name, descriptor, annotations, and other details when they
+ * are first requested. Their public name, descriptor, and annotations fields are {@code null}; use
+ * the {@link #fieldName()}, {@link #descriptor()}, and {@link #annotations()} accessors.
+ */
 public final class FieldOutline {
 
   /**
@@ -19,16 +25,126 @@ public final class FieldOutline {
    */
   public final int access;
 
-  /** Name of this field. */
+  /** Name of this field; {@code null} for lazy outlines. */
   public final String fieldName;
 
-  /** Descriptor containing the raw field type. */
+  /** Descriptor containing the raw field type; {@code null} for lazy outlines. */
   public final String descriptor;
 
-  FieldOutline(int access, String fieldName, String descriptor) {
+  /** Internal names of annotations declared on this field; {@code null} for lazy outlines. */
+  public final String[] annotations;
+
+  /** Element values of interesting annotations; decoded on demand for lazy outlines. */
+  private volatile AnnotationValues[] annotationValues;
+
+  /** Generic signature of this field; decoded on demand for lazy outlines. */
+  private volatile String signature;
+
+  /** Where to find details of lazy outlines; {@code null} for eager outlines. */
+  private final LazyMember lazy;
+
+  FieldOutline(
+      int access,
+      String fieldName,
+      String descriptor,
+      String[] annotations,
+      AnnotationValues[] annotationValues,
+      @Nullable String signature) {
     this.access = access;
     this.fieldName = fieldName;
     this.descriptor = descriptor;
+    this.annotations = annotations;
+    this.annotationValues = annotationValues;
+    this.signature = signature;
+    this.lazy = null;
+  }
+
+  FieldOutline(
+      int access,
+      ClassBytes lazyContent,
+      int nameIndex,
+      int descriptorIndex,
+      int annotationsOffset,
+      int signatureIndex) {
+    this.access = access;
+    this.fieldName = null;
+    this.descriptor = null;
+    this.annotations = null;
+    this.lazy =
+        new LazyMember(
+            lazyContent, nameIndex, descriptorIndex, annotationsOffset, 0, signatureIndex);
+  }
+
+  /**
+   * @return name of this field
+   */
+  public String fieldName() {
+    String fieldName = this.fieldName;
+    if (fieldName == null) {
+      LazyMember lazy = this.lazy;
+      fieldName = lazy.name;
+      if (fieldName == null) {
+        lazy.name = fieldName = lazy.content.utfConstant(lazy.nameIndex);
+      }
+    }
+    return fieldName;
+  }
+
+  /**
+   * @return descriptor containing the raw field type
+   */
+  public String descriptor() {
+    String descriptor = this.descriptor;
+    if (descriptor == null) {
+      LazyMember lazy = this.lazy;
+      descriptor = lazy.descriptor;
+      if (descriptor == null) {
+        lazy.descriptor = descriptor = lazy.content.utfConstant(lazy.descriptorIndex);
+      }
+    }
+    return descriptor;
+  }
+
+  /**
+   * @return internal names of annotations declared on this field
+   */
+  public String[] annotations() {
+    String[] annotations = this.annotations;
+    return annotations != null ? annotations : lazy.annotations();
+  }
+
+  /**
+   * Returns the generic signature of this field, such as {@code
+   * Ljava/util/Map<Ljava/lang/String;Lcom/acme/Session;>;}
+   *
+   * @return generic signature; {@code null} if the field type is not generic
+   * @see SignatureMatcher
+   */
+  @Nullable
+  public String signature() {
+    String signature = this.signature;
+    if (signature == null && lazy != null && lazy.signatureIndex != 0) {
+      this.signature = signature = lazy.content.utfConstant(lazy.signatureIndex);
+    }
+    return signature;
+  }
+
+  /**
+   * Returns the element values of the given annotation on this field.
+   *
+   * @param annotationType the annotation type in internal form
+   * @return element values; {@code null} if the annotation is not declared on this field, or its
+   *     values were not flagged as interesting
+   * @see ClassFile#annotationValuesOfInterest(String)
+   */
+  @Nullable
+  public AnnotationValues annotationValues(String annotationType) {
+    AnnotationValues[] annotationValues = this.annotationValues;
+    if (annotationValues == null) {
+      this.annotationValues =
+          annotationValues = lazy.content.annotationValues(lazy.annotationsOffset, annotations());
+    }
+    return AnnotationValues.find(annotations(), annotationValues, annotationType);
   }
 
   // ----------------------------------------------------------------------------------------------
@@ -45,6 +161,7 @@ public final class FieldOutline {
    */
   @Nullable
   TypeString typeString() {
+    String descriptor = descriptor();
     if (descriptor.charAt(0) != 'L') {
       return null; // don't create type-strings for primitive/array types
     }
@@ -6,10 +6,23 @@
 
 package datadog.instrument.classmatch;
 
+import static datadog.instrument.classmatch.ParsePlan.ALL_SECTIONS;
+import static datadog.instrument.classmatch.ParsePlan.CODE;
+import static datadog.instrument.classmatch.ParsePlan.FIELD_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.FIELD_SECTIONS;
+import static datadog.instrument.classmatch.ParsePlan.METHOD_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.METHOD_SECTIONS;
+import static datadog.instrument.classmatch.ParsePlan.PARAMETER_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.SIGNATURES;
+import static java.util.Collections.emptyList;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 
 /** Internally shared matchers, not part of the public API. */
@@ -37,6 +50,13 @@ final class InternalMatchers {
     return annotations -> anyMatch(annotations, annotationNamedOneOf);
   }
 
+  /** Flags the annotation type, along with its element values, as interesting when parsing. */
+  static String annotationValuesOfInterest(String type) {
+    String internalName = internalName(type);
+    ClassFile.annotationValuesOfInterest(internalName);
+    return internalName;
+  }
+
   /**
    * Does the method's descriptor contain the parameter descriptor at the given index?
    *
@@ -46,7 +66,7 @@ final class InternalMatchers {
     // boundaries covers start of second parameter, to start of return descriptor
     int[] boundaries = method.descriptorBoundaries();
     return paramIndex < boundaries.length // ignore return descriptor boundary
-        && method.descriptor.startsWith(paramDescriptor, boundaries[paramIndex - 1]);
+        && method.descriptor().startsWith(paramDescriptor, boundaries[paramIndex - 1]);
   }
 
   /** Returns the descriptor for the given type. */
@@ -103,6 +123,84 @@ final class InternalMatchers {
     }
   }
 
+  /** Returns the start of the class type signature for the given type and type arguments. */
+  static String typeSignature(String rawType, String... typeArguments) {
+    StringBuilder buf = new StringBuilder().append('L').append(internalName(rawType));
+    if (typeArguments.length > 0) {
+      buf.append('<');
+      for (String typeArgument : typeArguments) {
+        if ("?".equals(typeArgument)) {
+          buf.append('*');
+        } else if (typeArgument.startsWith("? extends ")) {
+          buf.append('+').append(descriptor(typeArgument.substring(10)));
+        } else if (typeArgument.startsWith("? super ")) {
+          buf.append('-').append(descriptor(typeArgument.substring(8)));
+        } else {
+          buf.append(descriptor(typeArgument));
+        }
+      }
+      buf.append('>');
+    }
+    return buf.toString();
+  }
+
+  /** Does the generic signature mention the class type signature anywhere? */
+  static boolean mentionsTypeSignature(String signature, String typeSignature) {
+    int start = signature.indexOf(typeSignature);
+    while (start >= 0) {
+      // make sure we matched a whole type, not the tail or head of another name
+      if ((start == 0 || "(:;<>[+-^)".indexOf(signature.charAt(start - 1)) >= 0)
+          && endsTypeSignature(signature, start + typeSignature.length())) {
+        return true;
+      }
+      start = signature.indexOf(typeSignature, start + 1);
+    }
+    return false;
+  }
+
+  /** Is the class type signature one of the super-types in the generic class signature? */
+  static boolean hasSuperTypeSignature(String signature, String typeSignature) {
+    int len = signature.length();
+    int cursor = 0;
+    if (len > 0 && signature.charAt(0) == '<') {
+      cursor = skipTypeSignature(signature, 0, '>'); // skip formal type parameters
+    }
+    // remaining super-types are class type signatures, one after the other
+    while (cursor < len) {
+      if (signature.startsWith(typeSignature, cursor)
+          && endsTypeSignature(signature, cursor + typeSignature.length())) {
+        return true;
+      }
+      cursor = skipTypeSignature(signature, cursor, ';');
+    }
+    return false;
+  }
+
+  /** Skips nested type arguments until we reach the given terminator at the top-level. */
+  private static int skipTypeSignature(String signature, int cursor, char terminator) {
+    int depth = 0;
+    while (true) {
+      char c = signature.charAt(cursor++);
+      if (c == '<') {
+        depth++;
+      } else if (c == '>') {
+        depth--;
+      }
+      if (c == terminator && depth == 0) {
+        return cursor;
+      }
+    }
+  }
+
+  /** Does a class type signature end at this position, ignoring any type arguments? */
+  private static boolean endsTypeSignature(String signature, int end) {
+    if (end >= signature.length()) {
+      return false;
+    }
+    char c = signature.charAt(end);
+    return c == ';' || c == '<' || c == '.';
+  }
+
   /** Returns the internal form of the given type. */
   static String internalName(String type) {
     return type.replace('.', '/');
@@ -118,6 +216,206 @@ final class InternalMatchers {
     return false;
   }
 
+  /** Records the sections of the class-file needed by the given class matcher. */
+  static ClassMatcher needs(int sections, ClassMatcher matcher) {
+    return new PlannedClassMatcher(sections, emptyList(), matcher);
+  }
+
+  /** Records the sections and string constant filters needed by the given class matcher. */
+  static ClassMatcher needs(
+      int sections, List<Predicate<CharSequence>> constantFilters, ClassMatcher matcher) {
+    return new PlannedClassMatcher(sections, constantFilters, matcher);
+  }
+
+  /** Records the sections of the class-file needed by the given method matcher. */
+  static MethodMatcher methodNeeds(int sections, MethodMatcher matcher) {
+    return new PlannedMethodMatcher(sections, matcher);
+  }
+
+  /** Records the sections of the class-file needed by the given field matcher. */
+  static FieldMatcher fieldNeeds(int sections, FieldMatcher matcher) {
+    return new PlannedFieldMatcher(sections, matcher);
+  }
+
+  /** Returns the sections of the class-file needed by the given class matcher. */
+  static int classSections(ClassMatcher matcher) {
+    if (matcher instanceof PlannedClassMatcher) {
+      return ((PlannedClassMatcher) matcher).sections;
+    } else if (matcher instanceof MatcherUnion) {
+      int sections = 0;
+      for (Object m : ((MatcherUnion<?>) matcher).matchers) {
+        sections |= classSections((ClassMatcher) m);
+      }
+      return sections;
+    } else {
+      return ALL_SECTIONS; // custom matcher, assume it needs everything
+    }
+  }
+
+  /** Adds any string constant filters needed by the given class matcher to the list. */
+  static void constantFilters(ClassMatcher matcher, List<Predicate<CharSequence>> filters) {
+    if (matcher instanceof PlannedClassMatcher) {
+      for (Predicate<CharSequence> filter : ((PlannedClassMatcher) matcher).constantFilters) {
+        if (!filters.contains(filter)) {
+          filters.add(filter);
+        }
+      }
+    } else if (matcher instanceof MatcherUnion) {
+      for (Object m : ((MatcherUnion<?>) matcher).matchers) {
+        constantFilters((ClassMatcher) m, filters);
+      }
+    }
+  }
+
+  /** Returns the string constant filters needed by the given class matcher. */
+  static List<Predicate<CharSequence>> constantFilters(ClassMatcher matcher) {
+    List<Predicate<CharSequence>> filters = new ArrayList<>();
+    constantFilters(matcher, filters);
+    return filters.isEmpty() ? emptyList() : filters;
+  }
+
+  /** Returns the sections of the class-file needed by the given method matcher. */
+  static int methodSections(MethodMatcher matcher) {
+    if (matcher instanceof PlannedMethodMatcher) {
+      return ((PlannedMethodMatcher) matcher).sections;
+    } else if (matcher instanceof MatcherUnion) {
+      int sections = 0;
+      for (Object m : ((MatcherUnion<?>) matcher).matchers) {
+        sections |= methodSections((MethodMatcher) m);
+      }
+      return sections;
+    } else if (matcher == ALL_METHODS) {
+      return 0;
+    } else {
+      return METHOD_SECTIONS; // custom matcher, assume it needs everything about methods
+    }
+  }
+
+  /** Returns the sections of the class-file needed by the given field matcher. */
+  static int fieldSections(FieldMatcher matcher) {
+    if (matcher instanceof PlannedFieldMatcher) {
+      return ((PlannedFieldMatcher) matcher).sections;
+    } else {
+      return FIELD_SECTIONS; // custom matcher, assume it needs everything about fields
+    }
+  }
+
+  /** Matches fields annotated with types matching the given criteria. */
+  static FieldMatcher fieldAnnotations(Predicate<String[]> annotationMatcher) {
+    return fieldNeeds(FIELD_ANNOTATIONS, f -> annotationMatcher.test(f.annotations()));
+  }
+
+  /** Matches fields annotated with the given type, where the element values match the criteria. */
+  static FieldMatcher fieldAnnotationValues(
+      String type, Predicate<AnnotationValues> valuesMatcher) {
+    String internalName = annotationValuesOfInterest(type);
+    return fieldNeeds(
+        FIELD_ANNOTATIONS,
+        f -> {
+          AnnotationValues values = f.annotationValues(internalName);
+          return values != null && valuesMatcher.test(values);
+        });
+  }
+
+  /** Matches fields with generic signatures matching the given criteria. */
+  static FieldMatcher fieldSignature(SignatureMatcher signatureMatcher) {
+    return fieldNeeds(
+        SIGNATURES,
+        f -> {
+          String signature = f.signature();
+          return signature != null && signatureMatcher.test(signature);
+        });
+  }
+
+  /** Matches methods with bytecode lengths matching the given criteria. */
+  static MethodMatcher methodCodeLength(IntPredicate codeLengthMatcher) {
+    return methodNeeds(CODE, m -> codeLengthMatcher.test(m.codeLength()));
+  }
+
+  /** Matches methods with generic signatures matching the given criteria. */
+  static MethodMatcher methodSignature(SignatureMatcher signatureMatcher) {
+    return methodNeeds(
+        SIGNATURES,
+        m -> {
+          String signature = m.signature();
+          return signature != null && signatureMatcher.test(signature);
+        });
+  }
+
+  /** Matches methods annotated with types matching the given criteria. */
+  static MethodMatcher methodAnnotations(Predicate<String[]> annotationMatcher) {
+    return methodNeeds(METHOD_ANNOTATIONS, m -> annotationMatcher.test(m.annotations()));
+  }
+
+  /** Matches methods annotated with the given type, where the element values match the criteria. */
+  static MethodMatcher methodAnnotationValues(
+      String type, Predicate<AnnotationValues> valuesMatcher) {
+    String internalName = annotationValuesOfInterest(type);
+    return methodNeeds(
+        METHOD_ANNOTATIONS,
+        m -> {
+          AnnotationValues values = m.annotationValues(internalName);
+          return values != null && valuesMatcher.test(values);
+        });
+  }
+
+  /** Matches methods where the indexed parameter is annotated with types matching the criteria. */
+  static MethodMatcher parameterAnnotations(int paramIndex, Predicate<String[]> annotationMatcher) {
+    return methodNeeds(
+        PARAMETER_ANNOTATIONS, m -> annotationMatcher.test(m.parameterAnnotations(paramIndex)));
+  }
+
+  /** {@link ClassMatcher} that records which sections of the class-file it needs. */
+  static final class PlannedClassMatcher implements ClassMatcher {
+    final int sections;
+    final List<Predicate<CharSequence>> constantFilters;
+    private final ClassMatcher matcher;
+
+    PlannedClassMatcher(
+        int sections, List<Predicate<CharSequence>> constantFilters, ClassMatcher matcher) {
+      this.sections = sections;
+      this.constantFilters = constantFilters;
+      this.matcher = matcher;
+    }
+
+    @Override
+    public boolean test(ClassOutline outline) {
+      return matcher.test(outline);
+    }
+  }
+
+  /** {@link FieldMatcher} that records which sections of the class-file it needs. */
+  static final class PlannedFieldMatcher implements FieldMatcher {
+    final int sections;
+    private final FieldMatcher matcher;
+
+    PlannedFieldMatcher(int sections, FieldMatcher matcher) {
+      this.sections = sections;
+      this.matcher = matcher;
+    }
+
+    @Override
+    public boolean test(FieldOutline outline) {
+      return matcher.test(outline);
+    }
+  }
+
+  /** {@link MethodMatcher} that records which sections of the class-file it needs. */
+  static final class PlannedMethodMatcher implements MethodMatcher {
+    final int sections;
+    private final MethodMatcher matcher;
+
+    PlannedMethodMatcher(int sections, MethodMatcher matcher) {
+      this.sections = sections;
+      this.matcher = matcher;
+    }
+
+    @Override
+    public boolean test(MethodOutline outline) {
+      return matcher.test(outline);
+    }
+  }
+
   /** Optimized for {@link MethodMatcher#method()} to avoid unnecessary object creation. */
   static final MethodMatcher ALL_METHODS =
       new MethodMatcher() {
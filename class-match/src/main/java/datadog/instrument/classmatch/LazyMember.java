@@ -0,0 +1,62 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+/**
+ * Where to find the details of a lazily outlined field or method, along with those decoded so far.
+ *
+ * <p>Eager outlines don't need this, so they avoid the cost of tracking where each detail is.
+ */
+final class LazyMember {
+
+  /** Class-file content containing the member. */
+  final ClassBytes content;
+
+  /** CP index of the member name. */
+  final int nameIndex;
+
+  /** CP index of the member descriptor. */
+  final int descriptorIndex;
+
+  /** Offset of the runtime-visible annotations attribute; zero if there are none. */
+  final int annotationsOffset;
+
+  /** Offset of the runtime-visible parameter annotations attribute; zero if there are none. */
+  final int parameterAnnotationsOffset;
+
+  /** CP index of the generic signature; zero if there is none. */
+  final int signatureIndex;
+
+  // details decoded on demand
+  volatile String name;
+  volatile String descriptor;
+  volatile String[] annotations;
+
+  LazyMember(
+      ClassBytes content,
+      int nameIndex,
+      int descriptorIndex,
+      int annotationsOffset,
+      int parameterAnnotationsOffset,
+      int signatureIndex) {
+    this.content = content;
+    this.nameIndex = nameIndex;
+    this.descriptorIndex = descriptorIndex;
+    this.annotationsOffset = annotationsOffset;
+    this.parameterAnnotationsOffset = parameterAnnotationsOffset;
+    this.signatureIndex = signatureIndex;
+  }
+
+  /** Decodes the annotations on demand; shared by field and method outlines. */
+  String[] annotations() {
+    String[] annotations = this.annotations;
+    if (annotations == null) {
+      this.annotations = annotations = content.annotations(annotationsOffset);
+    }
+    return annotations;
+  }
+}
@@ -13,6 +13,12 @@ import static datadog.instrument.classmatch.InternalMatchers.declaresAnnotation;
 import static datadog.instrument.classmatch.InternalMatchers.declaresAnnotationOneOf;
 import static datadog.instrument.classmatch.InternalMatchers.descriptor;
 import static datadog.instrument.classmatch.InternalMatchers.hasParamDescriptor;
+import static datadog.instrument.classmatch.InternalMatchers.methodAnnotationValues;
+import static datadog.instrument.classmatch.InternalMatchers.methodAnnotations;
+import static datadog.instrument.classmatch.InternalMatchers.methodCodeLength;
+import static datadog.instrument.classmatch.InternalMatchers.methodNeeds;
+import static datadog.instrument.classmatch.InternalMatchers.methodSignature;
+import static datadog.instrument.classmatch.InternalMatchers.parameterAnnotations;
 import static java.util.Arrays.asList;
 
 import java.util.Collection;
@@ -38,7 +44,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    * @return matcher of methods with the same name
    */
   static MethodMatcher method(String name) {
-    return m -> name.equals(m.methodName);
+    return methodNeeds(0, m -> name.equals(m.methodName()));
   }
 
   /**
@@ -48,7 +54,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    * @return matcher of methods with a matching name
    */
   static MethodMatcher method(Predicate<String> nameMatcher) {
-    return m -> nameMatcher.test(m.methodName);
+    return methodNeeds(0, m -> nameMatcher.test(m.methodName()));
   }
 
   /**
@@ -57,7 +63,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    * @return matcher of constructor methods
    */
   static MethodMatcher constructor() {
-    return m -> CONSTRUCTOR.equals(m.methodName);
+    return methodNeeds(0, m -> CONSTRUCTOR.equals(m.methodName()));
   }
 
   /**
@@ -66,7 +72,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    * @return matcher of static-initializer methods
    */
   static MethodMatcher staticInitializer() {
-    return m -> STATIC_INITIALIZER.equals(m.methodName);
+    return methodNeeds(0, m -> STATIC_INITIALIZER.equals(m.methodName()));
   }
 
   /**
@@ -76,7 +82,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    * @return matcher of methods with matching access
    */
   default MethodMatcher access(AccessMatcher accessMatcher) {
-    return and(m -> accessMatcher.test(m.access));
+    return and(methodNeeds(0, m -> accessMatcher.test(m.access)));
   }
 
   /**
@@ -85,7 +91,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    * @return matcher of methods with no parameters
    */
   default MethodMatcher noParameters() {
-    return and(m -> m.descriptor.charAt(1) == ')');
+    return and(methodNeeds(0, m -> m.descriptor().charAt(1) == ')'));
   }
 
   /**
@@ -98,7 +104,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
     if (paramCount == 0) {
       return noParameters();
     } else {
-      return and(m -> m.parameterCount() == paramCount);
+      return and(methodNeeds(0, m -> m.parameterCount() == paramCount));
     }
   }
 
@@ -114,7 +120,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
       buf.append(descriptor(paramType));
     }
     String prefix = buf.append(')').toString();
-    return and(m -> m.descriptor.startsWith(prefix));
+    return and(methodNeeds(0, m -> m.descriptor().startsWith(prefix)));
   }
 
   /**
@@ -129,7 +135,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
       buf.append(descriptor(paramType));
     }
     String prefix = buf.append(')').toString();
-    return and(m -> m.descriptor.startsWith(prefix));
+    return and(methodNeeds(0, m -> m.descriptor().startsWith(prefix)));
   }
 
   /**
@@ -142,9 +148,9 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
   default MethodMatcher parameter(int paramIndex, String paramType) {
     String paramDescriptor = descriptor(paramType);
     if (paramIndex == 0) {
-      return and(m -> m.descriptor.startsWith(paramDescriptor, 1));
+      return and(methodNeeds(0, m -> m.descriptor().startsWith(paramDescriptor, 1)));
     } else {
-      return and(m -> hasParamDescriptor(m, paramIndex, paramDescriptor));
+      return and(methodNeeds(0, m -> hasParamDescriptor(m, paramIndex, paramDescriptor)));
     }
   }
 
@@ -158,9 +164,9 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
   default MethodMatcher parameter(int paramIndex, Class<?> paramType) {
     String paramDescriptor = descriptor(paramType);
     if (paramIndex == 0) {
-      return and(m -> m.descriptor.startsWith(paramDescriptor, 1));
+      return and(methodNeeds(0, m -> m.descriptor().startsWith(paramDescriptor, 1)));
     } else {
-      return and(m -> hasParamDescriptor(m, paramIndex, paramDescriptor));
+      return and(methodNeeds(0, m -> hasParamDescriptor(m, paramIndex, paramDescriptor)));
     }
   }
 
@@ -173,10 +179,12 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    */
   default MethodMatcher parameter(int paramIndex, TypeMatcher typeMatcher) {
     return and(
-        m -> {
-          TypeString paramType = m.parameterTypeString(paramIndex);
-          return paramType != null && typeMatcher.test(paramType);
-        });
+        methodNeeds(
+            0,
+            m -> {
+              TypeString paramType = m.parameterTypeString(paramIndex);
+              return paramType != null && typeMatcher.test(paramType);
+            }));
   }
 
   /**
@@ -187,7 +195,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    */
   default MethodMatcher returning(String returnType) {
     String returnDescriptor = descriptor(returnType);
-    return and(m -> m.descriptor.endsWith(returnDescriptor));
+    return and(methodNeeds(0, m -> m.descriptor().endsWith(returnDescriptor)));
   }
 
   /**
@@ -198,7 +206,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    */
   default MethodMatcher returning(Class<?> returnType) {
     String returnDescriptor = descriptor(returnType);
-    return and(m -> m.descriptor.endsWith(returnDescriptor));
+    return and(methodNeeds(0, m -> m.descriptor().endsWith(returnDescriptor)));
   }
 
   /**
@@ -209,10 +217,46 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    */
   default MethodMatcher returning(TypeMatcher typeMatcher) {
     return and(
-        m -> {
-          TypeString returnType = m.returnTypeString();
-          return returnType != null && typeMatcher.test(returnType);
-        });
+        methodNeeds(
+            0,
+            m -> {
+              TypeString returnType = m.returnTypeString();
+              return returnType != null && typeMatcher.test(returnType);
+            }));
+  }
+
+  /**
+   * Matches methods whose bytecode is at most the given length; methods without code also match.
+   *
+   * <p>Example: {@code codeSizeAtMost(60000)} to avoid methods close to the 64KB code limit.
+   *
+   * @param maxCodeLength the maximum bytecode length
+   * @return matcher of methods with smaller or equal bytecode
+   */
+  default MethodMatcher codeSizeAtMost(int maxCodeLength) {
+    return and(methodCodeLength(len -> len <= maxCodeLength));
+  }
+
+  /**
+   * Matches methods whose bytecode is at least the given length.
+   *
+   * <p>Example: {@code codeSizeAtLeast(8)} to skip trivial getters and setters.
+   *
+   * @param minCodeLength the minimum bytecode length
+   * @return matcher of methods with larger or equal bytecode
+   */
+  default MethodMatcher codeSizeAtLeast(int minCodeLength) {
+    return and(methodCodeLength(len -> len >= minCodeLength));
+  }
+
+  /**
+   * Matches methods with a generic signature matching the given criteria.
+   *
+   * @param signatureMatcher the method signature matcher
+   * @return matcher of methods with a matching signature
+   */
+  default MethodMatcher signature(SignatureMatcher signatureMatcher) {
+    return and(methodSignature(signatureMatcher));
   }
 
   /**
@@ -222,8 +266,7 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    * @return matcher of methods annotated with the same type
    */
   default MethodMatcher annotatedWith(String annotationType) {
-    Predicate<String[]> annotationMatcher = declaresAnnotation(annotationType);
-    return and(m -> annotationMatcher.test(m.annotations));
+    return and(methodAnnotations(declaresAnnotation(annotationType)));
   }
 
   /**
@@ -243,8 +286,52 @@ public interface MethodMatcher extends Predicate<MethodOutline> {
    * @return matcher of methods annotated with one of the types
    */
   default MethodMatcher annotatedWith(Collection<String> annotationTypes) {
-    Predicate<String[]> annotationMatcher = declaresAnnotationOneOf(annotationTypes);
-    return and(m -> annotationMatcher.test(m.annotations));
+    return and(methodAnnotations(declaresAnnotationOneOf(annotationTypes)));
+  }
+
+  /**
+   * Matches methods annotated with the given type, where the element values match the criteria.
+   *
+   * @param annotationType the annotation type
+   * @param valuesMatcher the element values matcher
+   * @return matcher of methods annotated with the type and matching values
+   */
+  default MethodMatcher annotatedWith(
+      String annotationType, Predicate<AnnotationValues> valuesMatcher) {
+    return and(methodAnnotationValues(annotationType, valuesMatcher));
+  }
+
+  /**
+   * Matches methods where the indexed parameter is annotated with the given type.
+   *
+   * @param paramIndex the parameter index
+   * @param annotationType the annotation type
+   * @return matcher of methods with the parameter annotated with the type
+   */
+  default MethodMatcher parameterAnnotatedWith(int paramIndex, String annotationType) {
+    return and(parameterAnnotations(paramIndex, declaresAnnotation(annotationType)));
+  }
+
+  /**
+   * Matches methods where the indexed parameter is annotated with one of the given types.
+   *
+   * @param paramIndex the parameter index
+   * @param annotationTypes the annotation types
+   * @return matcher of methods with the parameter annotated with one of the types
+   */
+  default MethodMatcher parameterAnnotatedWith(int paramIndex, String... annotationTypes) {
+    return parameterAnnotatedWith(paramIndex, asList(annotationTypes));
+  }
+
+  /**
+   * Matches methods where the indexed parameter is annotated with one of the given types.
+   *
+   * @param paramIndex the parameter index
+   * @param annotationTypes the annotation types
+   * @return matcher of methods with the parameter annotated with one of the types
+   */
+  default MethodMatcher parameterAnnotatedWith(int paramIndex, Collection<String> annotationTypes) {
+    return and(parameterAnnotations(paramIndex, declaresAnnotationOneOf(annotationTypes)));
   }
 
   /**
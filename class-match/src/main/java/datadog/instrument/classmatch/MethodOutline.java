@@ -9,9 +9,17 @@ package datadog.instrument.classmatch;
 import java.util.BitSet;
 import javax.annotation.Nullable;
 
-/** Outlines a method; access modifiers, method name, descriptor, annotations. */
+/**
+ * Outlines a method; access modifiers, method name, descriptor, annotations.
+ *
+ * <p>Lazy outlines only decode the method name, descriptor, annotations, and other details when
+ * they are first requested. Their public name, descriptor, and annotations fields are {@code null};
+ * use the {@link #methodName()}, {@link #descriptor()}, and {@link #annotations()} accessors.
+ */
 public final class MethodOutline {
 
+  private static final String[] NO_ANNOTATIONS = {};
+
   /**
    * Access modifiers for this method.
    *
@@ -20,20 +28,259 @@ public final class MethodOutline {
    */
   public final int access;
 
-  /** Name of this method. */
+  /** Name of this method; {@code null} for lazy outlines. */
   public final String methodName;
 
-  /** Descriptor containing the raw parameter types and return type. */
+  /** Descriptor with the raw parameter types and return type; {@code null} for lazy outlines. */
   public final String descriptor;
 
-  /** Internal names of annotations declared on this method. */
+  /** Internal names of annotations declared on this method; {@code null} for lazy outlines. */
   public final String[] annotations;
 
-  MethodOutline(int access, String methodName, String descriptor, String[] annotations) {
+  /** Annotations declared on each parameter; parsed on demand for lazy outlines. */
+  private volatile String[][] parameterAnnotations;
+
+  /** Element values of interesting annotations; decoded on demand for lazy outlines. */
+  private volatile AnnotationValues[] annotationValues;
+
+  /** Generic signature of this method; decoded on demand for lazy outlines. */
+  private volatile String signature;
+
+  /** Where to find details of lazy outlines; {@code null} for eager outlines. */
+  private final LazyMember lazy;
+
+  /** Length of the method's bytecode; zero if it has no code, or code metrics weren't parsed. */
+  private final int codeLength;
+
+  /** Max stack (high 16 bits) and max locals (low 16 bits) needed by the method's bytecode. */
+  private final int codeLimits;
+
+  /** Number of entries in the method's exception-handler table. */
+  private final int handlerCount;
+
+  MethodOutline(
+      int access,
+      String methodName,
+      String descriptor,
+      String[] annotations,
+      AnnotationValues[] annotationValues,
+      String[][] parameterAnnotations,
+      @Nullable String signature) {
+    this(
+        access,
+        methodName,
+        descriptor,
+        annotations,
+        annotationValues,
+        parameterAnnotations,
+        signature,
+        0,
+        0,
+        0);
+  }
+
+  MethodOutline(
+      int access,
+      String methodName,
+      String descriptor,
+      String[] annotations,
+      AnnotationValues[] annotationValues,
+      String[][] parameterAnnotations,
+      @Nullable String signature,
+      int codeLength,
+      int codeLimits,
+      int handlerCount) {
     this.access = access;
     this.methodName = methodName;
     this.descriptor = descriptor;
     this.annotations = annotations;
+    this.annotationValues = annotationValues;
+    this.parameterAnnotations = parameterAnnotations;
+    this.signature = signature;
+    this.lazy = null;
+    this.codeLength = codeLength;
+    this.codeLimits = codeLimits;
+    this.handlerCount = handlerCount;
+  }
+
+  MethodOutline(
+      int access,
+      ClassBytes lazyContent,
+      int nameIndex,
+      int descriptorIndex,
+      int annotationsOffset,
+      int parameterAnnotationsOffset,
+      int signatureIndex) {
+    this(
+        access,
+        lazyContent,
+        nameIndex,
+        descriptorIndex,
+        annotationsOffset,
+        parameterAnnotationsOffset,
+        signatureIndex,
+        0,
+        0,
+        0);
+  }
+
+  MethodOutline(
+      int access,
+      ClassBytes lazyContent,
+      int nameIndex,
+      int descriptorIndex,
+      int annotationsOffset,
+      int parameterAnnotationsOffset,
+      int signatureIndex,
+      int codeLength,
+      int codeLimits,
+      int handlerCount) {
+    this.access = access;
+    this.methodName = null;
+    this.descriptor = null;
+    this.annotations = null;
+    this.lazy =
+        new LazyMember(
+            lazyContent,
+            nameIndex,
+            descriptorIndex,
+            annotationsOffset,
+            parameterAnnotationsOffset,
+            signatureIndex);
+    this.codeLength = codeLength;
+    this.codeLimits = codeLimits;
+    this.handlerCount = handlerCount;
+  }
+
+  /**
+   * @return name of this method
+   */
+  public String methodName() {
+    String methodName = this.methodName;
+    if (methodName == null) {
+      LazyMember lazy = this.lazy;
+      methodName = lazy.name;
+      if (methodName == null) {
+        lazy.name = methodName = lazy.content.methodName(lazy.nameIndex);
+      }
+    }
+    return methodName;
+  }
+
+  /**
+   * @return descriptor containing the raw parameter types and return type
+   */
+  public String descriptor() {
+    String descriptor = this.descriptor;
+    if (descriptor == null) {
+      LazyMember lazy = this.lazy;
+      descriptor = lazy.descriptor;
+      if (descriptor == null) {
+        lazy.descriptor = descriptor = lazy.content.methodDescriptor(lazy.descriptorIndex);
+      }
+    }
+    return descriptor;
+  }
+
+  /**
+   * @return internal names of annotations declared on this method
+   */
+  public String[] annotations() {
+    String[] annotations = this.annotations;
+    return annotations != null ? annotations : lazy.annotations();
+  }
+
+  /**
+   * Returns the generic signature of this method, such as {@code
+   * <T:Ljava/lang/Object;>(Ljava/util/List<TT;>;)TT;}
+   *
+   * @return generic signature; {@code null} if the method is not generic
+   * @see SignatureMatcher
+   */
+  @Nullable
+  public String signature() {
+    String signature = this.signature;
+    if (signature == null && lazy != null && lazy.signatureIndex != 0) {
+      this.signature = signature = lazy.content.utfConstant(lazy.signatureIndex);
+    }
+    return signature;
+  }
+
+  /**
+   * Returns the element values of the given annotation on this method.
+   *
+   * @param annotationType the annotation type in internal form
+   * @return element values; {@code null} if the annotation is not declared on this method, or its
+   *     values were not flagged as interesting
+   * @see ClassFile#annotationValuesOfInterest(String)
+   */
+  @Nullable
+  public AnnotationValues annotationValues(String annotationType) {
+    AnnotationValues[] annotationValues = this.annotationValues;
+    if (annotationValues == null) {
+      this.annotationValues =
+          annotationValues = lazy.content.annotationValues(lazy.annotationsOffset, annotations());
+    }
+    return AnnotationValues.find(annotations(), annotationValues, annotationType);
+  }
+
+  /**
+   * Returns the annotations declared on the indexed parameter.
+   *
+   * <p>Parameters are indexed as they appear in the source, which may not match the descriptor for
+   * methods with synthetic parameters, such as inner-class constructors.
+   *
+   * @param paramIndex the parameter index
+   * @return internal names of annotations declared on the parameter
+   */
+  public String[] parameterAnnotations(int paramIndex) {
+    String[][] parameterAnnotations = parameterAnnotations();
+    // table is empty when no parameters have annotations of interest
+    if (paramIndex >= 0 && paramIndex < parameterAnnotations.length) {
+      return parameterAnnotations[paramIndex];
+    }
+    return NO_ANNOTATIONS;
+  }
+
+  /**
+   * @return length of this method's bytecode; zero if it has no code, or it wasn't parsed
+   */
+  public int codeLength() {
+    return codeLength;
+  }
+
+  /**
+   * @return maximum depth of this method's operand stack; zero if it has no code, or it wasn't
+   *     parsed
+   */
+  public int maxStack() {
+    return codeLimits >>> 16;
+  }
+
+  /**
+   * @return maximum number of local variables, including parameters; zero if it has no code, or it
+   *     wasn't parsed
+   */
+  public int maxLocals() {
+    return codeLimits & 0xFFFF;
+  }
+
+  /**
+   * @return number of exception handlers in this method; zero if it has no code, or it wasn't
+   *     parsed
+   */
+  public int handlerCount() {
+    return handlerCount;
+  }
+
+  /** Returns the table of parameter annotations; empty if no parameters have annotations. */
+  String[][] parameterAnnotations() {
+    String[][] parameterAnnotations = this.parameterAnnotations;
+    if (parameterAnnotations == null) {
+      this.parameterAnnotations =
+          parameterAnnotations = lazy.content.parameterAnnotations(lazy.parameterAnnotationsOffset);
+    }
+    return parameterAnnotations;
   }
 
   // ----------------------------------------------------------------------------------------------
@@ -67,6 +314,7 @@ public final class MethodOutline {
     if (paramIndex >= boundaries.length) {
       return null; // method doesn't have enough parameters to match
     }
+    String descriptor = descriptor();
     // earliest potential param type can be found at index 2 "(L...;"
     int start = paramIndex == 0 ? 2 : boundaries[paramIndex - 1] + 1;
     if (descriptor.charAt(start - 1) != 'L') {
@@ -85,6 +333,7 @@ public final class MethodOutline {
   TypeString returnTypeString() {
     int[] boundaries = descriptorBoundaries();
     int returnIndex = boundaries.length;
+    String descriptor = descriptor();
     // earliest potential return type can be found at index 3 "()L...;"
     int start = returnIndex == 0 ? 3 : boundaries[returnIndex - 1] + 1;
     if (descriptor.charAt(start - 1) != 'L') {
@@ -102,7 +351,7 @@ public final class MethodOutline {
     }
     int hash = typeStringHashes[typeStringIndex];
     if (hash == 0) {
-      typeStringHashes[typeStringIndex] = hash = TypeString.computeHash(descriptor, start, end);
+      typeStringHashes[typeStringIndex] = hash = TypeString.computeHash(descriptor(), start, end);
     }
     return hash;
   }
@@ -117,7 +366,7 @@ public final class MethodOutline {
    */
   int[] descriptorBoundaries() {
     if (descriptorBoundaries == null) {
-      descriptorBoundaries = parseBoundaries(descriptor);
+      descriptorBoundaries = parseBoundaries(descriptor());
     }
     return descriptorBoundaries;
   }
@@ -0,0 +1,192 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import javax.annotation.Nullable;
+
+/**
+ * Outlines a module descriptor; module name, dependencies, exported and opened packages, used and
+ * provided services.
+ *
+ * <p>Module names are in their usual dotted form, such as {@code "java.base"}. Package names and
+ * service types are in internal form, such as {@code "java/lang"} and {@code
+ * "java/sql/Driver"}.
+ *
+ * @see ClassOutline#module()
+ */
+public final class ModuleOutline {
+
+  static final Requires[] NO_REQUIRES = {};
+  static final Exports[] NO_EXPORTS = {};
+  static final Provides[] NO_PROVIDES = {};
+  static final String[] NO_NAMES = {};
+
+  // module flag that opens every package in the module
+  private static final int ACC_OPEN = 0x0020;
+
+  /**
+   * Module flags; {@code ACC_OPEN}, {@code ACC_SYNTHETIC}, {@code ACC_MANDATED}.
+   *
+   * @see <a href="https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-4.html#jvms-4.7.25">
+   *     Expected values</a>
+   */
+  public final int access;
+
+  /** Name of this module. */
+  public final String moduleName;
+
+  /** Version of this module; {@code null} if it has no version. */
+  @Nullable public final String version;
+
+  /** Modules this module depends on. */
+  public final Requires[] requires;
+
+  /** Packages exported by this module. */
+  public final Exports[] exports;
+
+  /** Packages opened by this module for deep reflection. */
+  public final Exports[] opens;
+
+  /** Internal names of the services used by this module. */
+  public final String[] uses;
+
+  /** Services provided by this module. */
+  public final Provides[] provides;
+
+  ModuleOutline(
+      int access,
+      String moduleName,
+      @Nullable String version,
+      Requires[] requires,
+      Exports[] exports,
+      Exports[] opens,
+      String[] uses,
+      Provides[] provides) {
+    this.access = access;
+    this.moduleName = moduleName;
+    this.version = version;
+    this.requires = requires;
+    this.exports = exports;
+    this.opens = opens;
+    this.uses = uses;
+    this.provides = provides;
+  }
+
+  /**
+   * @return {@code true} if this module opens all its packages; otherwise {@code false}
+   */
+  public boolean isOpen() {
+    return (access & ACC_OPEN) != 0;
+  }
+
+  /**
+   * Does this module depend on the given module?
+   *
+   * @param moduleName the name of the module
+   * @return {@code true} if this module requires the given module; otherwise {@code false}
+   */
+  public boolean requires(String moduleName) {
+    for (Requires r : requires) {
+      if (r.moduleName.equals(moduleName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Does this module export the given package to the given module?
+   *
+   * @param packageName the package in internal form
+   * @param moduleName the name of the module reading the package
+   * @return {@code true} if the package is exported to the module; otherwise {@code false}
+   */
+  public boolean exports(String packageName, String moduleName) {
+    return Exports.find(exports, packageName, moduleName);
+  }
+
+  /**
+   * Does this module open the given package to the given module for deep reflection?
+   *
+   * @param packageName the package in internal form
+   * @param moduleName the name of the module reflecting on the package
+   * @return {@code true} if the package is opened to the module; otherwise {@code false}
+   */
+  public boolean opens(String packageName, String moduleName) {
+    return isOpen() || Exports.find(opens, packageName, moduleName);
+  }
+
+  /** Dependency on another module. */
+  public static final class Requires {
+
+    /** Dependency flags; {@code ACC_TRANSITIVE}, {@code ACC_STATIC_PHASE}, etc. */
+    public final int access;
+
+    /** Name of the module being depended on. */
+    public final String moduleName;
+
+    /** Version of the module at compile-time; {@code null} if it wasn't recorded. */
+    @Nullable public final String version;
+
+    Requires(int access, String moduleName, @Nullable String version) {
+      this.access = access;
+      this.moduleName = moduleName;
+      this.version = version;
+    }
+  }
+
+  /** Package exported or opened by a module, either to all modules or only to specific ones. */
+  public static final class Exports {
+
+    /** Export flags; {@code ACC_SYNTHETIC}, {@code ACC_MANDATED}. */
+    public final int access;
+
+    /** Internal name of the package. */
+    public final String packageName;
+
+    /** Names of the modules the package is exported or opened to; empty if it's unqualified. */
+    public final String[] toModules;
+
+    Exports(int access, String packageName, String[] toModules) {
+      this.access = access;
+      this.packageName = packageName;
+      this.toModules = toModules;
+    }
+
+    /** Returns {@code true} if the package is exported or opened to the given module. */
+    static boolean find(Exports[] exports, String packageName, String moduleName) {
+      for (Exports e : exports) {
+        if (e.packageName.equals(packageName)) {
+          if (e.toModules.length == 0) {
+            return true;
+          }
+          for (String m : e.toModules) {
+            if (m.equals(moduleName)) {
+              return true;
+            }
+          }
+        }
+      }
+      return false;
+    }
+  }
+
+  /** Service implementations provided by a module. */
+  public static final class Provides {
+
+    /** Internal name of the service type. */
+    public final String service;
+
+    /** Internal names of the implementations of the service. */
+    public final String[] implementations;
+
+    Provides(String service, String[] implementations) {
+      this.service = service;
+      this.implementations = implementations;
+    }
+  }
+}
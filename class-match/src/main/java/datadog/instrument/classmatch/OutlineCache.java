@@ -0,0 +1,286 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import static datadog.instrument.classmatch.ParsePlan.FULL_PLAN;
+
+import datadog.instrument.classmatch.ClassBytes.ArrayBytes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Bounded cache of class outlines and match results, indexed by a hash of the class-file content.
+ *
+ * <p>Application servers often define the same library classes in many class-loaders, and
+ * retransformation presents the same bytes again. Identical content is only parsed once, and each
+ * matcher is only evaluated once against the cached outline, no matter which class-loader is
+ * defining the class.
+ *
+ * <p>Content is identified by its length, a 64-bit hash seeded randomly for each JVM, and the name
+ * of the class, without retaining the rest of the bytes. Match results are cached for the first 32
+ * matchers used with the cache; any others are evaluated every time. When the cache is full the
+ * least-recently-used outlines are evicted.
+ *
+ * <p>Outlines depend on the annotations, references, and constants of interest at the time they
+ * were parsed. Clear the cache after changing them, so outlines are parsed again.
+ */
+public final class OutlineCache {
+
+  private static final int MAX_CAPACITY = 1 << 20;
+  private static final int MIN_CAPACITY = 1 << 4;
+  private static final int MAX_HASH_ATTEMPTS = 10;
+
+  // each outline records match results for this many matchers, in a single long
+  private static final int MAX_CACHED_MATCHERS = 32;
+
+  private static final ClassMatcher[] NO_MATCHERS = {};
+
+  // random seed, so colliding content can't be crafted ahead of time
+  private static final long CONTENT_SEED = ThreadLocalRandom.current().nextLong();
+
+  // monotonic counter; cheap way to track aging as outlines are cached
+  private final AtomicInteger ticks = new AtomicInteger(Integer.MIN_VALUE);
+
+  // fixed-size hashtable of cached outlines, indexed by content hash
+  private final CachedOutline[] cached;
+  private final int slotMask;
+
+  private final ParsePlan plan;
+
+  private final Object matchersLock = new Object();
+  private volatile ClassMatcher[] matchers = NO_MATCHERS;
+
+  /**
+   * Creates a new outline cache with the given capacity, that parses complete outlines.
+   *
+   * @param capacity the cache capacity
+   */
+  public OutlineCache(int capacity) {
+    this(capacity, FULL_PLAN);
+  }
+
+  /**
+   * Creates a new outline cache with the given capacity, that parses outlines using the plan.
+   *
+   * @param capacity the cache capacity
+   * @param plan the sections of the class-file to parse
+   */
+  public OutlineCache(int capacity, ParsePlan plan) {
+    if (capacity < MIN_CAPACITY) {
+      capacity = MIN_CAPACITY;
+    } else if (capacity > MAX_CAPACITY) {
+      capacity = MAX_CAPACITY;
+    }
+    // choose enough slot bits to cover the given capacity
+    this.slotMask = -1 >>> Integer.numberOfLeadingZeros(capacity - 1);
+    this.cached = new CachedOutline[slotMask + 1];
+    this.plan = plan;
+  }
+
+  /**
+   * Returns the outline for the given class-file content, parsing it if it's not yet cached.
+   *
+   * @param bytecode the class-file content
+   * @return class outline shared by all classes with the same content; {@code null} if the
+   *     class-name was rejected by the plan's class-name filter
+   */
+  @Nullable
+  public ClassOutline outline(byte[] bytecode) {
+    return lookup(bytecode).outline;
+  }
+
+  /**
+   * Tests the class-file content against the given matcher, reusing any previous result.
+   *
+   * <p>Results are only reused for the same matcher instance; create matchers up-front and share
+   * them rather than building new ones for each class.
+   *
+   * @param bytecode the class-file content
+   * @param matcher the class matcher
+   * @return {@code true} if the class outline matches; otherwise {@code false}
+   * @throws IllegalArgumentException if the matcher needs sections or constant filters that are not
+   *     covered by the cache's plan
+   */
+  public boolean matches(byte[] bytecode, ClassMatcher matcher) {
+    int index = matcherIndex(matcher);
+    CachedOutline entry = lookup(bytecode);
+    if (entry.outline == null) {
+      return false; // class-name was rejected by the plan
+    }
+    if (index < 0) {
+      return matcher.test(entry.outline); // no room to cache this matcher's results
+    }
+    long evaluatedBit = 1L << (index + MAX_CACHED_MATCHERS);
+    long matchedBit = 1L << index;
+    long results = entry.matchResults;
+    if ((results & evaluatedBit) != 0) {
+      return (results & matchedBit) != 0;
+    }
+    boolean matched = matcher.test(entry.outline);
+    // racing updates may lose a result, which only means the matcher is evaluated again later
+    entry.matchResults = entry.matchResults | evaluatedBit | (matched ? matchedBit : 0);
+    return matched;
+  }
+
+  /** Removes all outlines and match results from the cache. */
+  public void clear() {
+    Arrays.fill(cached, null);
+  }
+
+  /** Finds the cached outline for the given content; parses and caches it if it's missing. */
+  private CachedOutline lookup(byte[] bytecode) {
+    final ArrayBytes content = ArrayBytes.of(bytecode);
+    final long contentHash = content.contentHash(0, bytecode.length, CONTENT_SEED);
+    final int contentLength = bytecode.length;
+    final int hash = (int) (contentHash ^ contentHash >>> 32);
+    final CachedOutline[] cached = this.cached;
+    final int slotMask = this.slotMask;
+
+    int oldestTick = Integer.MAX_VALUE;
+    int oldestSlot = -1;
+
+    // search by repeated hashing; stop when we find an empty slot,
+    // a matching slot, or we exhaust all attempts and re-use a slot
+    int slot;
+    for (int i = 1, h = hash; true; i++, h = rehash(h)) {
+      slot = slotMask & h;
+      CachedOutline existing = cached[slot];
+      if (existing == null) {
+        break; // empty slot, content has not been cached
+      }
+      if (existing.contentHash == contentHash
+          && existing.contentLength == contentLength
+          && content.utfEquals(existing.classNameOffset, existing.classNameBytes)) {
+        return access(existing);
+      }
+      int tick = existing.accessed;
+      if (i < MAX_HASH_ATTEMPTS) {
+        // still more slots to search
+        if (tick < oldestTick) {
+          // record least-recently-used slot for re-use later
+          oldestTick = tick;
+          oldestSlot = slot;
+        }
+        continue; // rehash and try again
+      }
+      // exhausted attempts, pick best slot to re-use
+      if (oldestSlot >= 0 && oldestTick <= tick) {
+        slot = oldestSlot; // re-use least-recently-used slot
+      }
+      break;
+    }
+
+    ClassOutline outline = ClassFile.outline(bytecode, plan);
+    // content was parsed successfully, so the class-name can be found
+    int classNameOffset = ClassBytes.classNameOffset(bytecode);
+    CachedOutline update =
+        new CachedOutline(
+            contentHash,
+            contentLength,
+            classNameOffset,
+            content.utfBytes(classNameOffset),
+            outline);
+    cached[slot] = update;
+    // increment ticks whenever an outline is cached
+    // avoid incrementing it in 'access' for performance reasons
+    update.accessed = ticks.getAndIncrement();
+    return update;
+  }
+
+  /** Access the given cached outline, updating the accessed tick count if changed. */
+  private CachedOutline access(CachedOutline entry) {
+    // use ticks as a substitute for access time
+    int tick = ticks.get();
+    if (tick != entry.accessed) {
+      entry.accessed = tick;
+    }
+    return entry;
+  }
+
+  /** Returns the index used to cache results for the matcher; -1 if there's no room left. */
+  private int matcherIndex(ClassMatcher matcher) {
+    ClassMatcher[] matchers = this.matchers;
+    for (int i = 0; i < matchers.length; i++) {
+      if (matchers[i] == matcher) {
+        return i;
+      }
+    }
+    checkPlanCovers(matcher);
+    if (matchers.length >= MAX_CACHED_MATCHERS) {
+      return -1;
+    }
+    synchronized (matchersLock) {
+      // check again, in case another thread just added the matcher
+      matchers = this.matchers;
+      for (int i = 0; i < matchers.length; i++) {
+        if (matchers[i] == matcher) {
+          return i;
+        }
+      }
+      if (matchers.length >= MAX_CACHED_MATCHERS) {
+        return -1;
+      }
+      ClassMatcher[] newMatchers = Arrays.copyOf(matchers, matchers.length + 1);
+      newMatchers[matchers.length] = matcher;
+      this.matchers = newMatchers;
+      return matchers.length;
+    }
+  }
+
+  /** Rejects matchers that need more than the plan parses; their results would be wrong. */
+  private void checkPlanCovers(ClassMatcher matcher) {
+    int missingSections = InternalMatchers.classSections(matcher) & ~plan.sections;
+    if (missingSections != 0) {
+      throw new IllegalArgumentException(
+          "Matcher needs sections not covered by the cache's plan: "
+              + Integer.toBinaryString(missingSections));
+    }
+    List<Predicate<CharSequence>> constantFilters = InternalMatchers.constantFilters(matcher);
+    if (!plan.constantFilters.containsAll(constantFilters)) {
+      throw new IllegalArgumentException(
+          "Matcher needs constant filters not covered by the cache's plan");
+    }
+  }
+
+  private static int rehash(int oldHash) {
+    return Integer.reverseBytes(oldHash * 0x9e3775cd) * 0x9e3775cd;
+  }
+
+  /** Cached outline, along with the results of matchers evaluated against it. */
+  static final class CachedOutline {
+    final long contentHash;
+    final int contentLength;
+
+    // verifies the class-name as well, in case different content has the same hash
+    final int classNameOffset;
+    final byte[] classNameBytes;
+
+    @Nullable final ClassOutline outline;
+
+    // high 32 bits flag which matchers were evaluated, low 32 bits flag which ones matched
+    volatile long matchResults;
+
+    int accessed;
+
+    CachedOutline(
+        long contentHash,
+        int contentLength,
+        int classNameOffset,
+        byte[] classNameBytes,
+        @Nullable ClassOutline outline) {
+      this.contentHash = contentHash;
+      this.contentLength = contentLength;
+      this.classNameOffset = classNameOffset;
+      this.classNameBytes = classNameBytes;
+      this.outline = outline;
+    }
+  }
+}
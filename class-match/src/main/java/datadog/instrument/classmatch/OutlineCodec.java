@@ -0,0 +1,765 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import static datadog.instrument.classmatch.ClassAttributes.NO_CLASSES;
+import static datadog.instrument.classmatch.ClassAttributes.NO_RECORD_COMPONENTS;
+import static datadog.instrument.classmatch.ClassFile.NO_ANNOTATIONS;
+import static datadog.instrument.classmatch.ClassFile.NO_ANNOTATION_VALUES;
+import static datadog.instrument.classmatch.ClassFile.NO_METHODS;
+import static datadog.instrument.classmatch.ClassFile.NO_PARAMETER_ANNOTATIONS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Compact binary format for {@link ClassHeader}s and {@link ClassOutline}s.
+ *
+ * <p>Each serialized header or outline starts with a file magic, followed by a table of the
+ * distinct strings it contains. The rest of the content refers to strings by their position in
+ * the table. Access flags, counts, and string references are written as unsigned varints, so most
+ * take a single byte.
+ *
+ * <p>Lazy outlines are fully decoded as they are written; outlines read back are always eager.
+ */
+final class OutlineCodec {
+
+  static final int HEADER_MAGIC = 0xDD09C1A5;
+  static final int OUTLINE_MAGIC = 0xDD090171;
+
+  // flags recording which optional class attributes follow
+  private static final int SIGNATURE = 1;
+  private static final int RECORD_COMPONENTS = 1 << 1;
+  private static final int PERMITTED_SUBCLASSES = 1 << 2;
+  private static final int NEST_HOST = 1 << 3;
+  private static final int NEST_MEMBERS = 1 << 4;
+  private static final int NESTED = 1 << 5;
+  private static final int ANONYMOUS = 1 << 6;
+  private static final int ENCLOSING_CLASS = 1 << 7;
+  private static final int ENCLOSING_METHOD = 1 << 8;
+  private static final int MODULE = 1 << 9;
+
+  private static final FieldOutline[] NO_FIELDS = {};
+  private static final String[] NO_STRINGS = {};
+  private static final Object[] NO_ELEMENTS = {};
+
+  private OutlineCodec() {}
+
+  /** Writes the header, or the complete outline if the header is also an outline. */
+  static void write(ClassHeader header, DataOutput out) throws IOException {
+    Writer writer = new Writer();
+    writer.header(header);
+    if (header instanceof ClassOutline) {
+      writer.outline((ClassOutline) header);
+    }
+    out.writeInt(header instanceof ClassOutline ? OUTLINE_MAGIC : HEADER_MAGIC);
+    writer.writeTo(out);
+  }
+
+  /** Reads a header, or a complete outline if one was written. */
+  static ClassHeader read(DataInput in, boolean outlineOnly) throws IOException {
+    int magic = in.readInt();
+    if (magic != OUTLINE_MAGIC && (outlineOnly || magic != HEADER_MAGIC)) {
+      throw new IOException("Unexpected file magic " + magic);
+    }
+    Reader reader = new Reader(in);
+    return reader.outline(magic == OUTLINE_MAGIC);
+  }
+
+  /** Encodes content into a body, while collecting the string table. */
+  private static final class Writer {
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(1024);
+    private final DataOutputStream body = new DataOutputStream(bodyBytes);
+
+    /** Writes the string table, followed by the body. */
+    void writeTo(DataOutput out) throws IOException {
+      writeVarint(out, strings.size());
+      for (String s : strings) {
+        out.writeUTF(s);
+      }
+      body.flush();
+      out.write(bodyBytes.toByteArray());
+    }
+
+    void header(ClassHeader header) throws IOException {
+      varint(header.access);
+      string(header.className);
+      string(header.superName);
+      strings(header.interfaces);
+    }
+
+    void outline(ClassOutline outline) throws IOException {
+      varint(outline.fields.length);
+      for (FieldOutline field : outline.fields) {
+        field(field);
+      }
+      varint(outline.methods.length);
+      for (MethodOutline method : outline.methods) {
+        varint(method.access);
+        methodNameAndDescriptor(method);
+        string(method.signature());
+        annotations(method.annotations(), method::annotationValues);
+        String[][] parameterAnnotations = method.parameterAnnotations();
+        varint(parameterAnnotations.length);
+        for (String[] annotations : parameterAnnotations) {
+          strings(annotations);
+        }
+        varint(method.codeLength());
+        varint(method.maxStack());
+        varint(method.maxLocals());
+        varint(method.handlerCount());
+      }
+      annotations(outline.annotations, outline::annotationValues);
+
+      String[] references = outline.references();
+      strings(references);
+      for (String reference : references) {
+        MethodOutline[] invokedMethods = outline.invokedMethods(reference);
+        varint(invokedMethods.length);
+        for (MethodOutline method : invokedMethods) {
+          methodNameAndDescriptor(method);
+        }
+      }
+      strings(outline.constants());
+
+      attributes(outline);
+    }
+
+    private void attributes(ClassOutline outline) throws IOException {
+      String signature = outline.signature();
+      FieldOutline[] recordComponents = outline.recordComponents();
+      String[] permittedSubclasses = outline.permittedSubclasses();
+      String nestHost = outline.nestHost();
+      String[] nestMembers = outline.nestMembers();
+      String enclosingClass = outline.enclosingClass();
+      MethodOutline enclosingMethod = outline.enclosingMethod();
+      ModuleOutline module = outline.module();
+
+      int flags = 0;
+      flags |= signature != null ? SIGNATURE : 0;
+      flags |= recordComponents.length > 0 ? RECORD_COMPONENTS : 0;
+      flags |= permittedSubclasses.length > 0 ? PERMITTED_SUBCLASSES : 0;
+      flags |= nestHost != null ? NEST_HOST : 0;
+      flags |= nestMembers.length > 0 ? NEST_MEMBERS : 0;
+      flags |= outline.isNested() ? NESTED : 0;
+      flags |= outline.isAnonymous() ? ANONYMOUS : 0;
+      flags |= enclosingClass != null ? ENCLOSING_CLASS : 0;
+      flags |= enclosingMethod != null ? ENCLOSING_METHOD : 0;
+      flags |= module != null ? MODULE : 0;
+      varint(flags);
+
+      if (signature != null) {
+        string(signature);
+      }
+      if (recordComponents.length > 0) {
+        varint(recordComponents.length);
+        for (FieldOutline component : recordComponents) {
+          field(component);
+        }
+      }
+      if (permittedSubclasses.length > 0) {
+        strings(permittedSubclasses);
+      }
+      if (nestHost != null) {
+        string(nestHost);
+      }
+      if (nestMembers.length > 0) {
+        strings(nestMembers);
+      }
+      if (enclosingClass != null) {
+        string(enclosingClass);
+      }
+      if (enclosingMethod != null) {
+        methodNameAndDescriptor(enclosingMethod);
+      }
+      if (module != null) {
+        module(module);
+      }
+    }
+
+    private void field(FieldOutline field) throws IOException {
+      varint(field.access);
+      string(field.fieldName());
+      string(field.descriptor());
+      string(field.signature());
+      annotations(field.annotations(), field::annotationValues);
+    }
+
+    private void methodNameAndDescriptor(MethodOutline method) throws IOException {
+      string(method.methodName());
+      string(method.descriptor());
+    }
+
+    private void module(ModuleOutline module) throws IOException {
+      varint(module.access);
+      string(module.moduleName);
+      string(module.version);
+      varint(module.requires.length);
+      for (ModuleOutline.Requires requires : module.requires) {
+        varint(requires.access);
+        string(requires.moduleName);
+        string(requires.version);
+      }
+      exports(module.exports);
+      exports(module.opens);
+      strings(module.uses);
+      varint(module.provides.length);
+      for (ModuleOutline.Provides provides : module.provides) {
+        string(provides.service);
+        strings(provides.implementations);
+      }
+    }
+
+    private void exports(ModuleOutline.Exports[] exports) throws IOException {
+      varint(exports.length);
+      for (ModuleOutline.Exports e : exports) {
+        varint(e.access);
+        string(e.packageName);
+        strings(e.toModules);
+      }
+    }
+
+    /** Writes the annotations, each followed by its element values if they were recorded. */
+    private void annotations(String[] annotations, ValuesLookup valuesLookup) throws IOException {
+      strings(annotations);
+      for (String annotation : annotations) {
+        AnnotationValues values = valuesLookup.annotationValues(annotation);
+        if (values != null) {
+          body.writeByte('@');
+          elements(values.elements());
+        } else {
+          body.writeByte(0);
+        }
+      }
+    }
+
+    private void elements(Object[] elements) throws IOException {
+      varint(elements.length / 2);
+      for (int i = 0; i < elements.length; i += 2) {
+        string((String) elements[i]);
+        value(elements[i + 1]);
+      }
+    }
+
+    /** Writes a tagged element value; tags follow the class-file format where possible. */
+    private void value(Object value) throws IOException {
+      if (value instanceof String) {
+        body.writeByte('s');
+        string((String) value);
+      } else if (value instanceof Integer) {
+        body.writeByte('I');
+        body.writeInt((Integer) value);
+      } else if (value instanceof Boolean) {
+        body.writeByte('Z');
+        body.writeBoolean((Boolean) value);
+      } else if (value instanceof Object[]) {
+        Object[] array = (Object[]) value;
+        body.writeByte('[');
+        varint(array.length);
+        for (Object element : array) {
+          value(element);
+        }
+      } else if (value instanceof AnnotationValues) {
+        body.writeByte('@');
+        elements(((AnnotationValues) value).elements());
+      } else if (value instanceof Long) {
+        body.writeByte('J');
+        body.writeLong((Long) value);
+      } else if (value instanceof Double) {
+        body.writeByte('D');
+        body.writeDouble((Double) value);
+      } else if (value instanceof Float) {
+        body.writeByte('F');
+        body.writeFloat((Float) value);
+      } else if (value instanceof Character) {
+        body.writeByte('C');
+        body.writeChar((Character) value);
+      } else if (value instanceof Short) {
+        body.writeByte('S');
+        body.writeShort((Short) value);
+      } else if (value instanceof Byte) {
+        body.writeByte('B');
+        body.writeByte((Byte) value);
+      } else {
+        throw new IllegalArgumentException("Unexpected annotation value " + value);
+      }
+    }
+
+    private void strings(String[] values) throws IOException {
+      varint(values.length);
+      for (String value : values) {
+        string(value);
+      }
+    }
+
+    /** Writes a reference to the string; zero is reserved for {@code null}. */
+    private void string(@Nullable String value) throws IOException {
+      if (value == null) {
+        varint(0);
+        return;
+      }
+      Integer id = stringIds.get(value);
+      if (id == null) {
+        strings.add(value);
+        id = strings.size();
+        stringIds.put(value, id);
+      }
+      varint(id);
+    }
+
+    private void varint(int value) throws IOException {
+      writeVarint(body, value);
+    }
+  }
+
+  /** Looks up the element values of an annotation. */
+  @FunctionalInterface
+  private interface ValuesLookup {
+    @Nullable
+    AnnotationValues annotationValues(String annotationType);
+  }
+
+  /** Decodes content after the file magic. */
+  private static final class Reader {
+    private final DataInput in;
+    private final String[] strings;
+
+    Reader(DataInput in) throws IOException {
+      this.in = in;
+      int stringCount = varint();
+      String[] strings = new String[stringCount];
+      for (int i = 0; i < stringCount; i++) {
+        strings[i] = in.readUTF();
+      }
+      this.strings = strings;
+    }
+
+    ClassHeader outline(boolean withOutline) throws IOException {
+      int access = varint();
+      String className = string();
+      String superName = string();
+      String[] interfaces = strings();
+      if (!withOutline) {
+        return new ClassHeader(access, className, superName, interfaces);
+      }
+
+      int fieldsCount = varint();
+      FieldOutline[] fields = fieldsCount > 0 ? new FieldOutline[fieldsCount] : NO_FIELDS;
+      for (int i = 0; i < fieldsCount; i++) {
+        fields[i] = field();
+      }
+
+      int methodsCount = varint();
+      MethodOutline[] methods = methodsCount > 0 ? new MethodOutline[methodsCount] : NO_METHODS;
+      for (int i = 0; i < methodsCount; i++) {
+        int methodAccess = varint();
+        String methodName = string();
+        String descriptor = string();
+        String signature = string();
+        String[] annotations = strings();
+        AnnotationValues[] annotationValues = annotationValues(annotations);
+        int parameterCount = varint();
+        String[][] parameterAnnotations =
+            parameterCount > 0 ? new String[parameterCount][] : NO_PARAMETER_ANNOTATIONS;
+        for (int p = 0; p < parameterCount; p++) {
+          parameterAnnotations[p] = strings();
+        }
+        int codeLength = varint();
+        int maxStack = varint();
+        int maxLocals = varint();
+        int handlerCount = varint();
+        methods[i] =
+            new MethodOutline(
+                methodAccess,
+                methodName,
+                descriptor,
+                annotations,
+                annotationValues,
+                parameterAnnotations,
+                signature,
+                codeLength,
+                maxStack << 16 | maxLocals,
+                handlerCount);
+      }
+
+      String[] annotations = strings();
+      AnnotationValues[] annotationValues = annotationValues(annotations);
+
+      String[] references = strings();
+      MethodOutline[][] invocations = new MethodOutline[references.length][];
+      for (int i = 0; i < references.length; i++) {
+        int invokedCount = varint();
+        MethodOutline[] invokedMethods =
+            invokedCount > 0 ? new MethodOutline[invokedCount] : NO_METHODS;
+        for (int j = 0; j < invokedCount; j++) {
+          invokedMethods[j] = methodNameAndDescriptor();
+        }
+        invocations[i] = invokedMethods;
+      }
+      String[] constants = strings();
+
+      return new ClassOutline(
+          access,
+          className,
+          superName,
+          interfaces,
+          fields,
+          methods,
+          annotations,
+          annotationValues,
+          attributes(),
+          references,
+          invocations,
+          constants);
+    }
+
+    @Nullable
+    private ClassAttributes attributes() throws IOException {
+      int flags = varint();
+      if (flags == 0) {
+        return null;
+      }
+      String signature = (flags & SIGNATURE) != 0 ? string() : null;
+      FieldOutline[] recordComponents = NO_RECORD_COMPONENTS;
+      if ((flags & RECORD_COMPONENTS) != 0) {
+        recordComponents = new FieldOutline[varint()];
+        for (int i = 0; i < recordComponents.length; i++) {
+          recordComponents[i] = field();
+        }
+      }
+      String[] permittedSubclasses = (flags & PERMITTED_SUBCLASSES) != 0 ? strings() : NO_CLASSES;
+      String nestHost = (flags & NEST_HOST) != 0 ? string() : null;
+      String[] nestMembers = (flags & NEST_MEMBERS) != 0 ? strings() : NO_CLASSES;
+      String enclosingClass = (flags & ENCLOSING_CLASS) != 0 ? string() : null;
+      MethodOutline enclosingMethod =
+          (flags & ENCLOSING_METHOD) != 0 ? methodNameAndDescriptor() : null;
+      ModuleOutline module = (flags & MODULE) != 0 ? module() : null;
+      return new ClassAttributes(
+          signature,
+          recordComponents,
+          permittedSubclasses,
+          nestHost,
+          nestMembers,
+          (flags & NESTED) != 0,
+          (flags & ANONYMOUS) != 0,
+          enclosingClass,
+          enclosingMethod,
+          module);
+    }
+
+    private FieldOutline field() throws IOException {
+      int access = varint();
+      String fieldName = string();
+      String descriptor = string();
+      String signature = string();
+      String[] annotations = strings();
+      return new FieldOutline(
+          access, fieldName, descriptor, annotations, annotationValues(annotations), signature);
+    }
+
+    private MethodOutline methodNameAndDescriptor() throws IOException {
+      return new MethodOutline(
+          0,
+          string(),
+          string(),
+          NO_ANNOTATIONS,
+          NO_ANNOTATION_VALUES,
+          NO_PARAMETER_ANNOTATIONS,
+          null);
+    }
+
+    private ModuleOutline module() throws IOException {
+      int access = varint();
+      String moduleName = string();
+      String version = string();
+      int requiresCount = varint();
+      ModuleOutline.Requires[] requires =
+          requiresCount > 0 ? new ModuleOutline.Requires[requiresCount] : ModuleOutline.NO_REQUIRES;
+      for (int i = 0; i < requiresCount; i++) {
+        requires[i] = new ModuleOutline.Requires(varint(), string(), string());
+      }
+      ModuleOutline.Exports[] exports = exports();
+      ModuleOutline.Exports[] opens = exports();
+      String[] uses = strings();
+      int providesCount = varint();
+      ModuleOutline.Provides[] provides =
+          providesCount > 0 ? new ModuleOutline.Provides[providesCount] : ModuleOutline.NO_PROVIDES;
+      for (int i = 0; i < providesCount; i++) {
+        provides[i] = new ModuleOutline.Provides(string(), strings());
+      }
+      return new ModuleOutline(
+          access, moduleName, version, requires, exports, opens, uses, provides);
+    }
+
+    private ModuleOutline.Exports[] exports() throws IOException {
+      int exportsCount = varint();
+      if (exportsCount == 0) {
+        return ModuleOutline.NO_EXPORTS;
+      }
+      ModuleOutline.Exports[] exports = new ModuleOutline.Exports[exportsCount];
+      for (int i = 0; i < exportsCount; i++) {
+        exports[i] = new ModuleOutline.Exports(varint(), string(), strings());
+      }
+      return exports;
+    }
+
+    /** Reads the element values that follow the annotations, parallel to the annotations. */
+    private AnnotationValues[] annotationValues(String[] annotations) throws IOException {
+      AnnotationValues[] annotationValues = NO_ANNOTATION_VALUES;
+      for (int i = 0; i < annotations.length; i++) {
+        if (in.readByte() != 0) {
+          if (annotationValues.length == 0) {
+            annotationValues = new AnnotationValues[annotations.length];
+          }
+          annotationValues[i] = new AnnotationValues(elements());
+        }
+      }
+      return annotationValues;
+    }
+
+    private Object[] elements() throws IOException {
+      int elementPairCount = varint();
+      if (elementPairCount == 0) {
+        return NO_ELEMENTS;
+      }
+      Object[] elements = new Object[elementPairCount * 2];
+      for (int i = 0; i < elements.length; i += 2) {
+        elements[i] = string();
+        elements[i + 1] = value();
+      }
+      return elements;
+    }
+
+    private Object value() throws IOException {
+      int tag = in.readByte();
+      switch (tag) {
+        case 's':
+          return string();
+        case 'I':
+          return in.readInt();
+        case 'Z':
+          return in.readBoolean();
+        case '[':
+          Object[] array = new Object[varint()];
+          for (int i = 0; i < array.length; i++) {
+            array[i] = value();
+          }
+          return array;
+        case '@':
+          return new AnnotationValues(elements());
+        case 'J':
+          return in.readLong();
+        case 'D':
+          return in.readDouble();
+        case 'F':
+          return in.readFloat();
+        case 'C':
+          return in.readChar();
+        case 'S':
+          return in.readShort();
+        case 'B':
+          return in.readByte();
+        default:
+          throw new IOException("Unexpected annotation value tag " + tag);
+      }
+    }
+
+    private String[] strings() throws IOException {
+      int count = varint();
+      if (count == 0) {
+        return NO_STRINGS;
+      }
+      String[] values = new String[count];
+      for (int i = 0; i < count; i++) {
+        values[i] = string();
+      }
+      return values;
+    }
+
+    @Nullable
+    private String string() throws IOException {
+      int id = varint();
+      if (id == 0) {
+        return null;
+      }
+      if (id > strings.length) {
+        throw new IOException("Unexpected string reference " + id);
+      }
+      return strings[id - 1];
+    }
+
+    private int varint() throws IOException {
+      return readVarint(in);
+    }
+  }
+
+  /** Writes an unsigned varint; seven bits per byte, high bit set when more bytes follow. */
+  static void writeVarint(DataOutput out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte(0x80 | (value & 0x7F));
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  /** Reads an unsigned varint. */
+  static int readVarint(DataInput in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.readByte();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  /**
+   * Reads content directly from a byte-buffer, such as a memory-mapped file, without copying.
+   *
+   * <p>Reads start at the buffer's current position, which is advanced past the content read.
+   */
+  static final class BufferInput implements DataInput {
+    private final ByteBuffer buffer;
+
+    BufferInput(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+      readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+      try {
+        buffer.get(b, off, len);
+      } catch (BufferUnderflowException e) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    public int skipBytes(int n) {
+      int skipped = Math.min(n, buffer.remaining());
+      // cast so this also links on Java 8, which has no covariant ByteBuffer.position(int)
+      ((Buffer) buffer).position(buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+      return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+      try {
+        return buffer.get();
+      } catch (BufferUnderflowException e) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+      return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+      try {
+        return buffer.getShort();
+      } catch (BufferUnderflowException e) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+      return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+      return (char) readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+      try {
+        return buffer.getInt();
+      } catch (BufferUnderflowException e) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    public long readLong() throws IOException {
+      try {
+        return buffer.getLong();
+      } catch (BufferUnderflowException e) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+      return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+      return Double.longBitsToDouble(readLong());
+    }
+
+    @Override
+    @Nullable
+    public String readLine() {
+      if (!buffer.hasRemaining()) {
+        return null;
+      }
+      StringBuilder line = new StringBuilder();
+      while (buffer.hasRemaining()) {
+        char c = (char) (buffer.get() & 0xFF);
+        if (c == '\n') {
+          break;
+        } else if (c == '\r') {
+          // treat CRLF as a single line terminator
+          if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+            buffer.get();
+          }
+          break;
+        }
+        line.append(c);
+      }
+      return line.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+      return DataInputStream.readUTF(this);
+    }
+  }
+}
@@ -0,0 +1,617 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import static datadog.instrument.classmatch.ClassAttributes.NO_CLASSES;
+import static datadog.instrument.classmatch.ClassAttributes.NO_RECORD_COMPONENTS;
+import static datadog.instrument.classmatch.ClassFile.NO_ANNOTATIONS;
+import static datadog.instrument.classmatch.ClassFile.NO_ANNOTATION_VALUES;
+import static datadog.instrument.classmatch.ClassFile.NO_METHODS;
+import static datadog.instrument.classmatch.ClassFile.NO_PARAMETER_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.ALL_SECTIONS;
+import static datadog.instrument.classmatch.ParsePlan.CLASS_ANNOTATIONS;
+import static datadog.instrument.classmatch.ParsePlan.CLASS_ATTRIBUTES;
+import static datadog.instrument.classmatch.ParsePlan.CONSTANTS;
+import static datadog.instrument.classmatch.ParsePlan.FIELDS;
+import static datadog.instrument.classmatch.ParsePlan.INVOCATIONS;
+import static datadog.instrument.classmatch.ParsePlan.METHODS;
+import static datadog.instrument.classmatch.ParsePlan.REFERENCES;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Compact store of many class outlines, for long-lived indexes and caches.
+ *
+ * <p>Outlines are packed into parallel arrays, one entry per class, field, or method, instead of
+ * an object graph per class. Names, descriptors, and signatures are interned into a table shared by
+ * all the outlines in the store, and referred to by their id. Annotations and interfaces become
+ * small lists of ids, held in a single shared array. Annotation values and class attributes are
+ * rare, so they are kept as objects and only for the classes that have them.
+ *
+ * <p>Matchers run against a temporary outline that is rebuilt from the packed content. Only the
+ * sections each matcher needs are rebuilt. Lazy outlines are fully decoded as they are added, so
+ * the store never retains class-file content.
+ *
+ * <p>Stores are not thread-safe; callers must synchronize access when sharing a store.
+ */
+public final class PackedOutlines {
+
+  private static final int INITIAL_CLASS_CAPACITY = 64;
+  private static final int INITIAL_MEMBER_CAPACITY = 512;
+
+  private static final FieldOutline[] NO_FIELDS = {};
+  private static final String[] NO_STRINGS = {};
+  private static final MethodOutline[][] NO_INVOCATIONS = {};
+  private static final Extras[] NO_EXTRAS = {};
+
+  // interned strings; id 0 is reserved for null
+  private String[] strings = new String[INITIAL_MEMBER_CAPACITY];
+  private int stringCount = 1;
+  @Nullable private Map<String, Integer> stringIds = new HashMap<>(); // dropped when trimmed
+
+  // length-prefixed lists of ids; offset 0 is reserved for the empty list
+  private int[] lists = new int[INITIAL_MEMBER_CAPACITY];
+  private int listsLength = 1;
+
+  // per-class columns
+  private int classCount;
+  private int[] classAccess = new int[INITIAL_CLASS_CAPACITY];
+  private int[] classNames = new int[INITIAL_CLASS_CAPACITY];
+  private int[] superNames = new int[INITIAL_CLASS_CAPACITY];
+  private int[] interfaces = new int[INITIAL_CLASS_CAPACITY];
+  private int[] classAnnotations = new int[INITIAL_CLASS_CAPACITY];
+  private int[] references = new int[INITIAL_CLASS_CAPACITY];
+  private int[] invocations = new int[INITIAL_CLASS_CAPACITY];
+  private int[] constants = new int[INITIAL_CLASS_CAPACITY];
+  private int[] firstField = new int[INITIAL_CLASS_CAPACITY];
+  private int[] firstMethod = new int[INITIAL_CLASS_CAPACITY];
+  private Extras[] extras = NO_EXTRAS; // only allocated once a class needs it
+
+  // per-field columns
+  private int fieldCount;
+  private int[] fieldAccess = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] fieldNames = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] fieldDescriptors = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] fieldSignatures = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] fieldAnnotations = new int[INITIAL_MEMBER_CAPACITY];
+
+  // per-method columns
+  private int methodCount;
+  private int[] methodAccess = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] methodNames = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] methodDescriptors = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] methodSignatures = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] methodAnnotations = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] parameterAnnotations = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] codeLengths = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] codeLimits = new int[INITIAL_MEMBER_CAPACITY];
+  private int[] handlerCounts = new int[INITIAL_MEMBER_CAPACITY];
+
+  /**
+   * Packs the given outline into this store.
+   *
+   * @param outline the class outline
+   * @return index of the packed outline in this store
+   */
+  public int add(ClassOutline outline) {
+    int index = classCount;
+    if (index == classAccess.length) {
+      growClasses(Math.max(index * 2, INITIAL_CLASS_CAPACITY));
+    }
+    classAccess[index] = outline.access;
+    classNames[index] = string(outline.className);
+    superNames[index] = string(outline.superName);
+    interfaces[index] = list(outline.interfaces);
+    classAnnotations[index] = list(outline.annotations);
+    String[] referenced = outline.references();
+    references[index] = list(referenced);
+    invocations[index] = invocations(outline, referenced);
+    constants[index] = list(outline.constants());
+    firstField[index] = fieldCount;
+    firstMethod[index] = methodCount;
+    for (FieldOutline field : outline.fields) {
+      addField(field);
+    }
+    for (MethodOutline method : outline.methods) {
+      addMethod(method);
+    }
+    Extras classExtras = Extras.of(outline);
+    if (classExtras != null) {
+      if (extras.length <= index) {
+        extras = Arrays.copyOf(extras, classAccess.length);
+      }
+      extras[index] = classExtras;
+    }
+    classCount = index + 1;
+    return index;
+  }
+
+  /**
+   * @return number of outlines in this store
+   */
+  public int size() {
+    return classCount;
+  }
+
+  /**
+   * Returns the internal name of the packed class at the given index.
+   *
+   * @param index the outline index
+   * @return internal name of the class
+   */
+  public String className(int index) {
+    checkIndex(index);
+    return strings[classNames[index]];
+  }
+
+  /**
+   * Rebuilds the {@link ClassHeader} of the packed class at the given index.
+   *
+   * @param index the outline index
+   * @return class header
+   */
+  public ClassHeader header(int index) {
+    checkIndex(index);
+    return new ClassHeader(
+        classAccess[index],
+        strings[classNames[index]],
+        strings[superNames[index]],
+        strings(interfaces[index]));
+  }
+
+  /**
+   * Rebuilds the complete {@link ClassOutline} of the packed class at the given index.
+   *
+   * @param index the outline index
+   * @return class outline
+   */
+  public ClassOutline outline(int index) {
+    checkIndex(index);
+    return outline(index, ALL_SECTIONS);
+  }
+
+  /**
+   * Tests the packed class at the given index against the given matcher.
+   *
+   * <p>The matcher is tested against an outline rebuilt with the sections it needs.
+   *
+   * @param index the outline index
+   * @param matcher the class matcher
+   * @return {@code true} if the class outline matches; otherwise {@code false}
+   */
+  public boolean matches(int index, ClassMatcher matcher) {
+    checkIndex(index);
+    return matcher.test(outline(index, InternalMatchers.classSections(matcher)));
+  }
+
+  /**
+   * Trims the capacity of this store to its current content, after it has been populated.
+   *
+   * <p>This also drops the lookup table used to intern strings, which is rebuilt if more outlines
+   * are added later.
+   */
+  public void trimToSize() {
+    stringIds = null;
+    strings = Arrays.copyOf(strings, stringCount);
+    lists = Arrays.copyOf(lists, listsLength);
+    growClasses(classCount);
+    if (extras.length > classCount) {
+      extras = Arrays.copyOf(extras, classCount);
+    }
+    growFields(fieldCount);
+    growMethods(methodCount);
+  }
+
+  /** Rebuilds an outline of the packed class with the given sections. */
+  private ClassOutline outline(int index, int sections) {
+    Extras classExtras = index < extras.length ? extras[index] : null;
+
+    FieldOutline[] fields = NO_FIELDS;
+    if ((sections & FIELDS) != 0) {
+      int start = firstField[index];
+      int end = index + 1 < classCount ? firstField[index + 1] : fieldCount;
+      if (start < end) {
+        fields = new FieldOutline[end - start];
+        for (int f = start; f < end; f++) {
+          String[] annotations = strings(fieldAnnotations[f]);
+          fields[f - start] =
+              new FieldOutline(
+                  fieldAccess[f],
+                  strings[fieldNames[f]],
+                  strings[fieldDescriptors[f]],
+                  annotations,
+                  classExtras != null ? classExtras.fieldValues(f - start) : NO_ANNOTATION_VALUES,
+                  strings[fieldSignatures[f]]);
+        }
+      }
+    }
+
+    MethodOutline[] methods = NO_METHODS;
+    if ((sections & METHODS) != 0) {
+      int start = firstMethod[index];
+      int end = index + 1 < classCount ? firstMethod[index + 1] : methodCount;
+      if (start < end) {
+        methods = new MethodOutline[end - start];
+        for (int m = start; m < end; m++) {
+          methods[m - start] =
+              new MethodOutline(
+                  methodAccess[m],
+                  strings[methodNames[m]],
+                  strings[methodDescriptors[m]],
+                  strings(methodAnnotations[m]),
+                  classExtras != null ? classExtras.methodValues(m - start) : NO_ANNOTATION_VALUES,
+                  parameterAnnotations(parameterAnnotations[m]),
+                  strings[methodSignatures[m]],
+                  codeLengths[m],
+                  codeLimits[m],
+                  handlerCounts[m]);
+        }
+      }
+    }
+
+    boolean withAnnotations = (sections & CLASS_ANNOTATIONS) != 0;
+    return new ClassOutline(
+        classAccess[index],
+        strings[classNames[index]],
+        strings[superNames[index]],
+        strings(interfaces[index]),
+        fields,
+        methods,
+        withAnnotations ? strings(classAnnotations[index]) : NO_ANNOTATIONS,
+        withAnnotations && classExtras != null ? classExtras.classValues : NO_ANNOTATION_VALUES,
+        (sections & CLASS_ATTRIBUTES) != 0 && classExtras != null ? classExtras.attributes : null,
+        (sections & REFERENCES) != 0 ? strings(references[index]) : NO_STRINGS,
+        (sections & INVOCATIONS) != 0 ? invokedMethods(invocations[index]) : NO_INVOCATIONS,
+        (sections & CONSTANTS) != 0 ? strings(constants[index]) : NO_STRINGS);
+  }
+
+  private void addField(FieldOutline field) {
+    int f = fieldCount;
+    if (f == fieldAccess.length) {
+      growFields(Math.max(f * 2, INITIAL_MEMBER_CAPACITY));
+    }
+    fieldAccess[f] = field.access;
+    fieldNames[f] = string(field.fieldName());
+    fieldDescriptors[f] = string(field.descriptor());
+    fieldSignatures[f] = string(field.signature());
+    fieldAnnotations[f] = list(field.annotations());
+    fieldCount = f + 1;
+  }
+
+  private void addMethod(MethodOutline method) {
+    int m = methodCount;
+    if (m == methodAccess.length) {
+      growMethods(Math.max(m * 2, INITIAL_MEMBER_CAPACITY));
+    }
+    methodAccess[m] = method.access;
+    methodNames[m] = string(method.methodName());
+    methodDescriptors[m] = string(method.descriptor());
+    methodSignatures[m] = string(method.signature());
+    methodAnnotations[m] = list(method.annotations());
+    parameterAnnotations[m] = parameterAnnotations(method.parameterAnnotations());
+    codeLengths[m] = method.codeLength();
+    codeLimits[m] = method.maxStack() << 16 | method.maxLocals();
+    handlerCounts[m] = method.handlerCount();
+    methodCount = m + 1;
+  }
+
+  /** Packs the invoked methods as a list of lists; one list of name/descriptor pairs per owner. */
+  private int invocations(ClassOutline outline, String[] referenced) {
+    int[] pairLists = new int[referenced.length];
+    boolean anyInvocations = false;
+    for (int i = 0; i < referenced.length; i++) {
+      MethodOutline[] invoked = outline.invokedMethods(referenced[i]);
+      if (invoked.length > 0) {
+        int[] pairs = new int[invoked.length * 2];
+        for (int j = 0; j < invoked.length; j++) {
+          pairs[j * 2] = string(invoked[j].methodName());
+          pairs[j * 2 + 1] = string(invoked[j].descriptor());
+        }
+        pairLists[i] = ids(pairs);
+        anyInvocations = true;
+      }
+    }
+    return anyInvocations ? ids(pairLists) : 0;
+  }
+
+  private MethodOutline[][] invokedMethods(int offset) {
+    int ownerCount = lists[offset];
+    MethodOutline[][] invokedMethods = new MethodOutline[ownerCount][];
+    for (int i = 0; i < ownerCount; i++) {
+      int pairs = lists[offset + 1 + i];
+      int pairCount = lists[pairs] / 2;
+      MethodOutline[] invoked = pairCount > 0 ? new MethodOutline[pairCount] : NO_METHODS;
+      for (int j = 0, p = pairs + 1; j < pairCount; j++, p += 2) {
+        invoked[j] =
+            new MethodOutline(
+                0,
+                strings[lists[p]],
+                strings[lists[p + 1]],
+                NO_ANNOTATIONS,
+                NO_ANNOTATION_VALUES,
+                NO_PARAMETER_ANNOTATIONS,
+                null);
+      }
+      invokedMethods[i] = invoked;
+    }
+    return invokedMethods;
+  }
+
+  /** Packs the table of parameter annotations as a list of lists. */
+  private int parameterAnnotations(String[][] table) {
+    if (table.length == 0) {
+      return 0;
+    }
+    int[] annotationLists = new int[table.length];
+    for (int i = 0; i < table.length; i++) {
+      annotationLists[i] = list(table[i]);
+    }
+    return ids(annotationLists);
+  }
+
+  private String[][] parameterAnnotations(int offset) {
+    int parameterCount = lists[offset];
+    if (parameterCount == 0) {
+      return NO_PARAMETER_ANNOTATIONS;
+    }
+    String[][] table = new String[parameterCount][];
+    for (int i = 0; i < parameterCount; i++) {
+      table[i] = strings(lists[offset + 1 + i]);
+    }
+    return table;
+  }
+
+  /** Packs the strings as a list of ids; returns the list offset. */
+  private int list(String[] values) {
+    if (values.length == 0) {
+      return 0;
+    }
+    int[] ids = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      ids[i] = string(values[i]);
+    }
+    return ids(ids);
+  }
+
+  /** Appends a length-prefixed list of ids; returns the list offset. */
+  private int ids(int[] ids) {
+    int offset = listsLength;
+    int end = offset + 1 + ids.length;
+    if (end > lists.length) {
+      lists = Arrays.copyOf(lists, Math.max(end, lists.length * 2));
+    }
+    lists[offset] = ids.length;
+    System.arraycopy(ids, 0, lists, offset + 1, ids.length);
+    listsLength = end;
+    return offset;
+  }
+
+  /** Unpacks the list of ids at the given offset as strings. */
+  private String[] strings(int offset) {
+    int count = lists[offset];
+    if (count == 0) {
+      return NO_STRINGS;
+    }
+    String[] values = new String[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = strings[lists[offset + 1 + i]];
+    }
+    return values;
+  }
+
+  /** Interns the string; returns its id, where zero represents {@code null}. */
+  private int string(@Nullable String value) {
+    if (value == null) {
+      return 0;
+    }
+    Map<String, Integer> stringIds = this.stringIds;
+    if (stringIds == null) {
+      this.stringIds = stringIds = new HashMap<>(stringCount * 2);
+      for (int i = 1; i < stringCount; i++) {
+        stringIds.put(strings[i], i);
+      }
+    }
+    Integer id = stringIds.get(value);
+    if (id == null) {
+      if (stringCount == strings.length) {
+        strings = Arrays.copyOf(strings, stringCount * 2);
+      }
+      id = stringCount++;
+      strings[id] = value;
+      stringIds.put(value, id);
+    }
+    return id;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= classCount) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + classCount);
+    }
+  }
+
+  private void growClasses(int capacity) {
+    classAccess = Arrays.copyOf(classAccess, capacity);
+    classNames = Arrays.copyOf(classNames, capacity);
+    superNames = Arrays.copyOf(superNames, capacity);
+    interfaces = Arrays.copyOf(interfaces, capacity);
+    classAnnotations = Arrays.copyOf(classAnnotations, capacity);
+    references = Arrays.copyOf(references, capacity);
+    invocations = Arrays.copyOf(invocations, capacity);
+    constants = Arrays.copyOf(constants, capacity);
+    firstField = Arrays.copyOf(firstField, capacity);
+    firstMethod = Arrays.copyOf(firstMethod, capacity);
+  }
+
+  private void growFields(int capacity) {
+    fieldAccess = Arrays.copyOf(fieldAccess, capacity);
+    fieldNames = Arrays.copyOf(fieldNames, capacity);
+    fieldDescriptors = Arrays.copyOf(fieldDescriptors, capacity);
+    fieldSignatures = Arrays.copyOf(fieldSignatures, capacity);
+    fieldAnnotations = Arrays.copyOf(fieldAnnotations, capacity);
+  }
+
+  private void growMethods(int capacity) {
+    methodAccess = Arrays.copyOf(methodAccess, capacity);
+    methodNames = Arrays.copyOf(methodNames, capacity);
+    methodDescriptors = Arrays.copyOf(methodDescriptors, capacity);
+    methodSignatures = Arrays.copyOf(methodSignatures, capacity);
+    methodAnnotations = Arrays.copyOf(methodAnnotations, capacity);
+    parameterAnnotations = Arrays.copyOf(parameterAnnotations, capacity);
+    codeLengths = Arrays.copyOf(codeLengths, capacity);
+    codeLimits = Arrays.copyOf(codeLimits, capacity);
+    handlerCounts = Arrays.copyOf(handlerCounts, capacity);
+  }
+
+  /** Rarely present details, kept as objects; only allocated for classes that have them. */
+  static final class Extras {
+    final AnnotationValues[] classValues;
+    @Nullable final AnnotationValues[][] fieldValues;
+    @Nullable final AnnotationValues[][] methodValues;
+    @Nullable final ClassAttributes attributes;
+
+    private Extras(
+        AnnotationValues[] classValues,
+        @Nullable AnnotationValues[][] fieldValues,
+        @Nullable AnnotationValues[][] methodValues,
+        @Nullable ClassAttributes attributes) {
+      this.classValues = classValues;
+      this.fieldValues = fieldValues;
+      this.methodValues = methodValues;
+      this.attributes = attributes;
+    }
+
+    AnnotationValues[] fieldValues(int f) {
+      return fieldValues != null ? fieldValues[f] : NO_ANNOTATION_VALUES;
+    }
+
+    AnnotationValues[] methodValues(int m) {
+      return methodValues != null ? methodValues[m] : NO_ANNOTATION_VALUES;
+    }
+
+    /** Collects annotation values and class attributes; {@code null} if the class has none. */
+    @Nullable
+    static Extras of(ClassOutline outline) {
+      AnnotationValues[] classValues = values(outline.annotations, outline::annotationValues);
+      AnnotationValues[][] fieldValues = null;
+      for (int f = 0; f < outline.fields.length; f++) {
+        FieldOutline field = outline.fields[f];
+        AnnotationValues[] values = values(field.annotations(), field::annotationValues);
+        if (values.length > 0) {
+          if (fieldValues == null) {
+            fieldValues = new AnnotationValues[outline.fields.length][];
+            Arrays.fill(fieldValues, NO_ANNOTATION_VALUES);
+          }
+          fieldValues[f] = values;
+        }
+      }
+      AnnotationValues[][] methodValues = null;
+      for (int m = 0; m < outline.methods.length; m++) {
+        MethodOutline method = outline.methods[m];
+        AnnotationValues[] values = values(method.annotations(), method::annotationValues);
+        if (values.length > 0) {
+          if (methodValues == null) {
+            methodValues = new AnnotationValues[outline.methods.length][];
+            Arrays.fill(methodValues, NO_ANNOTATION_VALUES);
+          }
+          methodValues[m] = values;
+        }
+      }
+      ClassAttributes attributes = attributes(outline);
+      if (classValues.length == 0
+          && fieldValues == null
+          && methodValues == null
+          && attributes == null) {
+        return null;
+      }
+      return new Extras(classValues, fieldValues, methodValues, attributes);
+    }
+
+    /** Copies any element values, parallel to the annotations; empty if there are none. */
+    private static AnnotationValues[] values(
+        String[] annotations, Function<String, AnnotationValues> valuesLookup) {
+      AnnotationValues[] annotationValues = NO_ANNOTATION_VALUES;
+      for (int i = 0; i < annotations.length; i++) {
+        AnnotationValues values = valuesLookup.apply(annotations[i]);
+        if (values != null) {
+          if (annotationValues.length == 0) {
+            annotationValues = new AnnotationValues[annotations.length];
+          }
+          // decode the elements, so lazy values don't retain the class-file content
+          annotationValues[i] = new AnnotationValues(values.elements());
+        }
+      }
+      return annotationValues;
+    }
+
+    /** Copies any class attributes, without retaining class-file content. */
+    @Nullable
+    private static ClassAttributes attributes(ClassOutline outline) {
+      String signature = outline.signature();
+      FieldOutline[] recordComponents = outline.recordComponents();
+      String[] permittedSubclasses = outline.permittedSubclasses();
+      String nestHost = outline.nestHost();
+      String[] nestMembers = outline.nestMembers();
+      String enclosingClass = outline.enclosingClass();
+      MethodOutline enclosingMethod = outline.enclosingMethod();
+      ModuleOutline module = outline.module();
+      if (signature == null
+          && recordComponents.length == 0
+          && permittedSubclasses.length == 0
+          && nestHost == null
+          && nestMembers.length == 0
+          && !outline.isNested()
+          && !outline.isAnonymous()
+          && enclosingClass == null
+          && enclosingMethod == null
+          && module == null) {
+        return null;
+      }
+      if (recordComponents.length > 0) {
+        FieldOutline[] components = new FieldOutline[recordComponents.length];
+        for (int i = 0; i < components.length; i++) {
+          FieldOutline c = recordComponents[i];
+          String[] annotations = c.annotations();
+          components[i] =
+              new FieldOutline(
+                  c.access,
+                  c.fieldName(),
+                  c.descriptor(),
+                  annotations,
+                  values(annotations, c::annotationValues),
+                  c.signature());
+        }
+        recordComponents = components;
+      }
+      if (enclosingMethod != null) {
+        enclosingMethod =
+            new MethodOutline(
+                0,
+                enclosingMethod.methodName(),
+                enclosingMethod.descriptor(),
+                NO_ANNOTATIONS,
+                NO_ANNOTATION_VALUES,
+                NO_PARAMETER_ANNOTATIONS,
+                null);
+      }
+      return new ClassAttributes(
+          signature,
+          recordComponents.length > 0 ? recordComponents : NO_RECORD_COMPONENTS,
+          permittedSubclasses.length > 0 ? permittedSubclasses : NO_CLASSES,
+          nestHost,
+          nestMembers.length > 0 ? nestMembers : NO_CLASSES,
+          outline.isNested(),
+          outline.isAnonymous(),
+          enclosingClass,
+          enclosingMethod,
+          module);
+    }
+  }
+}
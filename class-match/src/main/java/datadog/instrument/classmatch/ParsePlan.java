@@ -0,0 +1,243 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Describes which sections of the class-file are needed to evaluate a set of {@link ClassMatcher}s.
+ *
+ * <p>Outlines parsed with a plan only contain the sections it needs; the rest are left empty. If
+ * the matchers only need the {@link ClassHeader} then parsing stops after the interfaces.
+ *
+ * <p>Matchers built using this API record what they need. Custom class matchers are assumed to need
+ * every section. Custom method matchers are assumed to need method and parameter annotations,
+ * signatures, and code metrics. Likewise custom field matchers are assumed to need field
+ * annotations and signatures.
+ *
+ * <p>Plans can also carry a class-name filter that is applied before anything else is decoded.
+ * Classes whose names are rejected by the filter are not parsed any further.
+ *
+ * <p>String constants accepted by the filters of {@link ClassMatcher#containsConstant(Predicate)}
+ * matchers are only included in outlines parsed with a plan that covers those matchers.
+ */
+public final class ParsePlan {
+
+  // sections of the class-file that matchers can ask for
+  static final int FIELDS = 1;
+  static final int METHODS = 1 << 1;
+  static final int CLASS_ANNOTATIONS = 1 << 2;
+  static final int METHOD_ANNOTATIONS = 1 << 3;
+  static final int FIELD_ANNOTATIONS = 1 << 4;
+  static final int PARAMETER_ANNOTATIONS = 1 << 5;
+  static final int CLASS_ATTRIBUTES = 1 << 6;
+  static final int SIGNATURES = 1 << 7;
+  static final int REFERENCES = 1 << 8;
+  static final int INVOCATIONS = 1 << 9;
+  static final int CONSTANTS = 1 << 10;
+  static final int CODE = 1 << 11;
+
+  // sections that are found while walking the constant pool
+  static final int CONSTANT_POOL_SECTIONS = REFERENCES | INVOCATIONS | CONSTANTS;
+
+  // optional sections that method and field matchers can ask for
+  static final int METHOD_SECTIONS = METHOD_ANNOTATIONS | PARAMETER_ANNOTATIONS | SIGNATURES | CODE;
+  static final int FIELD_SECTIONS = FIELD_ANNOTATIONS | SIGNATURES;
+
+  static final int ALL_SECTIONS =
+      FIELDS
+          | METHODS
+          | CLASS_ANNOTATIONS
+          | METHOD_ANNOTATIONS
+          | FIELD_ANNOTATIONS
+          | PARAMETER_ANNOTATIONS
+          | CLASS_ATTRIBUTES
+          | SIGNATURES
+          | REFERENCES
+          | INVOCATIONS
+          | CONSTANTS
+          | CODE;
+
+  // plan used when no plan is given, parses everything
+  static final ParsePlan FULL_PLAN = new ParsePlan(ALL_SECTIONS, null, emptyList());
+
+  final int sections;
+
+  @Nullable final Predicate<CharSequence> classNameFilter;
+
+  final List<Predicate<CharSequence>> constantFilters;
+
+  ParsePlan(
+      int sections,
+      @Nullable Predicate<CharSequence> classNameFilter,
+      List<Predicate<CharSequence>> constantFilters) {
+    this.sections = sections;
+    this.classNameFilter = classNameFilter;
+    this.constantFilters = constantFilters;
+  }
+
+  /**
+   * Analyses the given matchers to find the sections of the class-file they need.
+   *
+   * @param matchers the class matchers
+   * @return plan covering the needs of all the matchers
+   */
+  public static ParsePlan of(ClassMatcher... matchers) {
+    return of(asList(matchers));
+  }
+
+  /**
+   * Analyses the given matchers to find the sections of the class-file they need.
+   *
+   * @param matchers the class matchers
+   * @return plan covering the needs of all the matchers
+   */
+  public static ParsePlan of(Collection<? extends ClassMatcher> matchers) {
+    int sections = 0;
+    List<Predicate<CharSequence>> constantFilters = new ArrayList<>();
+    for (ClassMatcher matcher : matchers) {
+      sections |= InternalMatchers.classSections(matcher);
+      InternalMatchers.constantFilters(matcher, constantFilters);
+    }
+    return new ParsePlan(sections, null, constantFilters);
+  }
+
+  /**
+   * Returns a copy of this plan that only parses classes whose names are accepted by the filter.
+   *
+   * <p>The filter is given the class-name in dotted form, such as {@code java.lang.String}, which
+   * matches the keys used by {@code ClassNameTrie} and {@code ClassNameFilter}. The name is a view
+   * over the raw class-file content; it is only valid during the call and should not be retained.
+   *
+   * @param classNameFilter accepts the names of classes to parse
+   * @return plan that rejects classes whose names are not accepted by the filter
+   */
+  public ParsePlan withClassNameFilter(Predicate<CharSequence> classNameFilter) {
+    return new ParsePlan(sections, classNameFilter, constantFilters);
+  }
+
+  /**
+   * Returns a copy of this plan that also includes string constants accepted by the filter.
+   *
+   * <p>The filter is given each string constant as a view over the raw content, so it can be
+   * checked against a {@code ClassNameTrie} or similar prefix table without decoding; only accepted
+   * constants are decoded. The view is only valid during the call and should not be retained.
+   *
+   * @param constantFilter accepts string constants of interest
+   * @return plan that also parses string constants accepted by the filter
+   * @see ClassOutline#constants()
+   */
+  public ParsePlan withConstantFilter(Predicate<CharSequence> constantFilter) {
+    if (constantFilters.contains(constantFilter)) {
+      return this;
+    }
+    List<Predicate<CharSequence>> withFilter = new ArrayList<>(constantFilters);
+    withFilter.add(constantFilter);
+    return new ParsePlan(sections | CONSTANTS, classNameFilter, withFilter);
+  }
+
+  /**
+   * @return {@code true} if the matchers only need the {@link ClassHeader}; otherwise {@code false}
+   */
+  public boolean headerOnly() {
+    return sections == 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need field outlines; otherwise {@code false}
+   */
+  public boolean needsFields() {
+    return (sections & FIELDS) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need method outlines; otherwise {@code false}
+   */
+  public boolean needsMethods() {
+    return (sections & METHODS) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need class annotations; otherwise {@code false}
+   */
+  public boolean needsClassAnnotations() {
+    return (sections & CLASS_ANNOTATIONS) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need method annotations; otherwise {@code false}
+   */
+  public boolean needsMethodAnnotations() {
+    return (sections & METHOD_ANNOTATIONS) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need field annotations; otherwise {@code false}
+   */
+  public boolean needsFieldAnnotations() {
+    return (sections & FIELD_ANNOTATIONS) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need parameter annotations; otherwise {@code false}
+   */
+  public boolean needsParameterAnnotations() {
+    return (sections & PARAMETER_ANNOTATIONS) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need the class signature, or record, sealed, nestmate,
+   *     nesting, or module attributes; otherwise {@code false}
+   */
+  public boolean needsClassAttributes() {
+    return (sections & CLASS_ATTRIBUTES) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need field or method signatures; otherwise {@code false}
+   */
+  public boolean needsSignatures() {
+    return (sections & SIGNATURES) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need the types referenced from the constant pool;
+   *     otherwise {@code false}
+   */
+  public boolean needsReferences() {
+    return (sections & REFERENCES) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need the methods invoked on referenced types; otherwise
+   *     {@code false}
+   */
+  public boolean needsInvocations() {
+    return (sections & INVOCATIONS) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need string constants; otherwise {@code false}
+   */
+  public boolean needsConstants() {
+    return (sections & CONSTANTS) != 0;
+  }
+
+  /**
+   * @return {@code true} if the matchers need method code metrics; otherwise {@code false}
+   */
+  public boolean needsCode() {
+    return (sections & CODE) != 0;
+  }
+}
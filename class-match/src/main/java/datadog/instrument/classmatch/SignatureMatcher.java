@@ -0,0 +1,83 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import static datadog.instrument.classmatch.InternalMatchers.hasSuperTypeSignature;
+import static datadog.instrument.classmatch.InternalMatchers.mentionsTypeSignature;
+import static datadog.instrument.classmatch.InternalMatchers.typeSignature;
+
+import java.util.function.Predicate;
+
+/**
+ * Fluent-API for building generic signature predicates.
+ *
+ * <p>Type arguments are given as type names, such as {@code "java.lang.String"} or {@code
+ * "byte[]"}, or as wildcards: {@code "?"}, {@code "? extends java.lang.Number"}, {@code "? super
+ * java.lang.Integer"}. Matching compares characters in place, without decoding the signature.
+ *
+ * @see ClassOutline#signature()
+ * @see FieldOutline#signature()
+ * @see MethodOutline#signature()
+ */
+@FunctionalInterface
+public interface SignatureMatcher extends Predicate<String> {
+
+  /**
+   * Matches signatures that mention the given type anywhere, with the given type arguments.
+   *
+   * <p>Example: {@code parameterized("java.util.Map", "java.lang.String", "com.acme.Session")}
+   * matches fields of type {@code Map<String, Session>} as well as {@code List<Map<String,
+   * Session>>}. When no type arguments are given, any arguments match.
+   *
+   * @param rawType the raw type
+   * @param typeArguments the type arguments
+   * @return matcher of signatures mentioning the parameterized type
+   */
+  static SignatureMatcher parameterized(String rawType, String... typeArguments) {
+    String typeSignature = typeSignature(rawType, typeArguments);
+    return s -> mentionsTypeSignature(s, typeSignature);
+  }
+
+  /**
+   * Matches class signatures where the given type, with the given type arguments, is the direct
+   * super-class or one of the directly implemented interfaces.
+   *
+   * <p>Example: {@code superType("com.acme.Handler", "com.acme.HttpRequest")} matches classes
+   * that implement {@code Handler<HttpRequest>}. When no type arguments are given, any arguments
+   * match.
+   *
+   * @param rawType the raw type
+   * @param typeArguments the type arguments
+   * @return matcher of class signatures with the parameterized super-type
+   */
+  static SignatureMatcher superType(String rawType, String... typeArguments) {
+    String typeSignature = typeSignature(rawType, typeArguments);
+    return s -> hasSuperTypeSignature(s, typeSignature);
+  }
+
+  /**
+   * Conjunction of this matcher AND another.
+   *
+   * @param other the other matcher
+   * @return conjunction of both matchers
+   */
+  default SignatureMatcher and(SignatureMatcher other) {
+    // simple approach as we don't expect many signature-matcher unions
+    return s -> test(s) && other.test(s);
+  }
+
+  /**
+   * Disjunction of this matcher OR another.
+   *
+   * @param other the other matcher
+   * @return disjunction of both matchers
+   */
+  default SignatureMatcher or(SignatureMatcher other) {
+    // simple approach as we don't expect many signature-matcher unions
+    return s -> test(s) || other.test(s);
+  }
+}
@@ -6,6 +6,13 @@
 
 package datadog.instrument.classmatch;
 
+import static datadog.instrument.classmatch.InternalMatchers.classSections;
+import static datadog.instrument.classmatch.InternalMatchers.constantFilters;
+import static datadog.instrument.classmatch.InternalMatchers.fieldNeeds;
+import static datadog.instrument.classmatch.InternalMatchers.fieldSections;
+import static datadog.instrument.classmatch.InternalMatchers.methodNeeds;
+import static datadog.instrument.classmatch.InternalMatchers.methodSections;
+import static datadog.instrument.classmatch.InternalMatchers.needs;
 import static java.util.Arrays.asList;
 
 import java.util.Collection;
@@ -34,7 +41,7 @@ public final class StandardMatchers {
    * @return negation of the matcher
    */
   public static ClassMatcher not(ClassMatcher matcher) {
-    return c -> !matcher.test(c);
+    return needs(classSections(matcher), constantFilters(matcher), c -> !matcher.test(c));
   }
 
   /**
@@ -44,7 +51,7 @@ public final class StandardMatchers {
    * @return negation of the matcher
    */
   public static FieldMatcher not(FieldMatcher matcher) {
-    return f -> !matcher.test(f);
+    return fieldNeeds(fieldSections(matcher), f -> !matcher.test(f));
   }
 
   /**
@@ -54,7 +61,7 @@ public final class StandardMatchers {
    * @return negation of the matcher
    */
   public static MethodMatcher not(MethodMatcher matcher) {
-    return m -> !matcher.test(m);
+    return methodNeeds(methodSections(matcher), m -> !matcher.test(m));
   }
 
   /**
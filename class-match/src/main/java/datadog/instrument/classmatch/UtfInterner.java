@@ -0,0 +1,88 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+/**
+ * Bounded table of canonical strings, indexed by their "modified-UTF8" bytes.
+ *
+ * <p>Lookups compare the raw bytes in the class-file content, so existing strings are returned
+ * without decoding or allocating. The table is lock-free; concurrent updates may occasionally
+ * replace each other, which only means the same string might be decoded again later.
+ */
+final class UtfInterner {
+
+  private static final int MAX_CAPACITY = 1 << 16;
+  private static final int MIN_CAPACITY = 1 << 4;
+  private static final int MAX_HASH_ATTEMPTS = 4;
+
+  // don't retain long strings, they're unlikely to be repeated
+  private static final int MAX_UTF_LENGTH = 255;
+
+  // fixed-size hashtable of interned strings, indexed by "modified-UTF8" bytes
+  private final Entry[] entries;
+  private final int slotMask;
+
+  UtfInterner(int capacity) {
+    if (capacity < MIN_CAPACITY) {
+      capacity = MIN_CAPACITY;
+    } else if (capacity > MAX_CAPACITY) {
+      capacity = MAX_CAPACITY;
+    }
+    // choose enough slot bits to cover the given capacity
+    this.slotMask = -1 >>> Integer.numberOfLeadingZeros(capacity - 1);
+    this.entries = new Entry[slotMask + 1];
+  }
+
+  /** Returns the canonical string for the "modified-UTF8" at the given offset. */
+  String intern(ClassBytes content, int utfOffset) {
+    if (content.u2(utfOffset) > MAX_UTF_LENGTH) {
+      return content.utf(utfOffset);
+    }
+
+    final int hash = content.utfHash(utfOffset);
+    final Entry[] entries = this.entries;
+    final int slotMask = this.slotMask;
+
+    // search by repeated hashing; stop when we find an empty slot,
+    // a matching slot, or we exhaust all attempts and re-use a slot
+    int slot;
+    for (int i = 1, h = hash; true; i++, h = rehash(h)) {
+      slot = slotMask & h;
+      Entry existing = entries[slot];
+      if (existing == null) {
+        break; // empty slot, string has not been interned
+      }
+      if (existing.hash == hash && content.utfEquals(utfOffset, existing.utf)) {
+        return existing.string;
+      }
+      if (i >= MAX_HASH_ATTEMPTS) {
+        break; // exhausted attempts, re-use the last hashed slot
+      }
+    }
+
+    String string = content.utf(utfOffset);
+    entries[slot] = new Entry(content.utfBytes(utfOffset), hash, string);
+    return string;
+  }
+
+  private static int rehash(int oldHash) {
+    return Integer.reverseBytes(oldHash * 0x9e3775cd) * 0x9e3775cd;
+  }
+
+  /** Interned string, along with its "modified-UTF8" bytes. */
+  static final class Entry {
+    final byte[] utf;
+    final int hash;
+    final String string;
+
+    Entry(byte[] utf, int hash, String string) {
+      this.utf = utf;
+      this.hash = hash;
+      this.string = string;
+    }
+  }
+}
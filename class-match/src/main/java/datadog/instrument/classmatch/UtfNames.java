@@ -0,0 +1,161 @@
+/*
+ * Unless explicitly stated otherwise all files in this repository are licensed under the Apache-2.0 License.
+ * This product includes software developed at Datadog (https://www.datadoghq.com/).
+ * Copyright 2025-Present Datadog, Inc.
+ */
+
+package datadog.instrument.classmatch;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Compact immutable set of names, found by comparing their "modified-UTF8" bytes in place.
+ *
+ * <p>Lookups first check the length against a mask of known lengths, which rejects most constants
+ * without reading their content. Remaining candidates are hashed and binary-searched against the
+ * sorted hashes, before a final byte comparison. Nothing is decoded or allocated.
+ */
+final class UtfNames {
+
+  // bit N is set when a name has a "modified-UTF8" length of N (modulo 64)
+  private final long lengthMask;
+
+  // parallel tables, sorted by hash
+  private final int[] hashes;
+  private final byte[][] utfs;
+  private final String[] names;
+
+  UtfNames(Collection<String> names) {
+    Set<String> unique = new LinkedHashSet<>(names);
+    int size = unique.size();
+    Entry[] entries = new Entry[size];
+    int i = 0;
+    for (String name : unique) {
+      entries[i++] = new Entry(name);
+    }
+    Arrays.sort(entries, (a, b) -> Integer.compare(a.hash, b.hash));
+
+    long lengthMask = 0;
+    this.hashes = new int[size];
+    this.utfs = new byte[size][];
+    this.names = new String[size];
+    for (i = 0; i < size; i++) {
+      Entry entry = entries[i];
+      lengthMask |= 1L << entry.utf.length;
+      hashes[i] = entry.hash;
+      utfs[i] = entry.utf;
+      this.names[i] = entry.name;
+    }
+    this.lengthMask = lengthMask;
+  }
+
+  /**
+   * @return {@code true} if the set contains the name; otherwise {@code false}
+   */
+  boolean contains(String name) {
+    for (String n : names) {
+      if (n.equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return {@code true} if the set contains all the names; otherwise {@code false}
+   */
+  boolean containsAll(Collection<String> names) {
+    for (String name : names) {
+      if (!contains(name)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns a new set with the names from this set plus the given names. */
+  UtfNames with(Collection<String> moreNames) {
+    Set<String> union = new LinkedHashSet<>(Arrays.asList(names));
+    union.addAll(moreNames);
+    return new UtfNames(union);
+  }
+
+  /**
+   * Finds the name with the same "modified-UTF8" as the content at the given offset.
+   *
+   * @return the matching name; {@code null} if there's no match
+   */
+  @Nullable
+  String find(ClassBytes content, int utfOffset) {
+    // quick length check before we read any content
+    if ((lengthMask & (1L << content.u2(utfOffset))) == 0) {
+      return null;
+    }
+    int[] hashes = this.hashes;
+    int hash = content.utfHash(utfOffset);
+    int i = Arrays.binarySearch(hashes, hash);
+    if (i < 0) {
+      return null;
+    }
+    // step back to the first entry with this hash, then check each entry sharing it
+    while (i > 0 && hashes[i - 1] == hash) {
+      i--;
+    }
+    for (int len = hashes.length; i < len && hashes[i] == hash; i++) {
+      if (content.utfEquals(utfOffset, utfs[i])) {
+        return names[i];
+      }
+    }
+    return null;
+  }
+
+  /** Encodes the string as "modified-UTF8" bytes. */
+  static byte[] modifiedUtf8(String s) {
+    int strLen = s.length();
+    int utfLen = 0;
+    for (int i = 0; i < strLen; i++) {
+      char c = s.charAt(i);
+      utfLen += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+    }
+    if (utfLen == strLen) {
+      byte[] utf = new byte[utfLen];
+      for (int i = 0; i < strLen; i++) {
+        utf[i] = (byte) s.charAt(i); // fast-path for ASCII-only
+      }
+      return utf;
+    }
+    // see https://docs.oracle.com/javase/8/docs/api/java/io/DataInput.html
+    byte[] utf = new byte[utfLen];
+    for (int i = 0, u = 0; i < strLen; i++) {
+      char c = s.charAt(i);
+      if (c >= 0x0001 && c <= 0x007F) {
+        utf[u++] = (byte) c;
+      } else if (c <= 0x07FF) {
+        utf[u++] = (byte) (0xC0 | (c >> 6));
+        utf[u++] = (byte) (0x80 | (c & 0x3F));
+      } else {
+        utf[u++] = (byte) (0xE0 | (c >> 12));
+        utf[u++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        utf[u++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return utf;
+  }
+
+  /** Name, along with its "modified-UTF8" bytes and their hash. */
+  private static final class Entry {
+    final String name;
+    final byte[] utf;
+    final int hash;
+
+    Entry(String name) {
+      this.name = name;
+      this.utf = modifiedUtf8(name);
+      this.hash = ClassFile.hashBytes(utf, 0, utf.length);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package datadog.instrument.classmatch;
+
+import static datadog.instrument.testing.SampleClasses.loadBytecode;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClassFileScannerTest {
+
+  static final Path SAMPLE_JAR = Paths.get("build/sampleBytecode/asm-test.jar");
+  static final Path SAMPLE_DIR = Paths.get("build/classes/java/test/sample");
+
+  @Test
+  void scanHeaders() throws IOException {
+    Set<String> expected = new HashSet<>();
+    for (byte[] bytecode : loadBytecode("asm-test.jar")) {
+      expected.add(ClassFile.header(bytecode).className);
+    }
+
+    Set<String> actual = new HashSet<>();
+    ClassFileScanner scanner = new ClassFileScanner();
+    assertEquals(0, scanner.scanHeaders(singletonList(SAMPLE_JAR), h -> actual.add(h.className)));
+    assertEquals(expected, actual);
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      List<String> names = new ArrayList<>();
+      new ClassFileScanner(executor)
+          .scanHeaders(asList(SAMPLE_JAR, SAMPLE_DIR), h -> names.add(h.className));
+      assertEquals(expected.size() + 4, names.size());
+      assertTrue(names.containsAll(expected));
+      assertTrue(names.contains("sample/MyParameters"));
+      assertTrue(names.contains("sample/MyEndpoint"));
+      assertTrue(names.contains("sample/MyEndpoint$Mapping"));
+      assertTrue(names.contains("sample/My例クラス"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void scanOutlines() throws IOException {
+    Set<String> methods = new HashSet<>();
+    new ClassFileScanner()
+        .scanOutlines(
+            singletonList(SAMPLE_DIR),
+            outline -> {
+              for (MethodOutline method : outline.methods) {
+                methods.add(outline.className + "." + method.methodName());
+              }
+            });
+    assertTrue(methods.contains("sample/MyParameters.<init>"));
+    assertTrue(methods.contains("sample/My例クラス.<init>"));
+  }
+
+  @Test
+  void boundedBatches() throws IOException {
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    AtomicInteger pending = new AtomicInteger();
+    AtomicInteger maxPending = new AtomicInteger();
+    Executor executor =
+        task -> {
+          maxPending.accumulateAndGet(pending.incrementAndGet(), Math::max);
+          pool.execute(
+              () -> {
+                try {
+                  task.run();
+                } finally {
+                  pending.decrementAndGet();
+                }
+              });
+        };
+    try {
+      AtomicInteger headers = new AtomicInteger();
+      new ClassFileScanner(executor)
+          .scanHeaders(singletonList(SAMPLE_JAR), h -> headers.incrementAndGet());
+      assertEquals(loadBytecode("asm-test.jar").size(), headers.get());
+      // batches in flight are limited, allowing for tasks that are finishing up
+      int limit = 2 * Runtime.getRuntime().availableProcessors() + 2;
+      assertTrue(maxPending.get() <= limit, "too many batches in flight: " + maxPending.get());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void malformedClassFiles(@TempDir Path dir) throws IOException {
+    byte[] badConstant = {
+      (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 52, 0, 5, 99, 0, 0, 0, 0
+    };
+    Files.write(dir.resolve("BadConstant.class"), badConstant);
+    Files.write(
+        dir.resolve("Truncated.class"), Arrays.copyOf(ClassFileTest.sampleParametersClass, 100));
+    Files.write(dir.resolve("MyParameters.class"), ClassFileTest.sampleParametersClass);
+
+    ClassFileScanner scanner = new ClassFileScanner();
+    List<String> names = new ArrayList<>();
+    assertEquals(2, scanner.scanHeaders(singletonList(dir), h -> names.add(h.className)));
+    assertEquals(2, scanner.scanOutlines(singletonList(dir), o -> names.add(o.className)));
+    assertEquals(asList("sample/MyParameters", "sample/MyParameters"), names);
+  }
+
+  @Test
+  void consumerFailure() {
+    IllegalStateException failure = new IllegalStateException();
+    assertEquals(
+        failure,
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                new ClassFileScanner()
+                    .scanHeaders(
+                        singletonList(SAMPLE_JAR),
+                        h -> {
+                          throw failure;
+                        })));
+  }
+
+  @Test
+  void missingJar() {
+    assertThrows(
+        IOException.class,
+        () ->
+            new ClassFileScanner()
+                .scanHeaders(singletonList(Paths.get("build/missing.jar")), h -> {}));
+  }
+}
@@ -1,18 +1,42 @@
 package datadog.instrument.classmatch;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import datadog.instrument.utils.JVM;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.lang.module.ModuleDescriptor;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.jar.JarFile;
 import org.junit.jupiter.api.Test;
@@ -21,8 +45,11 @@ class ClassFileTest {
 
   static int SAMPLE_OFFSET = 1357;
 
+  private static final int ACC_MODULE = 0x8000;
+
   static final byte[] sampleUnicodeClass;
   static final byte[] sampleParametersClass;
+  static final byte[] sampleEndpointClass;
   static final byte[] sampleClassAtOffset;
 
   static {
@@ -38,6 +65,12 @@ class ClassFileTest {
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
+    try {
+      sampleEndpointClass =
+          Files.readAllBytes(Paths.get("build/classes/java/test/sample/MyEndpoint.class"));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
     sampleClassAtOffset = new byte[sampleUnicodeClass.length + SAMPLE_OFFSET];
     System.arraycopy(
         sampleUnicodeClass, 0, sampleClassAtOffset, SAMPLE_OFFSET, sampleUnicodeClass.length);
@@ -48,6 +81,40 @@ class ClassFileTest {
     testParsing("asm-test.jar", ClassFile::header);
   }
 
+  @Test
+  void streamedHeader() {
+    testParsing(
+        "asm-test.jar",
+        bytecode -> {
+          ClassHeader expected = ClassFile.header(bytecode);
+          ClassHeader actual;
+          try {
+            actual = ClassFile.header(new ByteArrayInputStream(bytecode));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          assertEquals(expected.access, actual.access);
+          assertEquals(expected.className, actual.className);
+          assertEquals(expected.superName, actual.superName);
+          assertArrayEquals(expected.interfaces, actual.interfaces);
+        });
+  }
+
+  @Test
+  void streamedHeaderStopsEarly() throws IOException {
+    ByteArrayInputStream in = new ByteArrayInputStream(sampleParametersClass);
+    assertEquals("sample/MyParameters", ClassFile.header(in).className);
+    assertTrue(in.available() > 0, "expected fields, methods, attributes to be left unread");
+
+    // truncated content
+    byte[] truncated = Arrays.copyOf(sampleParametersClass, 100);
+    assertThrows(EOFException.class, () -> ClassFile.header(new ByteArrayInputStream(truncated)));
+    // stream buffer is larger than the content, but outlines must not read past the end
+    assertThrows(
+        IndexOutOfBoundsException.class,
+        () -> ClassFile.outline(new ByteArrayInputStream(truncated)));
+  }
+
   @Test
   void unicodeHeader() {
     ClassHeader header = ClassFile.header(sampleUnicodeClass);
@@ -83,6 +150,409 @@ class ClassFileTest {
     assertArrayEquals(new String[] {"java/lang/SafeVarargs"}, outline.methods[1].annotations);
   }
 
+  @Test
+  void fieldAnnotations() {
+    ClassFile.annotationOfInterest("java/lang/Deprecated");
+    String[] expected = {"java/lang/Deprecated"};
+    assertArrayEquals(expected, ClassFile.outline(sampleUnicodeClass).fields[0].annotations);
+    assertArrayEquals(expected, ClassFile.lazyOutline(sampleUnicodeClass).fields[0].annotations());
+  }
+
+  @Test
+  void parameterAnnotations() {
+    ClassFile.annotationsOfInterest(
+        asList("javax/annotation/Nullable", "javax/annotation/CheckForNull"));
+    byte[] bytecode = sampleEndpointClass;
+    for (ClassOutline outline :
+        asList(ClassFile.outline(bytecode), ClassFile.lazyOutline(bytecode))) {
+      MethodOutline method = outline.methods[1];
+      assertEquals("handle", method.methodName());
+      assertArrayEquals(new String[0], method.parameterAnnotations(0));
+      assertArrayEquals(new String[] {"javax/annotation/Nullable"}, method.parameterAnnotations(1));
+      assertArrayEquals(
+          new String[] {"javax/annotation/CheckForNull", "javax/annotation/Nullable"},
+          method.parameterAnnotations(2));
+      assertArrayEquals(new String[0], method.parameterAnnotations(3));
+      assertArrayEquals(new String[0], outline.methods[0].parameterAnnotations(0));
+    }
+  }
+
+  @Test
+  void annotationValues() {
+    String mapping = "sample/MyEndpoint$Mapping";
+    ClassFile.annotationValuesOfInterest(mapping);
+    byte[] bytecode = sampleEndpointClass;
+    for (ClassOutline outline :
+        asList(ClassFile.outline(bytecode), ClassFile.lazyOutline(bytecode))) {
+      AnnotationValues classValues = outline.annotationValues(mapping);
+      assertArrayEquals(new String[] {"/endpoint"}, classValues.stringValues("value"));
+      assertFalse(classValues.booleanValue("readOnly", false));
+      assertNull(classValues.value("timeout"));
+
+      AnnotationValues fieldValues = outline.fields[0].annotationValues(mapping);
+      assertArrayEquals(new String[] {"/field"}, fieldValues.stringValues("value"));
+      assertEquals(':', fieldValues.value("sep"));
+
+      AnnotationValues methodValues = outline.methods[1].annotationValues(mapping);
+      assertArrayEquals(new String[] {"/internal", "/admin"}, methodValues.stringValues("value"));
+      assertTrue(methodValues.booleanValue("readOnly", false));
+      assertEquals(30, methodValues.intValue("timeout", -1));
+      assertEquals(1L << 40, methodValues.value("size"));
+      assertEquals(0.5, methodValues.value("weight"));
+      assertEquals("METHOD", methodValues.stringValue("kind"));
+      assertEquals("Ljava/lang/String;", methodValues.stringValue("type"));
+      AnnotationValues nestedValues = (AnnotationValues) methodValues.value("nested");
+      assertArrayEquals(new Object[] {"FIELD"}, (Object[]) nestedValues.value("value"));
+
+      assertNull(outline.methods[0].annotationValues(mapping));
+      assertNull(outline.methods[1].annotationValues("java/lang/Deprecated"));
+    }
+  }
+
+  @Test
+  void signatures() {
+    byte[] bytecode = sampleEndpointClass;
+    for (ClassOutline outline :
+        asList(ClassFile.outline(bytecode), ClassFile.lazyOutline(bytecode))) {
+      assertEquals(
+          "Ljava/lang/Object;Ljava/lang/Comparable<Lsample/MyEndpoint;>;", outline.signature());
+      assertNull(outline.fields[0].signature());
+      assertEquals(
+          "Ljava/util/Map<Ljava/lang/String;Ljava/util/List<Lsample/MyEndpoint;>;>;",
+          outline.fields[1].signature());
+      assertNull(outline.methods[1].signature());
+      assertEquals("sorted", outline.methods[2].methodName());
+      assertEquals(
+          "<T::Ljava/lang/Comparable<TT;>;>(Ljava/util/Collection<+TT;>;)Ljava/util/List<TT;>;",
+          outline.methods[2].signature());
+    }
+    assertNull(ClassFile.outline(sampleParametersClass).signature());
+  }
+
+  @Test
+  void classAttributes() throws IOException {
+    byte[] recordClass = jdkBytecode("jdk/net/UnixDomainPrincipal");
+    byte[] sealedClass = jdkBytecode("java/lang/constant/ConstantDesc");
+    byte[] nestMemberClass = jdkBytecode("java/util/Locale$IsoCountryCode");
+    assumeTrue(recordClass != null && sealedClass != null, "requires Java 17+");
+
+    for (ClassOutline outline :
+        asList(ClassFile.outline(recordClass), ClassFile.lazyOutline(recordClass))) {
+      FieldOutline[] components = outline.recordComponents();
+      assertEquals(2, components.length);
+      assertEquals("user", components[0].fieldName());
+      assertEquals("Ljava/nio/file/attribute/UserPrincipal;", components[0].descriptor());
+      assertEquals("group", components[1].fieldName());
+      assertEquals(0, components[1].access);
+      assertArrayEquals(new String[0], outline.permittedSubclasses());
+    }
+
+    for (ClassOutline outline :
+        asList(ClassFile.outline(sealedClass), ClassFile.lazyOutline(sealedClass))) {
+      assertTrue(asList(outline.permittedSubclasses()).contains("java/lang/String"));
+      assertArrayEquals(new String[0], outline.recordComponents());
+      assertNull(outline.nestHost());
+    }
+
+    for (ClassOutline outline :
+        asList(ClassFile.outline(nestMemberClass), ClassFile.lazyOutline(nestMemberClass))) {
+      assertEquals("java/util/Locale", outline.nestHost());
+      assertArrayEquals(new String[0], outline.nestMembers());
+    }
+    assertTrue(
+        asList(ClassFile.outline(jdkBytecode("java/util/Locale")).nestMembers())
+            .contains("java/util/Locale$IsoCountryCode"));
+  }
+
+  @Test
+  void references() {
+    ClassFile.referencesOfInterest(
+        asList("sample/My例クラス", "java/util/AbstractCollection", "java/util/AbstractList"));
+    byte[] endpointClass = sampleEndpointClass;
+    ByteBuffer buffer = directBuffer(sampleUnicodeClass);
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(sampleUnicodeClass),
+            ClassFile.lazyOutline(sampleUnicodeClass),
+            ClassFile.outline(buffer))) {
+      assertEquals(2, outline.references().length);
+      assertTrue(asList(outline.references()).contains("sample/My例クラス"));
+      assertTrue(asList(outline.references()).contains("java/util/AbstractCollection"));
+    }
+    assertArrayEquals(new String[0], ClassFile.outline(endpointClass).references());
+  }
+
+  @Test
+  void triage() throws IOException {
+    testParsing(
+        "asm-test.jar",
+        bytecode -> {
+          long triage = ClassFile.triage(bytecode);
+          assertTrue(ClassTriage.isClassFile(triage));
+          ClassHeader header = ClassFile.header(bytecode);
+          assertEquals(header.access, ClassTriage.access(triage));
+          assertEquals(
+              header.superName == null && header.access == ACC_MODULE,
+              ClassTriage.isModule(triage));
+          int majorVersion = (bytecode[6] & 0xFF) << 8 | bytecode[7] & 0xFF;
+          assertEquals(majorVersion, ClassTriage.majorVersion(triage));
+        });
+
+    byte[] mappingClass =
+        Files.readAllBytes(Paths.get("build/classes/java/test/sample/MyEndpoint$Mapping.class"));
+    long mapping = ClassFile.triage(mappingClass);
+    assertTrue(ClassTriage.isAnnotation(mapping));
+    assertTrue(ClassTriage.isInterface(mapping));
+    assertFalse(ClassTriage.isSynthetic(mapping));
+    assertFalse(ClassTriage.isEnum(mapping));
+    assertEquals(0, ClassTriage.minorVersion(mapping));
+    assertTrue(ClassTriage.majorVersion(mapping) >= 52);
+    assertTrue(ClassTriage.constantPoolCount(mapping) > 1);
+
+    long unicode = ClassFile.triage(sampleUnicodeClass);
+    assertEquals(unicode, ClassFile.triage(sampleClassAtOffset, SAMPLE_OFFSET));
+    assertFalse(ClassTriage.isAnnotation(unicode));
+    assertEquals(ClassFile.header(sampleUnicodeClass).access, ClassTriage.access(unicode));
+
+    // malformed content
+    assertEquals(ClassTriage.NOT_A_CLASS, ClassFile.triage(new byte[0]));
+    assertEquals(ClassTriage.NOT_A_CLASS, ClassFile.triage(sampleClassAtOffset));
+    assertEquals(ClassTriage.NOT_A_CLASS, ClassFile.triage(Arrays.copyOf(sampleUnicodeClass, 100)));
+    assertFalse(ClassTriage.isClassFile(ClassFile.triage(sampleUnicodeClass, 1)));
+  }
+
+  @Test
+  void moduleDescriptor() throws IOException {
+    assumeTrue(JVM.atLeastJava(9));
+
+    byte[] bytecode = javaBaseModuleInfo();
+
+    assertNull(ClassFile.header(bytecode).superName);
+    for (ClassOutline outline :
+        asList(ClassFile.outline(bytecode), ClassFile.lazyOutline(bytecode))) {
+      ModuleOutline module = outline.module();
+      assertNotNull(module);
+      assertModuleMatches(bytecode, module);
+      assertFalse(module.requires("com.acme"));
+      assertFalse(module.exports("com/acme/unknown", "java.logging"));
+    }
+
+    // module descriptors are class attributes, so plans must ask for them
+    ClassOutline withoutAttributes =
+        ClassFile.outline(bytecode, ParsePlan.of(ClassMatcher.declares(MethodMatcher.method("x"))));
+    assertNull(withoutAttributes.module());
+    assertNull(ClassFile.outline(sampleUnicodeClass).module());
+  }
+
+  @Test
+  void lazyOutline() {
+    ClassFile.annotationsOfInterest(
+        asList("java/lang/Deprecated", "java/lang/FunctionalInterface"));
+    testParsing("asm-test.jar", ClassFileTest::assertLazyOutlineMatches);
+  }
+
+  @Test
+  void unicodeLazyOutline() {
+    ClassFile.annotationOfInterest("java/lang/SafeVarargs");
+    ClassOutline outline = ClassFile.lazyOutline(sampleUnicodeClass);
+
+    assertEquals("sample/My例クラス", outline.className);
+    assertEquals("java/util/AbstractCollection", outline.superName);
+    assertArrayEquals(new String[] {"java/io/Serializable"}, outline.interfaces);
+    assertArrayEquals(new String[0], outline.annotations);
+    // member names, descriptors, and annotations are only decoded when requested
+    assertNull(outline.methods[1].methodName);
+    assertNull(outline.methods[1].descriptor);
+    assertNull(outline.fields[0].annotations);
+    assertEquals("何かをする", outline.methods[1].methodName());
+    assertSame(outline.methods[1].methodName(), outline.methods[1].methodName());
+    assertArrayEquals(new String[] {"java/lang/SafeVarargs"}, outline.methods[1].annotations());
+    assertEquals("([Ljava/lang/Object;)Ljava/lang/Boolean;", outline.methods[1].descriptor());
+    assertEquals("<init>", outline.methods[0].methodName());
+    assertEquals("()V", outline.methods[0].descriptor());
+    assertArrayEquals(new String[0], outline.methods[0].annotations());
+    assertEquals("Ljava/lang/String;", outline.fields[0].descriptor());
+    assertEquals("実例", outline.fields[0].fieldName());
+  }
+
+  @Test
+  void bufferOutline() {
+    ClassFile.annotationsOfInterest(
+        asList("java/lang/Deprecated", "java/lang/FunctionalInterface"));
+    testParsing("asm-test.jar", ClassFileTest::assertBufferOutlineMatches);
+  }
+
+  @Test
+  void internedStrings() {
+    ClassFile.internStrings(1024);
+    try {
+      ByteBuffer buffer = directBuffer(sampleParametersClass);
+      ClassOutline first = ClassFile.outline(sampleParametersClass);
+      ClassOutline second = ClassFile.outline(buffer);
+      assertOutlineMatches(first, second);
+      assertSame(first.superName, second.superName);
+      for (int i = 0; i < first.methods.length; i++) {
+        assertSame(first.methods[i].methodName, second.methods[i].methodName);
+        assertSame(first.methods[i].descriptor, second.methods[i].descriptor);
+      }
+      testParsing("asm-test.jar", ClassFileTest::assertLazyOutlineMatches);
+    } finally {
+      ClassFile.internStrings(0);
+    }
+  }
+
+  @Test
+  void parserReuse() {
+    ClassFile.annotationsOfInterest(
+        asList("java/lang/Deprecated", "java/lang/FunctionalInterface"));
+    ClassFileParser parser = new ClassFileParser();
+    testParsing(
+        "asm-test.jar",
+        bytecode -> {
+          ClassOutline expected = ClassFile.lazyOutline(bytecode);
+          ClassHeader header = parser.header(bytecode);
+          assertEquals(expected.className, header.className);
+          assertEquals(expected.superName, header.superName);
+          assertArrayEquals(expected.interfaces, header.interfaces);
+          assertOutlineMatches(expected, parser.outline(bytecode));
+          ByteBuffer buffer = directBuffer(bytecode);
+          assertOutlineMatches(expected, parser.outline(buffer));
+        });
+  }
+
+  @Test
+  void parserDropsOversizedTables() throws IOException {
+    byte[] largeClass = largeConstantPoolClass(20_000);
+    ClassFileParser parser = new ClassFileParser();
+    assertEquals("sample/Large", parser.header(new ByteArrayInputStream(largeClass)).className);
+    assertEquals("sample/Large", parser.outline(new ByteArrayInputStream(largeClass)).className);
+    assertEquals("sample/Large", parser.outline(largeClass).className);
+    // tables grown for an unusually large class are not kept
+    assertTrue(parser.streamCapacity() < largeClass.length);
+    assertEquals(0, parser.cpCapacity());
+    // typical tables are kept for re-use
+    parser.outline(sampleUnicodeClass);
+    assertTrue(parser.cpCapacity() > 0);
+  }
+
+  @Test
+  void bufferParsing() {
+    ByteBuffer heapBuffer = ByteBuffer.wrap(sampleClassAtOffset);
+    ((Buffer) heapBuffer).position(SAMPLE_OFFSET); // cast so this also links on Java 8
+    ByteBuffer directBuffer = directBuffer(sampleUnicodeClass).order(ByteOrder.LITTLE_ENDIAN);
+
+    for (ByteBuffer buffer : asList(heapBuffer, heapBuffer.asReadOnlyBuffer(), directBuffer)) {
+      int position = buffer.position();
+
+      ClassHeader header = ClassFile.header(buffer);
+      assertEquals("sample/My例クラス", header.className);
+      assertEquals("java/util/AbstractCollection", header.superName);
+      assertArrayEquals(new String[] {"java/io/Serializable"}, header.interfaces);
+
+      for (ClassOutline outline :
+          asList(ClassFile.outline(buffer), ClassFile.lazyOutline(buffer))) {
+        assertEquals("sample/My例クラス", outline.className);
+        assertEquals(1, outline.fields.length);
+        assertEquals("実例", outline.fields[0].fieldName());
+        assertEquals(2, outline.methods.length);
+        assertEquals("何かをする", outline.methods[1].methodName());
+        assertEquals("([Ljava/lang/Object;)Ljava/lang/Boolean;", outline.methods[1].descriptor());
+      }
+
+      // parsing must not disturb the original buffer
+      assertEquals(position, buffer.position());
+    }
+    assertEquals(ByteOrder.LITTLE_ENDIAN, directBuffer.order());
+  }
+
+  @Test
+  void serializedOutline() {
+    ClassFile.annotationsOfInterest(
+        asList("java/lang/Deprecated", "java/lang/FunctionalInterface"));
+    ClassFile.referencesOfInterest(asList("java/lang/String", "java/util/List"));
+    testParsing("asm-test.jar", ClassFileTest::assertSerializedOutlineMatches);
+  }
+
+  @Test
+  void serializedValues() throws IOException {
+    String mapping = "sample/MyEndpoint$Mapping";
+    ClassFile.annotationValuesOfInterest(mapping);
+    byte[] bytecode = sampleEndpointClass;
+    ClassOutline outline = roundTrip(ClassFile.lazyOutline(bytecode));
+
+    AnnotationValues classValues = outline.annotationValues(mapping);
+    assertArrayEquals(new String[] {"/endpoint"}, classValues.stringValues("value"));
+    assertEquals(':', outline.fields[0].annotationValues(mapping).value("sep"));
+    AnnotationValues methodValues = outline.methods[1].annotationValues(mapping);
+    assertArrayEquals(new String[] {"/internal", "/admin"}, methodValues.stringValues("value"));
+    assertTrue(methodValues.booleanValue("readOnly", false));
+    assertEquals(30, methodValues.intValue("timeout", -1));
+    assertEquals(1L << 40, methodValues.value("size"));
+    assertEquals(0.5, methodValues.value("weight"));
+    assertEquals("METHOD", methodValues.stringValue("kind"));
+    AnnotationValues nestedValues = (AnnotationValues) methodValues.value("nested");
+    assertArrayEquals(new Object[] {"FIELD"}, (Object[]) nestedValues.value("value"));
+    assertNull(outline.methods[0].annotationValues(mapping));
+
+    if (JVM.atLeastJava(9)) {
+      ClassOutline moduleInfo = ClassFile.outline(javaBaseModuleInfo());
+      assertModuleOutlineMatches(moduleInfo.module(), roundTrip(moduleInfo).module());
+    }
+
+    // headers can be written and read on their own
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ClassFile.header(sampleUnicodeClass).writeTo(new DataOutputStream(bytes));
+    ClassHeader header =
+        ClassHeader.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertFalse(header instanceof ClassOutline);
+    assertEquals("sample/My例クラス", header.className);
+    assertEquals("java/util/AbstractCollection", header.superName);
+    assertArrayEquals(new String[] {"java/io/Serializable"}, header.interfaces);
+    ByteBuffer headerOnly = ByteBuffer.wrap(bytes.toByteArray());
+    assertThrows(IOException.class, () -> ClassOutline.readFrom(headerOnly));
+    ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(bytes.toByteArray(), 10));
+    assertThrows(EOFException.class, () -> ClassHeader.readFrom(truncated));
+
+    // buffer input supports the rest of DataInput, including lines
+    OutlineCodec.BufferInput lines =
+        new OutlineCodec.BufferInput(ByteBuffer.wrap("a\nb\r\n\rc".getBytes(US_ASCII)));
+    assertEquals("a", lines.readLine());
+    assertEquals("b", lines.readLine());
+    assertEquals("", lines.readLine());
+    assertEquals("c", lines.readLine());
+    assertNull(lines.readLine());
+  }
+
+  @Test
+  void varHandleReads() {
+    assumeTrue(JVM.atLeastJava(9));
+
+    ClassBytes.ArrayBytes content = ClassBytes.ArrayBytes.of(sampleUnicodeClass);
+    assertEquals(ClassBytes.VarHandleBytes.class, content.getClass());
+    ClassBytes.ArrayBytes baseline = new ClassBytes.ArrayBytes(sampleUnicodeClass);
+    for (int offset = 0; offset + 4 <= sampleUnicodeClass.length; offset++) {
+      assertEquals(baseline.u2(offset), content.u2(offset));
+      assertEquals(baseline.u4(offset), content.u4(offset));
+    }
+  }
+
+  @Test
+  void asciiDetection() {
+    for (int len = 0; len < 40; len++) {
+      StringBuilder buf = new StringBuilder();
+      for (int i = 0; i < len; i++) {
+        buf.append((char) ('a' + i % 26));
+      }
+      assertUtfDecoding(buf.toString());
+      // place a non-ASCII character at each position, to check each part of the scan
+      for (int i = 0; i < len; i++) {
+        buf.setCharAt(i, '\u00e9');
+        assertUtfDecoding(buf.toString());
+        buf.setCharAt(i, (char) ('a' + i % 26));
+      }
+    }
+  }
+
   @Test
   void parameterParsing() {
     ClassOutline outline = ClassFile.outline(sampleParametersClass);
@@ -111,6 +581,248 @@ class ClassFileTest {
     assertEquals(2, outline.methods.length);
   }
 
+  private static void assertUtfDecoding(String expected) {
+    byte[] utf = UtfNames.modifiedUtf8(expected);
+    // prefix some padding, so content doesn't line up with the start of the array
+    byte[] bytes = new byte[utf.length + 5];
+    bytes[3] = (byte) (utf.length >> 8);
+    bytes[4] = (byte) utf.length;
+    System.arraycopy(utf, 0, bytes, 5, utf.length);
+
+    ByteBuffer directBuffer = directBuffer(bytes);
+
+    assertEquals(expected, new ClassBytes.ArrayBytes(bytes).utf(3));
+    assertEquals(expected, ClassBytes.ArrayBytes.of(bytes).utf(3));
+    assertEquals(expected, new ClassBytes.BufferBytes(directBuffer).utf(3));
+  }
+
+  private static void assertLazyOutlineMatches(byte[] bytecode) {
+    assertOutlineMatches(ClassFile.outline(bytecode), ClassFile.lazyOutline(bytecode));
+  }
+
+  static void assertOutlineMatches(ClassOutline expected, ClassOutline actual) {
+    assertEquals(expected.access, actual.access);
+    assertEquals(expected.className, actual.className);
+    assertEquals(expected.superName, actual.superName);
+    assertArrayEquals(expected.interfaces, actual.interfaces);
+    assertArrayEquals(expected.references(), actual.references());
+    assertArrayEquals(expected.constants(), actual.constants());
+    for (String owner : expected.references()) {
+      MethodOutline[] expectedInvoked = expected.invokedMethods(owner);
+      MethodOutline[] actualInvoked = actual.invokedMethods(owner);
+      assertEquals(expectedInvoked.length, actualInvoked.length);
+      for (int i = 0; i < expectedInvoked.length; i++) {
+        assertEquals(expectedInvoked[i].methodName(), actualInvoked[i].methodName());
+        assertEquals(expectedInvoked[i].descriptor(), actualInvoked[i].descriptor());
+      }
+    }
+    assertEquals(expected.signature(), actual.signature());
+    assertArrayEquals(expected.annotations, actual.annotations);
+    assertArrayEquals(expected.permittedSubclasses(), actual.permittedSubclasses());
+    assertEquals(expected.nestHost(), actual.nestHost());
+    assertArrayEquals(expected.nestMembers(), actual.nestMembers());
+    assertEquals(expected.recordComponents().length, actual.recordComponents().length);
+    assertEquals(expected.fields.length, actual.fields.length);
+    for (int i = 0; i < expected.fields.length; i++) {
+      assertEquals(expected.fields[i].access, actual.fields[i].access);
+      assertEquals(expected.fields[i].fieldName(), actual.fields[i].fieldName());
+      assertEquals(expected.fields[i].descriptor(), actual.fields[i].descriptor());
+      assertEquals(expected.fields[i].signature(), actual.fields[i].signature());
+      assertArrayEquals(expected.fields[i].annotations(), actual.fields[i].annotations());
+    }
+    assertEquals(expected.methods.length, actual.methods.length);
+    for (int i = 0; i < expected.methods.length; i++) {
+      assertEquals(expected.methods[i].access, actual.methods[i].access);
+      assertEquals(expected.methods[i].methodName(), actual.methods[i].methodName());
+      assertEquals(expected.methods[i].descriptor(), actual.methods[i].descriptor());
+      assertEquals(expected.methods[i].signature(), actual.methods[i].signature());
+      assertArrayEquals(expected.methods[i].annotations(), actual.methods[i].annotations());
+      for (int p = 0; p <= expected.methods[i].parameterCount(); p++) {
+        assertArrayEquals(
+            expected.methods[i].parameterAnnotations(p), actual.methods[i].parameterAnnotations(p));
+      }
+    }
+  }
+
+  private static void assertBufferOutlineMatches(byte[] bytecode) {
+    ByteBuffer buffer = directBuffer(bytecode);
+    assertOutlineMatches(ClassFile.outline(bytecode), ClassFile.outline(buffer));
+    assertOutlineMatches(ClassFile.outline(bytecode), ClassFile.lazyOutline(buffer));
+  }
+
+  private static void assertSerializedOutlineMatches(byte[] bytecode) {
+    ClassOutline expected = ClassFile.outline(bytecode);
+    for (ClassOutline outline : asList(expected, ClassFile.lazyOutline(bytecode))) {
+      ClassOutline actual = roundTrip(outline);
+      assertOutlineMatches(expected, actual);
+      for (int i = 0; i < expected.methods.length; i++) {
+        assertEquals(expected.methods[i].codeLength(), actual.methods[i].codeLength());
+        assertEquals(expected.methods[i].maxStack(), actual.methods[i].maxStack());
+        assertEquals(expected.methods[i].maxLocals(), actual.methods[i].maxLocals());
+        assertEquals(expected.methods[i].handlerCount(), actual.methods[i].handlerCount());
+      }
+      assertEquals(expected.isNested(), actual.isNested());
+      assertEquals(expected.isAnonymous(), actual.isAnonymous());
+      assertEquals(expected.enclosingClass(), actual.enclosingClass());
+    }
+  }
+
+  /** Writes the outline and reads it back, from both a stream and a byte-buffer. */
+  private static ClassOutline roundTrip(ClassOutline outline) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      outline.writeTo(out);
+      outline.writeTo(out);
+      ByteBuffer buffer = directBuffer(bytes.toByteArray());
+      ClassOutline fromStream =
+          ClassOutline.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+      ClassOutline first = ClassOutline.readFrom(buffer);
+      assertOutlineMatches(fromStream, first);
+      ClassOutline second = (ClassOutline) ClassHeader.readFrom(buffer);
+      assertEquals(0, buffer.remaining());
+      assertOutlineMatches(first, second);
+      return second;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Reads the class-file content of the given JDK class; {@code null} if it's not available. */
+  /** Copies the bytes into a new direct buffer, ready for reading. */
+  private static ByteBuffer directBuffer(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes);
+    ((Buffer) buffer).flip(); // cast so this also links on Java 8
+    return buffer;
+  }
+
+  /** Reads the module descriptor of {@code java.base} from the runtime image; Java 9+ only. */
+  private static byte[] javaBaseModuleInfo() throws IOException {
+    // classes in java.base find the descriptor of their own module
+    try (InputStream in = Object.class.getResourceAsStream("/module-info.class")) {
+      assertNotNull(in);
+      return JVM.readAllBytes(in);
+    }
+  }
+
+  /** Compares the outline against the JDK's own parsing of the module descriptor. */
+  @SuppressWarnings("Since15")
+  private static void assertModuleMatches(byte[] bytecode, ModuleOutline actual) {
+    // avoid ModuleDescriptor in signatures, so this class can still be loaded on Java 8
+    ModuleDescriptor expected = ModuleDescriptor.read(ByteBuffer.wrap(bytecode));
+    assertEquals(expected.name(), actual.moduleName);
+    assertEquals(expected.rawVersion().orElse(null), actual.version);
+    assertEquals(expected.isOpen(), actual.isOpen());
+
+    assertEquals(expected.requires().size(), actual.requires.length);
+    for (ModuleDescriptor.Requires r : expected.requires()) {
+      assertTrue(actual.requires(r.name()), r.name());
+    }
+    assertEquals(expected.exports().size(), actual.exports.length);
+    for (ModuleDescriptor.Exports e : expected.exports()) {
+      String packageName = e.source().replace('.', '/');
+      for (String target : e.targets()) {
+        assertTrue(actual.exports(packageName, target), packageName);
+      }
+      assertEquals(!e.isQualified(), actual.exports(packageName, "com.acme"), packageName);
+    }
+    assertEquals(expected.opens().size(), actual.opens.length);
+    for (ModuleDescriptor.Opens o : expected.opens()) {
+      String packageName = o.source().replace('.', '/');
+      for (String target : o.targets()) {
+        assertTrue(actual.opens(packageName, target), packageName);
+      }
+      assertEquals(!o.isQualified(), actual.opens(packageName, "com.acme"), packageName);
+    }
+
+    Set<String> expectedUses = new HashSet<>();
+    for (String service : expected.uses()) {
+      expectedUses.add(service.replace('.', '/'));
+    }
+    assertEquals(expectedUses, new HashSet<>(asList(actual.uses)));
+    Map<String, List<String>> expectedProvides = new HashMap<>();
+    for (ModuleDescriptor.Provides p : expected.provides()) {
+      List<String> implementations = new ArrayList<>();
+      for (String implementation : p.providers()) {
+        implementations.add(implementation.replace('.', '/'));
+      }
+      expectedProvides.put(p.service().replace('.', '/'), implementations);
+    }
+    Map<String, List<String>> actualProvides = new HashMap<>();
+    for (ModuleOutline.Provides p : actual.provides) {
+      actualProvides.put(p.service, asList(p.implementations));
+    }
+    assertEquals(expectedProvides, actualProvides);
+  }
+
+  private static void assertModuleOutlineMatches(ModuleOutline expected, ModuleOutline actual) {
+    assertEquals(expected.access, actual.access);
+    assertEquals(expected.moduleName, actual.moduleName);
+    assertEquals(expected.version, actual.version);
+    assertEquals(expected.requires.length, actual.requires.length);
+    for (int i = 0; i < expected.requires.length; i++) {
+      assertEquals(expected.requires[i].access, actual.requires[i].access);
+      assertEquals(expected.requires[i].moduleName, actual.requires[i].moduleName);
+      assertEquals(expected.requires[i].version, actual.requires[i].version);
+    }
+    assertExportsMatch(expected.exports, actual.exports);
+    assertExportsMatch(expected.opens, actual.opens);
+    assertArrayEquals(expected.uses, actual.uses);
+    assertEquals(expected.provides.length, actual.provides.length);
+    for (int i = 0; i < expected.provides.length; i++) {
+      assertEquals(expected.provides[i].service, actual.provides[i].service);
+      assertArrayEquals(expected.provides[i].implementations, actual.provides[i].implementations);
+    }
+  }
+
+  private static void assertExportsMatch(
+      ModuleOutline.Exports[] expected, ModuleOutline.Exports[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].access, actual[i].access);
+      assertEquals(expected[i].packageName, actual[i].packageName);
+      assertArrayEquals(expected[i].toModules, actual[i].toModules);
+    }
+  }
+
+  private static byte[] jdkBytecode(String internalName) throws IOException {
+    try (InputStream in = ClassLoader.getSystemResourceAsStream(internalName + ".class")) {
+      return in != null ? JVM.readAllBytes(in) : null;
+    }
+  }
+
+  /** Generates a class-file whose constant-pool has the given number of entries. */
+  @SuppressWarnings("SameParameterValue")
+  private static byte[] largeConstantPoolClass(int cpLen) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0); // minor version
+    out.writeShort(52); // major version
+    out.writeShort(cpLen);
+    out.writeByte(1); // #1 CONSTANT_Utf8
+    out.writeUTF("sample/Large");
+    out.writeByte(7); // #2 CONSTANT_Class
+    out.writeShort(1);
+    out.writeByte(1); // #3 CONSTANT_Utf8
+    out.writeUTF("java/lang/Object");
+    out.writeByte(7); // #4 CONSTANT_Class
+    out.writeShort(3);
+    for (int i = 5; i < cpLen; i++) {
+      out.writeByte(1); // CONSTANT_Utf8
+      out.writeUTF("constant" + i);
+    }
+    out.writeShort(0x0021); // public super
+    out.writeShort(2); // this class
+    out.writeShort(4); // super class
+    out.writeShort(0); // interfaces
+    out.writeShort(0); // fields
+    out.writeShort(0); // methods
+    out.writeShort(0); // attributes
+    return bytes.toByteArray();
+  }
+
   @SuppressWarnings("SameParameterValue")
   private static void testParsing(String sampleJar, Consumer<byte[]> parser) {
     byte[] buf = new byte[16384];
@@ -0,0 +1,148 @@
+package datadog.instrument.classmatch;
+
+import static datadog.instrument.testing.SampleClasses.loadBytecode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class OutlineCacheTest {
+
+  @Test
+  void sharedOutlines() {
+    OutlineCache cache = new OutlineCache(64);
+    byte[] bytecode = ClassFileTest.sampleUnicodeClass;
+    ClassOutline outline = cache.outline(bytecode);
+    assertEquals("sample/My例クラス", outline.className);
+    // identical content from another source shares the outline
+    assertSame(outline, cache.outline(bytecode.clone()));
+    assertNotSame(outline, cache.outline(ClassFileTest.sampleParametersClass));
+
+    cache.clear();
+    assertNotSame(outline, cache.outline(bytecode));
+  }
+
+  @Test
+  void sharedMatchResults() {
+    OutlineCache cache = new OutlineCache(64);
+    AtomicInteger serializableTests = new AtomicInteger();
+    ClassMatcher serializable =
+        c -> {
+          serializableTests.incrementAndGet();
+          return c.interfaces.length > 0;
+        };
+    ClassMatcher collection = ClassMatcher.extendsClass("java/util/AbstractCollection");
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(cache.matches(ClassFileTest.sampleUnicodeClass.clone(), serializable));
+      assertTrue(cache.matches(ClassFileTest.sampleUnicodeClass.clone(), collection));
+      assertFalse(cache.matches(ClassFileTest.sampleParametersClass.clone(), collection));
+    }
+    assertEquals(1, serializableTests.get());
+
+    // results are still correct for matchers beyond the cached limit
+    for (int i = 0; i < 40; i++) {
+      String superName = i == 39 ? "java/util/AbstractCollection" : "Unknown" + i;
+      assertEquals(
+          i == 39,
+          cache.matches(ClassFileTest.sampleUnicodeClass, ClassMatcher.extendsClass(superName)));
+    }
+    assertTrue(cache.matches(ClassFileTest.sampleUnicodeClass, serializable));
+    assertEquals(1, serializableTests.get());
+  }
+
+  @Test
+  void rejectedClasses() {
+    ClassMatcher declaresX = ClassMatcher.declares(MethodMatcher.method("x"));
+    ParsePlan plan =
+        ParsePlan.of(declaresX).withClassNameFilter(name -> name.toString().startsWith("java."));
+    OutlineCache cache = new OutlineCache(64, plan);
+    assertNull(cache.outline(ClassFileTest.sampleUnicodeClass));
+    assertFalse(cache.matches(ClassFileTest.sampleUnicodeClass, declaresX));
+  }
+
+  @Test
+  void uncoveredMatchers() {
+    ClassMatcher declaresX = ClassMatcher.declares(MethodMatcher.method("x"));
+    OutlineCache cache = new OutlineCache(64, ParsePlan.of(declaresX));
+    assertFalse(cache.matches(ClassFileTest.sampleUnicodeClass, declaresX));
+    // matchers that need more than the plan parses are rejected, rather than caching bad results
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> cache.matches(ClassFileTest.sampleUnicodeClass, c -> true));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            cache.matches(
+                ClassFileTest.sampleUnicodeClass,
+                ClassMatcher.annotatedWith("java.lang.Deprecated")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            cache.matches(
+                ClassFileTest.sampleUnicodeClass,
+                ClassMatcher.containsConstant(s -> s.length() > 0)));
+
+    ClassMatcher exampleConstant =
+        ClassMatcher.containsConstant(s -> s.toString().equals("example"));
+    OutlineCache constantsCache = new OutlineCache(64, ParsePlan.of(exampleConstant));
+    assertTrue(constantsCache.matches(ClassFileTest.sampleUnicodeClass, exampleConstant));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            constantsCache.matches(
+                ClassFileTest.sampleUnicodeClass,
+                ClassMatcher.containsConstant(s -> s.toString().equals("example"))));
+  }
+
+  @Test
+  void eviction() {
+    List<byte[]> bytecodes = loadBytecode("asm-test.jar");
+    assertTrue(bytecodes.size() > 100);
+
+    // small cache must keep evicting, without confusing outlines
+    OutlineCache cache = new OutlineCache(16);
+    for (int round = 0; round < 2; round++) {
+      for (byte[] bytecode : bytecodes) {
+        String className = ClassFile.header(bytecode).className;
+        assertEquals(className, cache.outline(bytecode).className);
+        ClassBytes content = ClassBytes.ArrayBytes.of(bytecode);
+        assertEquals(className, content.utf(ClassBytes.classNameOffset(bytecode)));
+      }
+    }
+  }
+
+  @Test
+  void contentHash() {
+    byte[] bytes = new byte[100];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (i * 31);
+    }
+    // every length and every byte position contributes to the hash
+    Set<Long> hashes = new HashSet<>();
+    for (int len = 0; len <= bytes.length; len++) {
+      assertTrue(hashes.add(ClassBytes.ArrayBytes.of(bytes).contentHash(0, len, 0)));
+    }
+    long original = ClassBytes.ArrayBytes.of(bytes).contentHash(0, bytes.length, 0);
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] ^= 1;
+      assertNotEquals(original, ClassBytes.ArrayBytes.of(bytes).contentHash(0, bytes.length, 0));
+      bytes[i] ^= 1;
+    }
+    // the seed changes every hash, short or long
+    for (int len : new int[] {0, 7, 31, 32, bytes.length}) {
+      ClassBytes.ArrayBytes content = ClassBytes.ArrayBytes.of(bytes);
+      assertNotEquals(content.contentHash(0, len, 0), content.contentHash(0, len, 42));
+    }
+  }
+}
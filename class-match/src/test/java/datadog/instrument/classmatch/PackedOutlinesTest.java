@@ -0,0 +1,96 @@
+package datadog.instrument.classmatch;
+
+import static datadog.instrument.classmatch.ClassFileTest.assertOutlineMatches;
+import static datadog.instrument.testing.SampleClasses.loadBytecode;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PackedOutlinesTest {
+
+  @Test
+  void packedOutlines() {
+    ClassFile.annotationsOfInterest(
+        asList("java/lang/Deprecated", "java/lang/FunctionalInterface"));
+    ClassFile.referencesOfInterest(asList("java/lang/String", "java/util/List"));
+    List<byte[]> bytecodes = loadBytecode("asm-test.jar");
+
+    PackedOutlines packed = new PackedOutlines();
+    for (byte[] bytecode : bytecodes) {
+      packed.add(ClassFile.outline(bytecode));
+      packed.add(ClassFile.lazyOutline(bytecode));
+    }
+    packed.trimToSize();
+    assertEquals(bytecodes.size() * 2, packed.size());
+
+    List<ClassMatcher> matchers =
+        asList(
+            ClassMatcher.extendsClass("java/lang/Object"),
+            ClassMatcher.annotatedWith("java/lang/Deprecated"),
+            ClassMatcher.declares(MethodMatcher.method("toString")),
+            ClassMatcher.declares(MethodMatcher.method().codeSizeAtMost(8)),
+            ClassMatcher.references("java/util/List"),
+            ClassMatcher.nested(),
+            ClassMatcher.record());
+
+    for (int i = 0; i < bytecodes.size(); i++) {
+      ClassOutline expected = ClassFile.outline(bytecodes.get(i));
+      for (int index : new int[] {i * 2, i * 2 + 1}) {
+        assertEquals(expected.className, packed.className(index));
+        assertArrayEquals(expected.interfaces, packed.header(index).interfaces);
+        ClassOutline actual = packed.outline(index);
+        assertOutlineMatches(expected, actual);
+        for (int m = 0; m < expected.methods.length; m++) {
+          assertEquals(expected.methods[m].codeLength(), actual.methods[m].codeLength());
+          assertEquals(expected.methods[m].maxStack(), actual.methods[m].maxStack());
+          assertEquals(expected.methods[m].maxLocals(), actual.methods[m].maxLocals());
+          assertEquals(expected.methods[m].handlerCount(), actual.methods[m].handlerCount());
+        }
+        assertEquals(expected.isNested(), actual.isNested());
+        assertEquals(expected.enclosingClass(), actual.enclosingClass());
+        for (ClassMatcher matcher : matchers) {
+          assertEquals(matcher.test(expected), packed.matches(index, matcher));
+        }
+      }
+    }
+
+    // names are interned across the store
+    assertSame(packed.outline(0).superName, packed.outline(1).superName);
+    assertThrows(IndexOutOfBoundsException.class, () -> packed.outline(packed.size()));
+  }
+
+  @Test
+  void packedAnnotationValues() {
+    String mapping = "sample/MyEndpoint$Mapping";
+    ClassFile.annotationValuesOfInterest(mapping);
+    byte[] bytecode = ClassFileTest.sampleEndpointClass;
+    PackedOutlines packed = new PackedOutlines();
+    packed.add(ClassFile.outline(ClassFileTest.sampleUnicodeClass));
+    int index = packed.add(ClassFile.lazyOutline(bytecode));
+
+    ClassOutline outline = packed.outline(index);
+    assertArrayEquals(
+        new String[] {"/endpoint"}, outline.annotationValues(mapping).stringValues("value"));
+    assertEquals(':', outline.fields[0].annotationValues(mapping).value("sep"));
+    AnnotationValues methodValues = outline.methods[1].annotationValues(mapping);
+    assertArrayEquals(new String[] {"/internal", "/admin"}, methodValues.stringValues("value"));
+    assertEquals(30, methodValues.intValue("timeout", -1));
+    assertNull(outline.methods[0].annotationValues(mapping));
+    assertNull(packed.outline(0).annotationValues(mapping));
+
+    assertTrue(
+        packed.matches(
+            index,
+            ClassMatcher.declares(
+                MethodMatcher.method()
+                    .annotatedWith(mapping, v -> v.booleanValue("readOnly", false)))));
+  }
+
+}
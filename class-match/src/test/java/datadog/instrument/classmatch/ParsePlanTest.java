@@ -0,0 +1,644 @@
+package datadog.instrument.classmatch;
+
+import static datadog.instrument.classmatch.ClassMatcher.access;
+import static datadog.instrument.classmatch.ClassMatcher.annotatedWith;
+import static datadog.instrument.classmatch.ClassMatcher.anonymous;
+import static datadog.instrument.classmatch.ClassMatcher.containsConstant;
+import static datadog.instrument.classmatch.ClassMatcher.declares;
+import static datadog.instrument.classmatch.ClassMatcher.enclosedBy;
+import static datadog.instrument.classmatch.ClassMatcher.extendsClass;
+import static datadog.instrument.classmatch.ClassMatcher.implementsInterface;
+import static datadog.instrument.classmatch.ClassMatcher.invokes;
+import static datadog.instrument.classmatch.ClassMatcher.nested;
+import static datadog.instrument.classmatch.ClassMatcher.permits;
+import static datadog.instrument.classmatch.ClassMatcher.record;
+import static datadog.instrument.classmatch.ClassMatcher.recordComponent;
+import static datadog.instrument.classmatch.ClassMatcher.references;
+import static datadog.instrument.classmatch.ClassMatcher.sealed;
+import static datadog.instrument.classmatch.ClassMatcher.signature;
+import static datadog.instrument.classmatch.ClassMatcher.synthetic;
+import static datadog.instrument.classmatch.FieldMatcher.field;
+import static datadog.instrument.classmatch.MethodMatcher.constructor;
+import static datadog.instrument.classmatch.MethodMatcher.method;
+import static datadog.instrument.classmatch.ParsePlan.ALL_SECTIONS;
+import static datadog.instrument.classmatch.SignatureMatcher.parameterized;
+import static datadog.instrument.classmatch.SignatureMatcher.superType;
+import static datadog.instrument.classmatch.StandardMatchers.not;
+import static datadog.instrument.testing.SampleClasses.loadBytecode;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import datadog.instrument.utils.ClassNameFilter;
+import datadog.instrument.utils.ClassNameTrie;
+import datadog.instrument.utils.JVM;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+class ParsePlanTest {
+
+  @Test
+  void headerOnly() {
+    ParsePlan plan =
+        ParsePlan.of(
+            access(AccessMatcher.PUBLIC),
+            extendsClass("java.lang.Number").or(implementsInterface("java.io.Serializable")));
+    assertTrue(plan.headerOnly());
+    assertFalse(plan.needsFields());
+    assertFalse(plan.needsMethods());
+    assertFalse(plan.needsClassAnnotations());
+    assertFalse(plan.needsMethodAnnotations());
+
+    byte[] bytecode = ClassFileTest.sampleParametersClass;
+    ClassOutline outline = ClassFile.outline(bytecode, plan);
+    ClassHeader header = ClassFile.header(bytecode);
+    assertEquals(header.className, outline.className);
+    assertEquals(header.superName, outline.superName);
+    assertArrayEquals(header.interfaces, outline.interfaces);
+    assertEquals(0, outline.fields.length);
+    assertEquals(0, outline.methods.length);
+    assertEquals(0, outline.annotations.length);
+  }
+
+  @Test
+  void sections() {
+    ParsePlan fieldsPlan = ParsePlan.of(declares(field("value")));
+    assertTrue(fieldsPlan.needsFields());
+    assertFalse(fieldsPlan.needsMethods());
+    assertFalse(fieldsPlan.needsClassAnnotations());
+    assertFalse(fieldsPlan.needsMethodAnnotations());
+
+    ParsePlan fieldAnnotationsPlan =
+        ParsePlan.of(
+            declares(field().annotatedWith("javax.inject.Inject").access(AccessMatcher.FINAL)));
+    assertTrue(fieldAnnotationsPlan.needsFields());
+    assertFalse(fieldAnnotationsPlan.needsMethods());
+    assertTrue(fieldAnnotationsPlan.needsFieldAnnotations());
+    assertFalse(fieldAnnotationsPlan.needsMethodAnnotations());
+    assertTrue(ParsePlan.of(declares(not(field().annotatedWith("a.B")))).needsFieldAnnotations());
+    assertFalse(fieldsPlan.needsFieldAnnotations());
+
+    ParsePlan methodsPlan = ParsePlan.of(declares(AccessMatcher.PUBLIC, constructor()));
+    assertFalse(methodsPlan.needsFields());
+    assertTrue(methodsPlan.needsMethods());
+    assertFalse(methodsPlan.needsClassAnnotations());
+    assertFalse(methodsPlan.needsMethodAnnotations());
+
+    ParsePlan methodAnnotationsPlan =
+        ParsePlan.of(declares(method("get").annotatedWith("java.lang.Deprecated")));
+    assertFalse(methodAnnotationsPlan.needsFields());
+    assertTrue(methodAnnotationsPlan.needsMethods());
+    assertFalse(methodAnnotationsPlan.needsClassAnnotations());
+    assertTrue(methodAnnotationsPlan.needsMethodAnnotations());
+
+    ParsePlan parameterAnnotationsPlan =
+        ParsePlan.of(declares(method().parameterAnnotatedWith(0, "javax.ws.rs.PathParam")));
+    assertTrue(parameterAnnotationsPlan.needsMethods());
+    assertFalse(parameterAnnotationsPlan.needsMethodAnnotations());
+    assertTrue(parameterAnnotationsPlan.needsParameterAnnotations());
+    assertFalse(methodAnnotationsPlan.needsParameterAnnotations());
+
+    ParsePlan negatedPlan =
+        ParsePlan.of(declares(not(method().annotatedWith("java.lang.Deprecated"))));
+    assertTrue(negatedPlan.needsMethodAnnotations());
+
+    // custom member matchers are assumed to need everything about their members
+    ParsePlan customMethodPlan =
+        ParsePlan.of(declares(method("run").and(m -> m.parameterCount() == 0)));
+    assertTrue(customMethodPlan.needsMethodAnnotations());
+    assertTrue(customMethodPlan.needsParameterAnnotations());
+    assertTrue(customMethodPlan.needsSignatures());
+    assertTrue(customMethodPlan.needsCode());
+    assertFalse(customMethodPlan.needsFields());
+    assertFalse(customMethodPlan.needsClassAnnotations());
+    FieldMatcher customField = f -> f.access == 0;
+    ParsePlan customFieldPlan = ParsePlan.of(declares(customField));
+    assertTrue(customFieldPlan.needsFieldAnnotations());
+    assertTrue(customFieldPlan.needsSignatures());
+    assertFalse(customFieldPlan.needsMethods());
+    assertFalse(customFieldPlan.needsCode());
+    assertFalse(methodsPlan.needsSignatures());
+    assertFalse(methodsPlan.needsCode());
+
+    ParsePlan classAnnotationsPlan =
+        ParsePlan.of(access(AccessMatcher.FINAL).and(annotatedWith("java.lang.Deprecated")));
+    assertFalse(classAnnotationsPlan.needsFields());
+    assertFalse(classAnnotationsPlan.needsMethods());
+    assertTrue(classAnnotationsPlan.needsClassAnnotations());
+    assertFalse(classAnnotationsPlan.needsMethodAnnotations());
+
+    ParsePlan classAttributesPlan = ParsePlan.of(sealed(), recordComponent(field("id")));
+    assertFalse(classAttributesPlan.needsFields());
+    assertFalse(classAttributesPlan.needsMethods());
+    assertFalse(classAttributesPlan.needsClassAnnotations());
+    assertTrue(classAttributesPlan.needsClassAttributes());
+    assertTrue(ParsePlan.of(record()).headerOnly());
+
+    ParsePlan referencesPlan = ParsePlan.of(references("java.sql.Statement"));
+    assertFalse(referencesPlan.headerOnly());
+    assertFalse(referencesPlan.needsFields());
+    assertFalse(referencesPlan.needsMethods());
+    assertTrue(referencesPlan.needsReferences());
+    assertFalse(classAttributesPlan.needsReferences());
+    assertFalse(referencesPlan.needsInvocations());
+
+    ParsePlan invocationsPlan = ParsePlan.of(invokes("java.sql.Statement", method("execute")));
+    assertFalse(invocationsPlan.headerOnly());
+    assertFalse(invocationsPlan.needsMethods());
+    assertTrue(invocationsPlan.needsReferences());
+    assertTrue(invocationsPlan.needsInvocations());
+
+    ParsePlan customPlan = ParsePlan.of(declares(field("value")), c -> c.methods.length > 1);
+    assertTrue(customPlan.needsFields());
+    assertTrue(customPlan.needsMethods());
+    assertTrue(customPlan.needsClassAnnotations());
+    assertTrue(customPlan.needsMethodAnnotations());
+    assertTrue(customPlan.needsClassAttributes());
+    assertTrue(customPlan.needsReferences());
+    assertTrue(customPlan.needsInvocations());
+    assertTrue(customPlan.needsConstants());
+    assertTrue(customPlan.needsCode());
+
+    ParsePlan codePlan = ParsePlan.of(declares(method("handle").codeSizeAtMost(100)));
+    assertTrue(codePlan.needsMethods());
+    assertTrue(codePlan.needsCode());
+    assertFalse(codePlan.needsMethodAnnotations());
+  }
+
+  @Test
+  void plannedMatching() {
+    ClassMatcher[] matchers = {
+      extendsClass("java.lang.Number"),
+      declares(field("serialVersionUID")),
+      declares(field().annotatedWith("java.lang.Deprecated")),
+      declares(AccessMatcher.STATIC, method("valueOf")),
+      declares(method().annotatedWith("java.lang.Deprecated")),
+      declares(method().parameterAnnotatedWith(0, "java.lang.Deprecated")),
+      annotatedWith("java.lang.FunctionalInterface"),
+      sealed(),
+      anonymous(),
+      nested().and(enclosedBy("org.objectweb.asm.ClassWriter")),
+      references("java.lang.StringBuilder", "java.lang.IllegalArgumentException"),
+      invokes("java.lang.StringBuilder", method("append").parameters("int")),
+      containsConstant("", "UTF-8"),
+      containsConstant(s -> s.length() > 1 && s.charAt(0) == '<'),
+      not(declares(constructor())).and(implementsInterface("java.lang.Runnable"))
+    };
+    ParsePlan[] plans = new ParsePlan[matchers.length];
+    for (int i = 0; i < matchers.length; i++) {
+      plans[i] = ParsePlan.of(matchers[i]);
+    }
+    // constant filters are scoped to plans, so the full plan must include them
+    ParsePlan fullPlan = new ParsePlan(ALL_SECTIONS, null, ParsePlan.of(matchers).constantFilters);
+    for (byte[] bytecode : loadBytecode("asm-test.jar")) {
+      ClassOutline outline = ClassFile.outline(bytecode, fullPlan);
+      for (int i = 0; i < matchers.length; i++) {
+        assertEquals(
+            matchers[i].test(outline),
+            matchers[i].test(ClassFile.outline(bytecode, plans[i])),
+            outline.className);
+      }
+    }
+  }
+
+  @Test
+  void recordsAndSealedClasses() throws IOException {
+    byte[] recordClass = jdkBytecode("jdk/net/UnixDomainPrincipal");
+    byte[] sealedClass = jdkBytecode("java/lang/constant/ClassDesc");
+    assumeTrue(recordClass != null && sealedClass != null, "requires Java 17+");
+
+    ClassMatcher userRecord = record().and(recordComponent(field("user")));
+    ClassMatcher idRecord = record().and(recordComponent(field("id")));
+    ClassMatcher sealedDesc = sealed().and(permits("java.lang.constant.ReferenceClassDescImpl"));
+    ParsePlan plan = ParsePlan.of(userRecord, idRecord, sealedDesc);
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(recordClass),
+            ClassFile.lazyOutline(recordClass),
+            ClassFile.outline(recordClass, plan))) {
+      assertTrue(userRecord.test(outline));
+      assertFalse(idRecord.test(outline));
+      assertFalse(sealedDesc.test(outline));
+    }
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(sealedClass),
+            ClassFile.lazyOutline(sealedClass),
+            ClassFile.outline(sealedClass, plan))) {
+      assertFalse(userRecord.test(outline));
+      assertTrue(sealedDesc.test(outline));
+    }
+  }
+
+  @Test
+  void signatures() {
+    byte[] bytecode = ClassFileTest.sampleEndpointClass;
+    ClassMatcher comparableEndpoint =
+        signature(superType("java.lang.Comparable", "sample.MyEndpoint"));
+    ClassMatcher comparableString =
+        signature(superType("java.lang.Comparable", "java.lang.String"));
+    ClassMatcher routesField =
+        declares(field().signature(parameterized("java.util.List", "sample.MyEndpoint")));
+    ClassMatcher wildcardMapField =
+        declares(field().signature(parameterized("java.util.Map", "java.lang.String", "?")));
+    ClassMatcher partialNameField = declares(field().signature(parameterized("util.List")));
+    ClassMatcher boundedMethod =
+        declares(method("sorted").signature(parameterized("java.lang.Comparable")));
+
+    ParsePlan plan = ParsePlan.of(routesField, boundedMethod);
+    assertTrue(plan.needsSignatures());
+    assertFalse(plan.needsFieldAnnotations());
+    assertFalse(plan.needsClassAttributes());
+    assertTrue(ParsePlan.of(comparableEndpoint).needsClassAttributes());
+    assertFalse(ParsePlan.of(comparableEndpoint).needsSignatures());
+
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(bytecode),
+            ClassFile.lazyOutline(bytecode),
+            ClassFile.outline(
+                bytecode,
+                ParsePlan.of(
+                    comparableEndpoint,
+                    comparableString,
+                    routesField,
+                    wildcardMapField,
+                    partialNameField,
+                    boundedMethod)))) {
+      assertTrue(comparableEndpoint.test(outline));
+      assertFalse(comparableString.test(outline));
+      assertTrue(routesField.test(outline));
+      assertFalse(wildcardMapField.test(outline));
+      assertFalse(partialNameField.test(outline));
+      assertTrue(boundedMethod.test(outline));
+    }
+  }
+
+  @Test
+  void nestedClasses() throws IOException {
+    Runnable anonymousTask =
+        new Runnable() {
+          @Override
+          public void run() {}
+        };
+    class LocalTask implements Runnable {
+      @Override
+      public void run() {}
+    }
+    byte[] anonymousClass = testBytecode(anonymousTask.getClass());
+    byte[] localClass = testBytecode(LocalTask.class);
+    byte[] memberClass =
+        Files.readAllBytes(Paths.get("build/classes/java/test/sample/MyEndpoint$Mapping.class"));
+    byte[] outerClass = ClassFileTest.sampleEndpointClass;
+
+    ClassMatcher enclosedByTest = enclosedBy(ParsePlanTest.class.getName());
+    ClassMatcher enclosedByEndpoint = enclosedBy("sample.MyEndpoint");
+    ParsePlan plan = ParsePlan.of(nested(), anonymous(), enclosedByTest, enclosedByEndpoint);
+    assertTrue(plan.needsClassAttributes());
+    assertFalse(plan.needsMethods());
+    assertTrue(ParsePlan.of(synthetic()).headerOnly());
+
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(anonymousClass),
+            ClassFile.lazyOutline(anonymousClass),
+            ClassFile.outline(anonymousClass, plan))) {
+      assertTrue(nested().test(outline));
+      assertTrue(anonymous().test(outline));
+      assertTrue(enclosedByTest.test(outline));
+      assertFalse(enclosedByEndpoint.test(outline));
+      assertNotNull(outline.enclosingMethod());
+      assertEquals("nestedClasses", outline.enclosingMethod().methodName());
+      assertEquals("()V", outline.enclosingMethod().descriptor());
+    }
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(localClass),
+            ClassFile.lazyOutline(localClass),
+            ClassFile.outline(localClass, plan))) {
+      assertTrue(nested().test(outline));
+      assertFalse(anonymous().test(outline));
+      assertTrue(enclosedByTest.test(outline));
+      assertNotNull(outline.enclosingMethod());
+      assertEquals("nestedClasses", outline.enclosingMethod().methodName());
+    }
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(memberClass),
+            ClassFile.lazyOutline(memberClass),
+            ClassFile.outline(memberClass, plan))) {
+      assertTrue(nested().test(outline));
+      assertFalse(anonymous().test(outline));
+      assertTrue(enclosedByEndpoint.test(outline));
+      assertNull(outline.enclosingMethod());
+    }
+    // outer classes list their nested classes, but are not nested themselves
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(outerClass),
+            ClassFile.lazyOutline(outerClass),
+            ClassFile.outline(outerClass, plan))) {
+      assertFalse(nested().test(outline));
+      assertFalse(anonymous().test(outline));
+      assertNull(outline.enclosingClass());
+      assertFalse(synthetic().test(outline));
+    }
+    // the compiler-generated bridge method is synthetic
+    assertTrue(
+        declares(AccessMatcher.SYNTHETIC, method("compareTo")).test(ClassFile.outline(outerClass)));
+  }
+
+  @Test
+  void referencedTypes() {
+    byte[] bytecode = ClassFileTest.sampleEndpointClass;
+    ClassMatcher comparable = references("java.lang.Comparable");
+    ClassMatcher mapping = references("java.util.Map", "sample.MyEndpoint$Mapping");
+    // types that only appear in descriptors or signatures are not class constants
+    ClassMatcher descriptorOnly = references("java.util.Map", "java.util.List");
+
+    ParsePlan plan = ParsePlan.of(comparable, mapping, descriptorOnly);
+    assertTrue(plan.needsReferences());
+    assertFalse(plan.needsFields());
+    assertFalse(plan.needsMethods());
+
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(bytecode),
+            ClassFile.lazyOutline(bytecode),
+            ClassFile.outline(bytecode, plan))) {
+      assertTrue(comparable.test(outline));
+      assertTrue(mapping.test(outline));
+      assertFalse(descriptorOnly.test(outline));
+      assertTrue(asList(outline.references()).contains("sample/MyEndpoint$Mapping"));
+      assertFalse(asList(outline.references()).contains("java/util/Map"));
+    }
+
+    ClassOutline withoutReferences =
+        ClassFile.outline(bytecode, ParsePlan.of(declares(field("routes"))));
+    assertNotNull(withoutReferences);
+    assertEquals(0, withoutReferences.references().length);
+    assertFalse(comparable.test(withoutReferences));
+  }
+
+  @Test
+  void invokedMethods() {
+    byte[] bytecode = ClassFileTest.sampleEndpointClass;
+    ClassMatcher superConstructor = invokes("java.lang.Object", constructor().noParameters());
+    // the compiler-generated bridge method calls the specific compareTo method
+    ClassMatcher bridgedCompare =
+        invokes("sample.MyEndpoint", method("compareTo").parameters("sample.MyEndpoint"));
+    ClassMatcher objectHashCode = invokes("java.lang.Object", method("hashCode"));
+    ClassMatcher declaredOnly = invokes("sample.MyEndpoint", method("handle"));
+
+    ParsePlan plan = ParsePlan.of(superConstructor, bridgedCompare, objectHashCode, declaredOnly);
+    assertTrue(plan.needsInvocations());
+    assertFalse(plan.needsMethods());
+
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(bytecode),
+            ClassFile.lazyOutline(bytecode),
+            ClassFile.outline(bytecode, plan))) {
+      assertTrue(superConstructor.test(outline));
+      assertTrue(bridgedCompare.test(outline));
+      assertFalse(objectHashCode.test(outline));
+      assertFalse(declaredOnly.test(outline));
+      MethodOutline[] invoked = outline.invokedMethods("java/lang/Object");
+      assertEquals(1, invoked.length);
+      assertEquals("<init>", invoked[0].methodName());
+      assertEquals("()V", invoked[0].descriptor());
+      assertEquals(0, outline.invokedMethods("java/util/Map").length);
+    }
+
+    ClassOutline withoutInvocations =
+        ClassFile.outline(bytecode, ParsePlan.of(references("java.lang.Object")));
+    assertNotNull(withoutInvocations);
+    assertTrue(asList(withoutInvocations.references()).contains("java/lang/Object"));
+    assertEquals(0, withoutInvocations.invokedMethods("java/lang/Object").length);
+  }
+
+  @Test
+  void codeMetrics() throws IOException {
+    byte[] bytecode = ClassFileTest.sampleEndpointClass;
+    ClassMatcher smallHandler = declares(method("handle").codeSizeAtMost(2));
+    ClassMatcher largeHandler = declares(method("handle").codeSizeAtLeast(3));
+    ClassMatcher largeBridge = declares(method("compareTo").codeSizeAtLeast(3));
+
+    ParsePlan plan = ParsePlan.of(smallHandler, largeHandler, largeBridge);
+    assertTrue(plan.needsCode());
+
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(bytecode),
+            ClassFile.lazyOutline(bytecode),
+            ClassFile.outline(bytecode, plan))) {
+      assertTrue(smallHandler.test(outline));
+      assertFalse(largeHandler.test(outline));
+      assertTrue(largeBridge.test(outline));
+      for (MethodOutline method : outline.methods) {
+        if ("handle".equals(method.methodName())) {
+          assertEquals(2, method.codeLength()); // aload_2, areturn
+          assertEquals(1, method.maxStack());
+          assertEquals(4, method.maxLocals());
+          assertEquals(0, method.handlerCount());
+        }
+      }
+    }
+
+    ClassOutline withoutCode =
+        ClassFile.outline(bytecode, ParsePlan.of(declares(method("handle"))));
+    assertNotNull(withoutCode);
+    for (MethodOutline method : withoutCode.methods) {
+      assertEquals(0, method.codeLength());
+      assertEquals(0, method.maxLocals());
+    }
+
+    ClassOutline testOutline = ClassFile.outline(testBytecode(ParsePlanTest.class));
+    assertNotNull(testOutline);
+    for (MethodOutline method : testOutline.methods) {
+      if ("parseOrZero".equals(method.methodName())) {
+        assertEquals(1, method.handlerCount());
+      }
+    }
+  }
+
+  @SuppressWarnings("unused")
+  private static int parseOrZero(String s) {
+    try {
+      return Integer.parseInt(s);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  @Test
+  void stringConstants() throws IOException {
+    byte[] endpointBytecode = ClassFileTest.sampleEndpointClass;
+    byte[] unicodeBytecode = ClassFileTest.sampleUnicodeClass;
+
+    ClassNameTrie.Builder builder = new ClassNameTrie.Builder();
+    builder.put("exam*", 1);
+    ClassNameTrie prefixes = builder.buildTrie();
+    ClassMatcher examplePrefix = containsConstant(s -> prefixes.apply(s) > 0);
+    ClassMatcher exampleNeedle = containsConstant("example", "sample");
+    // annotation values are UTF8 constants, but not string constants
+    ClassMatcher annotationValue = containsConstant("/endpoint");
+
+    ParsePlan plan = ParsePlan.of(examplePrefix, exampleNeedle, annotationValue);
+    assertTrue(plan.needsConstants());
+    assertFalse(plan.needsReferences());
+    assertFalse(plan.needsFields());
+
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(unicodeBytecode),
+            ClassFile.lazyOutline(unicodeBytecode),
+            ClassFile.outline(unicodeBytecode, plan))) {
+      assertTrue(examplePrefix.test(outline));
+      assertTrue(exampleNeedle.test(outline));
+      assertFalse(annotationValue.test(outline));
+      assertEquals(asList("example"), asList(outline.constants()));
+    }
+    for (ClassOutline outline :
+        asList(ClassFile.outline(endpointBytecode), ClassFile.outline(endpointBytecode, plan))) {
+      assertFalse(examplePrefix.test(outline));
+      assertFalse(exampleNeedle.test(outline));
+      assertFalse(annotationValue.test(outline));
+    }
+
+    // filter is given views over the raw content, only accepted constants are decoded
+    List<String> viewed = new ArrayList<>();
+    ClassMatcher recorder =
+        containsConstant(s -> !(s instanceof String) && viewed.add(s.toString()));
+    ClassOutline outline =
+        ClassFile.outline(jdkBytecode("java/lang/Boolean"), ParsePlan.of(recorder));
+    assertNotNull(outline);
+    assertTrue(viewed.contains("true"));
+    assertEquals(viewed, asList(outline.constants()));
+
+    // filters are scoped to plans, parsing without the plan doesn't consult the filter
+    viewed.clear();
+    assertNotNull(ClassFile.outline(jdkBytecode("java/lang/Boolean")));
+    assertTrue(viewed.isEmpty());
+  }
+
+  @Test
+  void parameterAnnotatedWith() {
+    byte[] bytecode = ClassFileTest.sampleEndpointClass;
+    ClassMatcher nullableQuery =
+        declares(method("handle").parameterAnnotatedWith(1, "javax.annotation.Nullable"));
+    ClassMatcher nullableId =
+        declares(method("handle").parameterAnnotatedWith(0, "javax.annotation.Nullable"));
+    ClassMatcher checkedBody =
+        declares(
+            method("handle")
+                .parameterAnnotatedWith(
+                    2, "javax.annotation.Nonnull", "javax.annotation.CheckForNull"));
+    ParsePlan plan = ParsePlan.of(nullableQuery, nullableId, checkedBody);
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(bytecode),
+            ClassFile.lazyOutline(bytecode),
+            ClassFile.outline(bytecode, plan))) {
+      assertTrue(nullableQuery.test(outline));
+      assertFalse(nullableId.test(outline));
+      assertTrue(checkedBody.test(outline));
+    }
+  }
+
+  @Test
+  void annotationValues() {
+    byte[] bytecode = ClassFileTest.sampleEndpointClass;
+    String mapping = "sample.MyEndpoint$Mapping";
+    ClassMatcher endpointClass =
+        annotatedWith(mapping, v -> asList(v.stringValues("value")).contains("/endpoint"));
+    ClassMatcher readOnlyMethod =
+        declares(method().annotatedWith(mapping, v -> v.booleanValue("readOnly", false)));
+    ClassMatcher slowMethod =
+        declares(method().annotatedWith(mapping, v -> v.intValue("timeout", -1) > 60));
+    ClassMatcher separatedField =
+        declares(field().annotatedWith(mapping, v -> v.value("sep") != null));
+
+    ParsePlan plan = ParsePlan.of(readOnlyMethod, slowMethod, separatedField);
+    assertFalse(plan.needsClassAnnotations());
+    assertTrue(plan.needsMethodAnnotations());
+    assertTrue(plan.needsFieldAnnotations());
+
+    for (ClassOutline outline :
+        asList(
+            ClassFile.outline(bytecode),
+            ClassFile.lazyOutline(bytecode),
+            ClassFile.outline(bytecode, plan))) {
+      assertTrue(readOnlyMethod.test(outline));
+      assertFalse(slowMethod.test(outline));
+      assertTrue(separatedField.test(outline));
+    }
+    assertTrue(endpointClass.test(ClassFile.outline(bytecode, ParsePlan.of(endpointClass))));
+  }
+
+  @Test
+  void classNameFilter() {
+    List<byte[]> classes = loadBytecode("asm-test.jar");
+
+    // accept every other class
+    ClassNameFilter nameFilter = new ClassNameFilter(1 << 16);
+    for (int i = 0; i < classes.size(); i += 2) {
+      nameFilter.add(ClassFile.header(classes.get(i)).className.replace('/', '.'));
+    }
+    ParsePlan plan =
+        ParsePlan.of(declares(constructor())).withClassNameFilter(nameFilter::contains);
+    for (int i = 0; i < classes.size(); i++) {
+      byte[] bytecode = classes.get(i);
+      String className = ClassFile.header(bytecode).className;
+      if (i % 2 == 0) {
+        assertEquals(className, ClassFile.header(bytecode, nameFilter::contains).className);
+        assertNotNull(ClassFile.outline(bytecode, plan), className);
+      } else {
+        assertNull(ClassFile.header(bytecode, nameFilter::contains), className);
+        assertNull(ClassFile.outline(bytecode, plan), className);
+      }
+    }
+
+    byte[] asciiBytecode = ClassFileTest.sampleParametersClass;
+    byte[] unicodeBytecode = ClassFileTest.sampleUnicodeClass;
+
+    ClassNameTrie.Builder builder = new ClassNameTrie.Builder();
+    builder.put("sample.MyParameters", 1);
+    ClassNameTrie trie = builder.buildTrie();
+    Predicate<CharSequence> trieFilter = name -> trie.apply(name) > 0;
+    assertNotNull(ClassFile.header(asciiBytecode, trieFilter));
+    assertNull(ClassFile.header(unicodeBytecode, trieFilter));
+    builder.put("sample.My*", 2);
+    ClassNameTrie globTrie = builder.buildTrie();
+    assertNotNull(ClassFile.header(unicodeBytecode, name -> globTrie.apply(name) > 0));
+
+    // filter sees dotted names, whether or not they're ASCII
+    List<String> names = new ArrayList<>();
+    Predicate<CharSequence> recorder = name -> names.add(name.toString());
+    ClassFile.header(asciiBytecode, recorder);
+    ClassFile.header(unicodeBytecode, recorder);
+    assertEquals(asList("sample.MyParameters", "sample.My例クラス"), names);
+  }
+
+  private static byte[] testBytecode(Class<?> clazz) throws IOException {
+    return Files.readAllBytes(
+        Paths.get("build/classes/java/test", clazz.getName().replace('.', '/') + ".class"));
+  }
+
+  private static byte[] jdkBytecode(String internalName) throws IOException {
+    try (InputStream in = ClassLoader.getSystemResourceAsStream(internalName + ".class")) {
+      return in != null ? JVM.readAllBytes(in) : null;
+    }
+  }
+}
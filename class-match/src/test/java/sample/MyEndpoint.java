@@ -0,0 +1,63 @@
+package sample;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+@MyEndpoint.Mapping("/endpoint")
+public class MyEndpoint implements Comparable<MyEndpoint> {
+
+  @Mapping(value = "/field", sep = ':')
+  String field;
+
+  Map<String, List<MyEndpoint>> routes;
+
+  @Mapping(
+      value = {"/internal", "/admin"},
+      readOnly = true,
+      timeout = 30,
+      size = 1L << 40,
+      weight = 0.5,
+      kind = ElementType.METHOD,
+      type = String.class,
+      nested = @Target(ElementType.FIELD))
+  public String handle(int id, @Nullable String query, @CheckForNull @Nullable Object body) {
+    return query;
+  }
+
+  public <T extends Comparable<T>> List<T> sorted(Collection<? extends T> items) {
+    return null;
+  }
+
+  @Override
+  public int compareTo(MyEndpoint other) {
+    return 0;
+  }
+
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface Mapping {
+    String[] value();
+
+    boolean readOnly() default false;
+
+    int timeout() default -1;
+
+    long size() default 0;
+
+    double weight() default 1.0;
+
+    char sep() default '/';
+
+    ElementType kind() default ElementType.TYPE;
+
+    Class<?> type() default Object.class;
+
+    Target nested() default @Target({});
+  }
+}
@@ -145,6 +145,18 @@ public final class ClassNameTrie {
     return apply(trieData, longJumps, key, fromIndex);
   }
 
+  /**
+   * Returns the number in the trie the given class-name maps to.
+   *
+   * <p>Use this method with views over other content, to avoid creating a string for the key.
+   *
+   * @param key the class-name key
+   * @return the number the class-name maps to; {@code -1} if not mapped
+   */
+  public int apply(CharSequence key) {
+    return apply(trieData, longJumps, key, 0);
+  }
+
   /**
    * Returns the number in the given trie the class-name maps to.
    *
@@ -155,6 +167,20 @@ public final class ClassNameTrie {
    * @return the number the class-name maps to; {@code -1} if not mapped
    */
   public static int apply(char[] data, @Nullable int[] longJumps, String key, int fromIndex) {
+    // keep this signature for generated tries compiled against earlier releases
+    return apply(data, longJumps, (CharSequence) key, fromIndex);
+  }
+
+  /**
+   * Returns the number in the given trie the class-name maps to.
+   *
+   * @param data the encoded trie data
+   * @param longJumps the long-jumps table
+   * @param key the class-name key
+   * @param fromIndex the index in the class-name to start matching from
+   * @return the number the class-name maps to; {@code -1} if not mapped
+   */
+  public static int apply(char[] data, @Nullable int[] longJumps, CharSequence key, int fromIndex) {
     int keyLength = key.length();
     int keyIndex = fromIndex;
     int dataIndex = 0;
@@ -57,6 +57,7 @@ class ClassNameTrieTest {
     assertEquals(value, testClassNamesTrie.apply(name));
     String internalName = name.replace('.', '/');
     assertEquals(value, testClassNamesTrie.apply(internalName));
+    assertEquals(value, testClassNamesTrie.apply(new StringBuilder(internalName)));
   }
 
   static Stream<Arguments> classNameMapping() {